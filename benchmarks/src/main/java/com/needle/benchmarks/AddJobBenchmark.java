@@ -0,0 +1,94 @@
+package com.needle.benchmarks;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+
+import com.needle.services.AbstractJobBuilder;
+
+/**
+ * {@link AbstractJobBuilder#addJob} with the payload of an email job, against
+ * the in memory and the JDBC job store
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AddJobBenchmark {
+	@Param({ QuartzStores.RAM, QuartzStores.JDBC })
+	public String store;
+
+	private Scheduler scheduler;
+	private BenchmarkJobBuilder jobBuilder;
+	private Date startTime;
+
+	@Setup(Level.Trial)
+	public void setup() throws SchedulerException, IOException {
+		scheduler = QuartzStores.create(store, "add-job-" + store);
+		jobBuilder = new BenchmarkJobBuilder(scheduler);
+		startTime = new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1));
+	}
+
+	/**
+	 * Keeps the store from growing over the whole run
+	 * 
+	 * @throws SchedulerException
+	 */
+	@Setup(Level.Iteration)
+	public void clear() throws SchedulerException {
+		scheduler.clear();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SchedulerException {
+		scheduler.shutdown();
+	}
+
+	@Benchmark
+	public JobDetail addJob() {
+		return jobBuilder.addJob(UUID.randomUUID().toString(), startTime, emailJobData());
+	}
+
+	private static JobDataMap emailJobData() {
+		JobDataMap jobDataMap = new JobDataMap();
+
+		jobDataMap.put("email", "jhon@mail.com");
+		jobDataMap.put("subject", "Testing email schedule");
+		jobDataMap.put("body", "Hi Jhon this is a test message");
+		jobDataMap.put("deliverAt", System.currentTimeMillis());
+		jobDataMap.put("storeDurably", true);
+
+		return jobDataMap;
+	}
+
+	private static class BenchmarkJobBuilder extends AbstractJobBuilder {
+		BenchmarkJobBuilder(Scheduler scheduler) {
+			super(scheduler);
+		}
+
+		JobDetail addJob(String jobName, Date triggerStartTime, JobDataMap dataMap) {
+			return addJob(NoopJob.class, jobName, triggerStartTime, dataMap);
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package com.needle.benchmarks;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.needle.utils.DateTimeUtils;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateTimeUtilsBenchmark {
+	private Date date;
+	private String formatted;
+
+	@Setup
+	public void setup() {
+		date = new Date();
+		formatted = DateTimeUtils.format(date, DateTimeUtils.DATE_TIME);
+	}
+
+	@Benchmark
+	public String format() {
+		return DateTimeUtils.format(date, DateTimeUtils.DATE_TIME);
+	}
+
+	@Benchmark
+	public Date parse() {
+		return DateTimeUtils.parse(formatted, DateTimeUtils.DATE_TIME);
+	}
+}
@@ -0,0 +1,23 @@
+package com.needle.benchmarks;
+
+/**
+ * Email bodies of a given length made of repeated prose, compressible like a
+ * real email would be
+ */
+public final class EmailBodies {
+	private static final String TEXT = "Hi Jhon, this is a reminder about the meeting scheduled for tomorrow. "
+			+ "Please find the agenda below and let us know if anything needs to change.\n";
+
+	private EmailBodies() {
+	}
+
+	public static String of(int length) {
+		StringBuilder body = new StringBuilder(length);
+
+		while (body.length() < length) {
+			body.append(TEXT, 0, Math.min(TEXT.length(), length - body.length()));
+		}
+
+		return body.toString();
+	}
+}
@@ -0,0 +1,109 @@
+package com.needle.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.JobDataMap;
+
+import com.needle.jobs.payload.BinaryEmailPayloadCodec;
+import com.needle.jobs.payload.EmailPayload;
+import com.needle.jobs.payload.EmailPayloadCodec;
+import com.needle.jobs.payload.MapEmailPayloadCodec;
+
+/**
+ * Bytes written to JOB_DATA and encode/decode time of an email job for each
+ * payload layout:
+ * <ul>
+ * <li>serialized-map: one entry per field, Java serialized (the default)</li>
+ * <li>properties: one entry per field, stored with useProperties</li>
+ * <li>binary: the binary codec, Java serialized</li>
+ * </ul>
+ * Encoding includes building the job data map, decoding includes reading the
+ * payload back from it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailPayloadCodecBenchmark {
+	private static final String SERIALIZED_MAP = "serialized-map";
+	private static final String PROPERTIES = "properties";
+	private static final String BINARY = "binary";
+
+	@Param({ SERIALIZED_MAP, PROPERTIES, BINARY })
+	public String layout;
+
+	@Param({ "256", "4096", "65536" })
+	public int bodyLength;
+
+	private EmailPayloadCodec codec;
+	private EmailPayload payload;
+	private byte[] stored;
+
+	@Setup
+	public void setup() throws IOException {
+		codec = BINARY.equals(layout) ? new BinaryEmailPayloadCodec(1024) : new MapEmailPayloadCodec();
+		payload = new EmailPayload("jhon@mail.com", "Testing email schedule", EmailBodies.of(bodyLength));
+		stored = encode();
+
+		System.out.printf("%n%s with %d chars of body stores %d bytes%n", layout, bodyLength, stored.length);
+	}
+
+	@Benchmark
+	public byte[] encode() throws IOException {
+		JobDataMap jobDataMap = new JobDataMap();
+		codec.write(payload, jobDataMap);
+		jobDataMap.put("deliverAt", "1624117860000");
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		if (PROPERTIES.equals(layout)) {
+			// As StdJDBCDelegate does with useProperties
+			Properties properties = new Properties();
+			properties.putAll(jobDataMap.getWrappedMap());
+			properties.store(bytes, "");
+		} else {
+			try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+				out.writeObject(jobDataMap);
+			}
+		}
+
+		return bytes.toByteArray();
+	}
+
+	@Benchmark
+	public EmailPayload decode() throws IOException, ClassNotFoundException {
+		JobDataMap jobDataMap;
+
+		if (PROPERTIES.equals(layout)) {
+			Properties properties = new Properties();
+			properties.load(new ByteArrayInputStream(stored));
+			jobDataMap = new JobDataMap((Map<?, ?>) properties);
+		} else {
+			try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(stored))) {
+				jobDataMap = (JobDataMap) in.readObject();
+			}
+		}
+
+		return codec.read(jobDataMap);
+	}
+}
@@ -0,0 +1,132 @@
+package com.needle.benchmarks;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.listeners.JobListenerSupport;
+
+/**
+ * Fires per second of the JDBC store with the default Quartz settings of the
+ * application against the ones of the high-throughput profile. Each invocation
+ * stores a blast of jobs due at once while the scheduler is in standby, then
+ * starts it and waits for every job to run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class FireThroughputBenchmark {
+	public static final String DEFAULT = "default";
+	public static final String HIGH_THROUGHPUT = "high-throughput";
+
+	private static final int JOBS = 1000;
+
+	@Param({ DEFAULT, HIGH_THROUGHPUT })
+	public String profile;
+
+	private Scheduler scheduler;
+	private volatile CountDownLatch fired;
+
+	@Setup(Level.Trial)
+	public void setup() throws SchedulerException, IOException {
+		scheduler = QuartzStores.create(QuartzStores.JDBC, "fire-" + profile, quartzProperties(profile));
+		scheduler.clear();
+		scheduler.getListenerManager().addJobListener(new JobListenerSupport() {
+			@Override
+			public String getName() {
+				return "FIRE_COUNTER";
+			}
+
+			@Override
+			public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+				fired.countDown();
+			}
+		});
+	}
+
+	@Setup(Level.Invocation)
+	public void storeJobs() throws SchedulerException {
+		scheduler.standby();
+
+		fired = new CountDownLatch(JOBS);
+
+		Map<JobDetail, Set<? extends Trigger>> jobs = new HashMap<>(JOBS * 2);
+		Date now = new Date();
+
+		for (int i = 0; i < JOBS; i++) {
+			JobDetail job = JobBuilder.newJob(NoopJob.class).withIdentity("job-" + i, profile).build();
+			Trigger trigger = TriggerBuilder.newTrigger().withIdentity("trigger-" + i, profile).forJob(job)
+					.startAt(now).build();
+			jobs.put(job, Collections.singleton(trigger));
+		}
+
+		scheduler.scheduleJobs(jobs, true);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SchedulerException {
+		scheduler.shutdown();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(JOBS)
+	public void fire() throws SchedulerException, InterruptedException {
+		scheduler.start();
+		fired.await();
+	}
+
+	/**
+	 * Quartz settings of a profile, as set by application.properties and
+	 * application-high-throughput.properties
+	 * 
+	 * @param profile
+	 * @return
+	 */
+	private static Properties quartzProperties(String profile) {
+		Properties properties = new Properties();
+
+		if (HIGH_THROUGHPUT.equals(profile)) {
+			int threads = Math.min(32, Runtime.getRuntime().availableProcessors() * 4);
+
+			properties.setProperty("org.quartz.threadPool.threadCount", String.valueOf(threads));
+			properties.setProperty("org.quartz.scheduler.batchTriggerAcquisitionMaxCount", String.valueOf(threads));
+			properties.setProperty("org.quartz.scheduler.batchTriggerAcquisitionFireAheadTimeWindow", "1000");
+			properties.setProperty("org.quartz.jobStore.acquireTriggersWithinLock", "true");
+		} else {
+			properties.setProperty("org.quartz.threadPool.threadCount", "2");
+		}
+
+		return properties;
+	}
+}
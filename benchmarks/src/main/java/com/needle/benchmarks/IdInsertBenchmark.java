@@ -0,0 +1,121 @@
+package com.needle.benchmarks;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.postgresql.PGConnection;
+
+import com.needle.utils.TimeOrderedUuid;
+
+/**
+ * Rows per second inserted into a table keyed by random or time ordered ids,
+ * the table already holding the given number of rows inserted the same way:
+ * <ul>
+ * <li>uuid: a UUID primary key, as the messages and scheduled_emails
+ * tables</li>
+ * <li>varchar: a text primary key, as the job name of QRTZ_JOB_DETAILS</li>
+ * </ul>
+ * The size of the primary key index is printed at the end of each trial, per
+ * row as well since the faster ids end up with more rows in the table. With
+ * the default of 10M rows the table is filled for a few minutes before the
+ * first iteration, a smaller table can be given with -p rows=1000000.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class IdInsertBenchmark {
+	private static final String RANDOM = "random";
+	private static final String TIME_ORDERED = "time-ordered";
+	private static final int BATCH = 1000;
+	private static final int FILL_CHUNK = 100_000;
+
+	@Param({ RANDOM, TIME_ORDERED })
+	public String ids;
+
+	@Param({ "uuid", "varchar" })
+	public String column;
+
+	@Param({ "10000000" })
+	public int rows;
+
+	private Connection connection;
+	private PreparedStatement insert;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException, SQLException {
+		connection = QuartzStores.dataSource().getConnection();
+
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("DROP TABLE IF EXISTS id_benchmark");
+			statement.execute("CREATE TABLE id_benchmark (id " + ("uuid".equals(column) ? "UUID" : "VARCHAR(200)")
+					+ " NOT NULL PRIMARY KEY)");
+		}
+
+		// Through the index as the application does, not built once at the end
+		for (int filled = 0; filled < rows; filled += FILL_CHUNK) {
+			StringBuilder chunk = new StringBuilder(FILL_CHUNK * 37);
+			for (int i = 0; i < Math.min(FILL_CHUNK, rows - filled); i++) {
+				chunk.append(nextId()).append('\n');
+			}
+			connection.unwrap(PGConnection.class).getCopyAPI().copyIn("COPY id_benchmark FROM STDIN",
+					new StringReader(chunk.toString()));
+		}
+
+		connection.setAutoCommit(false);
+		insert = connection.prepareStatement("INSERT INTO id_benchmark (id) VALUES (CAST(? AS " + column + "))");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		try (Statement statement = connection.createStatement();
+				ResultSet rs = statement.executeQuery("SELECT count(*), pg_relation_size('id_benchmark_pkey')"
+						+ ", pg_size_pretty(pg_relation_size('id_benchmark_pkey')) FROM id_benchmark")) {
+			rs.next();
+			System.out.printf("%n%s ids as %s: %d rows, primary key of %d bytes (%s), %.1f bytes per row%n", ids,
+					column, rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getLong(2) / (double) rs.getLong(1));
+		}
+
+		insert.close();
+		connection.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void insert() throws SQLException {
+		for (int i = 0; i < BATCH; i++) {
+			insert.setString(1, nextId());
+			insert.addBatch();
+		}
+
+		insert.executeBatch();
+		connection.commit();
+	}
+
+	private String nextId() {
+		return (TIME_ORDERED.equals(ids) ? TimeOrderedUuid.next() : UUID.randomUUID()).toString();
+	}
+}
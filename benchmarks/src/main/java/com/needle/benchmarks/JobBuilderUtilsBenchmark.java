@@ -0,0 +1,56 @@
+package com.needle.benchmarks;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.Trigger;
+
+import com.needle.utils.JobBuilderUtils;
+
+/**
+ * Building the job details and triggers of the message jobs
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JobBuilderUtilsBenchmark {
+	private static final String GROUP = "benchmark-group";
+
+	private JobDataMap jobDataMap;
+	private JobDetail jobDetail;
+	private Date startTime;
+
+	@Setup
+	public void setup() {
+		jobDataMap = new JobDataMap();
+		jobDataMap.put("messageId", "4d3c5a1e-8f0b-4b5e-9a36-1f2f0c6a7b90");
+
+		jobDetail = JobBuilderUtils.buildJobDetail(NoopJob.class, jobDataMap, GROUP, "Benchmark job");
+		startTime = new Date(System.currentTimeMillis() + TimeUnit.DAYS.toMillis(1));
+	}
+
+	@Benchmark
+	public JobDetail buildJobDetail() {
+		return JobBuilderUtils.buildJobDetail(NoopJob.class, jobDataMap, GROUP, "Benchmark job");
+	}
+
+	@Benchmark
+	public Trigger buildTriggerThatTriggerOnce() {
+		return JobBuilderUtils.buildTriggerThatTriggerOnce(jobDetail, GROUP, "Benchmark trigger", startTime);
+	}
+}
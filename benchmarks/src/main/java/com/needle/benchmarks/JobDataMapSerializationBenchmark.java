@@ -0,0 +1,74 @@
+package com.needle.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.JobDataMap;
+
+/**
+ * Java serialization of an email job's data map, the way the JDBC store writes
+ * it to QRTZ_JOB_DETAILS.JOB_DATA and reads it back on every fire
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JobDataMapSerializationBenchmark {
+	@Param({ "256", "4096", "65536" })
+	public int bodyLength;
+
+	private JobDataMap jobDataMap;
+	private byte[] serialized;
+
+	@Setup
+	public void setup() throws IOException {
+		jobDataMap = new JobDataMap();
+		jobDataMap.put("email", "jhon@mail.com");
+		jobDataMap.put("subject", "Testing email schedule");
+		jobDataMap.put("body", EmailBodies.of(bodyLength));
+		jobDataMap.put("deliverAt", System.currentTimeMillis());
+
+		serialized = serialize(jobDataMap);
+
+		System.out.printf("%n%d chars of body serialize to %d bytes%n", bodyLength, serialized.length);
+	}
+
+	@Benchmark
+	public byte[] serialize() throws IOException {
+		return serialize(jobDataMap);
+	}
+
+	@Benchmark
+	public Object deserialize() throws IOException, ClassNotFoundException {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serialized))) {
+			return in.readObject();
+		}
+	}
+
+	private static byte[] serialize(JobDataMap jobDataMap) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(jobDataMap);
+		}
+
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,13 @@
+package com.needle.benchmarks;
+
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+
+/**
+ * Job class of the benchmarked jobs, does nothing when fired
+ */
+public class NoopJob implements Job {
+	@Override
+	public void execute(JobExecutionContext context) {
+	}
+}
@@ -0,0 +1,132 @@
+package com.needle.benchmarks;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+
+import javax.sql.DataSource;
+
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.impl.jdbcjobstore.JobStoreTX;
+import org.quartz.impl.jdbcjobstore.PostgreSQLDelegate;
+import org.quartz.simpl.RAMJobStore;
+import org.quartz.utils.ConnectionProvider;
+import org.quartz.utils.DBConnectionManager;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Schedulers backed by the job stores the benchmarks compare. The JDBC store
+ * runs on an embedded Postgres started once per benchmark fork.
+ */
+public final class QuartzStores {
+	public static final String RAM = "ram";
+	public static final String JDBC = "jdbc";
+
+	private static final String DATA_SOURCE = "benchmarks";
+
+	private static EmbeddedPostgres postgres;
+
+	private QuartzStores() {
+	}
+
+	/**
+	 * A scheduler in standby, the jobs it stores never fire
+	 * 
+	 * @param store {@link #RAM} or {@link #JDBC}
+	 * @param name  scheduler instance name
+	 * @return
+	 * @throws SchedulerException
+	 * @throws IOException
+	 */
+	public static Scheduler create(String store, String name) throws SchedulerException, IOException {
+		return create(store, name, new Properties());
+	}
+
+	/**
+	 * A scheduler in standby with Quartz settings of its own
+	 * 
+	 * @param store     {@link #RAM} or {@link #JDBC}
+	 * @param name      scheduler instance name
+	 * @param overrides Quartz properties set on top of the defaults
+	 * @return
+	 * @throws SchedulerException
+	 * @throws IOException
+	 */
+	public static Scheduler create(String store, String name, Properties overrides)
+			throws SchedulerException, IOException {
+		Properties properties = new Properties();
+
+		properties.setProperty(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, name);
+		// No constant for it in Quartz 2.3
+		properties.setProperty("org.quartz.scheduler.skipUpdateCheck", "true");
+		properties.setProperty("org.quartz.threadPool.threadCount", "1");
+
+		if (JDBC.equals(store)) {
+			DBConnectionManager.getInstance().addConnectionProvider(DATA_SOURCE, new DataSourceProvider(dataSource()));
+
+			properties.setProperty(StdSchedulerFactory.PROP_JOB_STORE_CLASS, JobStoreTX.class.getName());
+			properties.setProperty("org.quartz.jobStore.driverDelegateClass", PostgreSQLDelegate.class.getName());
+			properties.setProperty("org.quartz.jobStore.dataSource", DATA_SOURCE);
+		} else {
+			properties.setProperty(StdSchedulerFactory.PROP_JOB_STORE_CLASS, RAMJobStore.class.getName());
+		}
+
+		properties.putAll(overrides);
+
+		return new StdSchedulerFactory(properties).getScheduler();
+	}
+
+	/**
+	 * Embedded Postgres with the Quartz tables, started on first use
+	 * 
+	 * @return
+	 * @throws IOException
+	 */
+	public static synchronized DataSource dataSource() throws IOException {
+		if (null == postgres) {
+			postgres = EmbeddedPostgres.start();
+
+			new ResourceDatabasePopulator(new ClassPathResource("org/quartz/impl/jdbcjobstore/tables_postgres.sql"))
+					.execute(postgres.getPostgresDatabase());
+
+			Runtime.getRuntime().addShutdownHook(new Thread(QuartzStores::stopPostgres));
+		}
+
+		return postgres.getPostgresDatabase();
+	}
+
+	private static synchronized void stopPostgres() {
+		try {
+			postgres.close();
+		} catch (IOException e) {
+			// The fork is exiting anyway
+		}
+	}
+
+	private static class DataSourceProvider implements ConnectionProvider {
+		private final DataSource dataSource;
+
+		DataSourceProvider(DataSource dataSource) {
+			this.dataSource = dataSource;
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			return dataSource.getConnection();
+		}
+
+		@Override
+		public void shutdown() {
+		}
+
+		@Override
+		public void initialize() {
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package com.needle.benchmarks;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.quartz.JobDataMap;
+
+import com.needle.services.EmailTemplateService;
+import com.needle.utils.CompiledTemplate;
+
+/**
+ * Renders per second of an email template with a handful of variables:
+ * <ul>
+ * <li>compiled: the compiled template into a reused buffer, the variables read
+ * from the job data as the email job does</li>
+ * <li>naive: a String.replace per variable on the raw template</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateRenderBenchmark {
+	private static final String[] VARIABLES = { "firstName", "lastName", "orderId", "amount", "trackingUrl",
+			"unsubscribeUrl" };
+
+	@Param({ "256", "4096", "65536" })
+	public int bodyLength;
+
+	private String source;
+	private CompiledTemplate compiled;
+	private JobDataMap jobDataMap;
+	private Map<String, String> variables;
+	private StringBuilder buffer;
+
+	@Setup
+	public void setup() {
+		StringBuilder template = new StringBuilder();
+
+		// The variables spread over the body
+		int gap = Math.max(1, bodyLength / VARIABLES.length);
+		String filler = EmailBodies.of(bodyLength);
+
+		for (int i = 0; i < VARIABLES.length; i++) {
+			template.append(filler, Math.min(i * gap, filler.length()), Math.min((i + 1) * gap, filler.length()));
+			template.append("{{").append(VARIABLES[i]).append("}}");
+		}
+
+		source = template.toString();
+		compiled = CompiledTemplate.compile(source, EmailTemplateService.VARIABLE_KEY_PREFIX);
+
+		variables = new LinkedHashMap<>();
+		jobDataMap = new JobDataMap();
+
+		for (String variable : VARIABLES) {
+			String value = variable + "-value";
+			variables.put(variable, value);
+			jobDataMap.put(EmailTemplateService.VARIABLE_KEY_PREFIX + variable, value);
+		}
+
+		buffer = new StringBuilder(source.length() * 2);
+	}
+
+	@Benchmark
+	public String compiled() {
+		buffer.setLength(0);
+		compiled.render(buffer, jobDataMap::getString);
+		return buffer.toString();
+	}
+
+	@Benchmark
+	public String naive() {
+		String rendered = source;
+
+		for (Map.Entry<String, String> variable : variables.entrySet()) {
+			rendered = rendered.replace("{{" + variable.getKey() + "}}", variable.getValue());
+		}
+
+		return rendered;
+	}
+}
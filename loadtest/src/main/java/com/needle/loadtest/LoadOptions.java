@@ -0,0 +1,34 @@
+package com.needle.loadtest;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings of a run, bound from the load.* properties, e.g.
+ * --load.email-rate=500
+ */
+@Getter
+@Setter
+public class LoadOptions {
+	/* Requests per second on /emails/schedule, none when not positive */
+	private double emailRate = 100;
+	/* Requests per second on /messages/schedule, none when not positive */
+	private double messageRate = 100;
+	/* How long the requests are sent for */
+	private long durationSeconds = 300;
+	/* Delivery times are spread evenly over this window after the request */
+	private long deliveryWindowSeconds = 300;
+	/* Earliest delivery after the request, keeps the requests valid when they queue */
+	private long minimumLeadSeconds = 5;
+	/* Reporting goes on this long after the last request so the jobs can fire, the window by default */
+	private long drainSeconds = -1;
+	private long reportSeconds = 10;
+	/* Recipient domains the emails go round, to exercise the per domain throttling */
+	private int recipientDomains = 5;
+	/* Interval lines in CSV, the latency distributions go next to it */
+	private String reportFile = "loadtest-report.csv";
+
+	public long getDrainSeconds() {
+		return drainSeconds < 0 ? deliveryWindowSeconds : drainSeconds;
+	}
+}
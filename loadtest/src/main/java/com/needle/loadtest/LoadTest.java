@@ -0,0 +1,239 @@
+package com.needle.loadtest;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.needle.EmailSchedulerPocApplication;
+import com.needle.jobs.EmaillSchedulerJob;
+import com.needle.metrics.LatencySnapshot;
+import com.needle.metrics.LatencyTracker;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Runs the application on an embedded Postgres with an SMTP sink as the relay,
+ * drives the schedule endpoints at open-loop rates and reports request latency,
+ * Quartz table growth and fire lag at a fixed interval.
+ * <p>
+ * Usage: java -jar loadtest.jar --load.email-rate=500 --load.duration-seconds=3600
+ * <p>
+ * Any other argument goes to the application, e.g.
+ * --spring.quartz.properties.org.quartz.threadPool.threadCount=10
+ */
+public class LoadTest {
+	private static final DateTimeFormatter DELIVERY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+	private static final String MESSAGE_GROUP = "message-job-group";
+
+	// @formatter:off
+	private static final String HEADER = "elapsed_s,"
+			+ "email_sent,email_errors,email_rejected,email_accepted_per_s,email_in_flight,email_p50_ms,email_p99_ms,email_max_ms,"
+			+ "message_sent,message_errors,message_rejected,message_accepted_per_s,message_in_flight,message_p50_ms,message_p99_ms,message_max_ms,"
+			+ "qrtz_triggers,qrtz_job_details,qrtz_fired_triggers,qrtz_triggers_mb,qrtz_job_details_mb,"
+			+ "emails_delivered,email_fire_lag_p99_ms,email_lateness_p99_ms,message_fire_lag_p99_ms";
+	// @formatter:on
+
+	private final ConfigurableApplicationContext context;
+	private final SmtpSink sink;
+	private final LoadOptions options;
+	private final String baseUrl;
+	private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+	private final AtomicLong sequence = new AtomicLong();
+
+	LoadTest(ConfigurableApplicationContext context, SmtpSink sink, LoadOptions options) {
+		this.context = context;
+		this.sink = sink;
+		this.options = options;
+		this.baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+	}
+
+	public static void main(String[] args) throws Exception {
+		try (EmbeddedPostgres postgres = EmbeddedPostgres.start(); SmtpSink sink = new SmtpSink()) {
+			// System properties win over application.properties, the arguments win over both
+			System.setProperty("spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres"));
+			System.setProperty("spring.datasource.username", "postgres");
+			System.setProperty("server.port", "0");
+			System.setProperty("mail.dispatcher.host", "127.0.0.1");
+			System.setProperty("mail.dispatcher.port", String.valueOf(sink.getPort()));
+			System.setProperty("spring.jpa.show-sql", "false");
+			System.setProperty("logging.level.com.needle", "WARN");
+
+			ConfigurableApplicationContext context = SpringApplication.run(EmailSchedulerPocApplication.class, args);
+
+			try {
+				LoadOptions options = Binder.get(context.getEnvironment()).bind("load", LoadOptions.class)
+						.orElseGet(LoadOptions::new);
+
+				new LoadTest(context, sink, options).run();
+			} finally {
+				context.close();
+			}
+		}
+	}
+
+	void run() throws InterruptedException, FileNotFoundException {
+		OpenLoopGenerator emails = new OpenLoopGenerator("email", options.getEmailRate(), this::emailRequest,
+				httpClient);
+		OpenLoopGenerator messages = new OpenLoopGenerator("message", options.getMessageRate(), this::messageRequest,
+				httpClient);
+		List<OpenLoopGenerator> generators = Arrays.asList(emails, messages);
+
+		JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+		LatencyTracker latencyTracker = context.getBean(LatencyTracker.class);
+
+		long reportNanos = TimeUnit.SECONDS.toNanos(options.getReportSeconds());
+		long endNanos = TimeUnit.SECONDS.toNanos(options.getDurationSeconds() + options.getDrainSeconds());
+
+		System.out.printf("Load test on %s: %.0f emails/s and %.0f messages/s for %d s, delivered over %d s%n",
+				baseUrl, options.getEmailRate(), options.getMessageRate(), options.getDurationSeconds(),
+				options.getDeliveryWindowSeconds());
+
+		try (PrintWriter report = new PrintWriter(options.getReportFile())) {
+			report.println(HEADER);
+			System.out.println(HEADER);
+
+			long start = System.nanoTime();
+			generators.forEach(generator -> generator.start(TimeUnit.SECONDS.toNanos(options.getDurationSeconds())));
+
+			for (long next = start + reportNanos; next - start <= endNanos; next += reportNanos) {
+				TimeUnit.NANOSECONDS.sleep(Math.max(0, next - System.nanoTime()));
+
+				StringBuilder line = new StringBuilder()
+						.append(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+
+				for (OpenLoopGenerator generator : generators) {
+					Histogram interval = generator.intervalHistogram();
+
+					line.append(',').append(generator.getSent()).append(',').append(generator.getErrors()).append(',')
+							.append(generator.getRejected()).append(',')
+							.append(generator.intervalAccepted() / options.getReportSeconds()).append(',')
+							.append(generator.getInFlight()).append(',').append(millis(interval.getValueAtPercentile(50)))
+							.append(',').append(millis(interval.getValueAtPercentile(99))).append(',')
+							.append(millis(interval.getMaxValue()));
+				}
+
+				QuartzTableStats stats = QuartzTableStats.read(jdbcTemplate);
+				Map<String, LatencyTracker.GroupReport> latency = latencyTracker.report();
+
+				line.append(',').append(stats.getTriggers()).append(',').append(stats.getJobDetails()).append(',')
+						.append(stats.getFiredTriggers()).append(',').append(megabytes(stats.getTriggersBytes()))
+						.append(',').append(megabytes(stats.getJobDetailsBytes())).append(',')
+						.append(sink.getMessages()).append(',')
+						.append(p99(latency.get(EmaillSchedulerJob.class.getSimpleName()), true)).append(',')
+						.append(p99(latency.get(EmaillSchedulerJob.class.getSimpleName()), false)).append(',')
+						.append(p99(latency.get(MESSAGE_GROUP), true));
+
+				report.println(line);
+				report.flush();
+				System.out.println(line);
+			}
+
+			for (OpenLoopGenerator generator : generators) {
+				generator.stop();
+			}
+		}
+
+		for (OpenLoopGenerator generator : generators) {
+			summarize(generator);
+		}
+	}
+
+	private void summarize(OpenLoopGenerator generator) throws FileNotFoundException {
+		generator.intervalHistogram();
+		Histogram total = generator.getTotal();
+
+		if (total.getTotalCount() == 0) {
+			return;
+		}
+
+		System.out.printf(
+				"%s: %d requests, %d errors, %d rejected, %.1f accepted/s, latency p50 %.1f ms, p99 %.1f ms, p99.9 %.1f ms, max %.1f ms%n",
+				generator.getName(), generator.getSent(), generator.getErrors(), generator.getRejected(),
+				generator.getAccepted() / (double) Math.max(1, options.getDurationSeconds()),
+				millis(total.getValueAtPercentile(50)), millis(total.getValueAtPercentile(99)),
+				millis(total.getValueAtPercentile(99.9)), millis(total.getMaxValue()));
+
+		// Percentile distribution in the format of the HdrHistogram plotter
+		File distribution = new File(options.getReportFile() + "." + generator.getName() + ".hgrm");
+
+		try (PrintStream out = new PrintStream(distribution)) {
+			total.outputPercentileDistribution(out, 1000.0);
+		}
+	}
+
+	private HttpRequest emailRequest() {
+		long n = sequence.incrementAndGet();
+
+		// @formatter:off
+		String body = String.format("{\"email\":\"user%d@domain%d.com\",\"subject\":\"Load test %d\","
+				+ "\"body\":\"Hi, this is load test email %d\",\"deliverOn\":\"%s\",\"timeZone\":\"UTC\"}",
+				n, n % Math.max(1, options.getRecipientDomains()), n, n,
+				DELIVERY_FORMAT.format(deliveryTime(LocalDateTime.now(ZoneOffset.UTC))));
+		// @formatter:on
+
+		return post("/emails/schedule", body);
+	}
+
+	private HttpRequest messageRequest() {
+		long n = sequence.incrementAndGet();
+
+		String body = String.format("{\"content\":\"Load test message %d\",\"makeVisibleAt\":\"%s\"}", n,
+				DELIVERY_FORMAT.format(deliveryTime(LocalDateTime.now())));
+
+		return post("/messages/schedule", body);
+	}
+
+	private LocalDateTime deliveryTime(LocalDateTime now) {
+		long lead = options.getMinimumLeadSeconds();
+		long window = Math.max(lead + 1, options.getDeliveryWindowSeconds());
+
+		return now.plusSeconds(ThreadLocalRandom.current().nextLong(lead, window));
+	}
+
+	private HttpRequest post(String path, String body) {
+		// @formatter:off
+		return HttpRequest.newBuilder(URI.create(baseUrl + path))
+				.timeout(Duration.ofSeconds(30))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(body))
+				.build();
+		// @formatter:on
+	}
+
+	private static String p99(LatencyTracker.GroupReport report, boolean fireLag) {
+		if (null == report) {
+			return "";
+		}
+
+		LatencySnapshot snapshot = fireLag ? report.getFireLag() : report.getLateness();
+		return String.valueOf(snapshot.getP99());
+	}
+
+	private static double millis(long micros) {
+		return micros / 1000.0;
+	}
+
+	private static String megabytes(long bytes) {
+		return String.format("%.1f", bytes / (1024.0 * 1024.0));
+	}
+}
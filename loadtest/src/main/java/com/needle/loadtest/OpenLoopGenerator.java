@@ -0,0 +1,162 @@
+package com.needle.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import lombok.Getter;
+
+/**
+ * Sends requests at a fixed rate whatever the response times are. The latency
+ * of a request is measured from the time it was meant to be sent, so a server
+ * that stalls is charged for the requests that queued up behind the stall
+ * instead of hiding them (coordinated omission).
+ * <p>
+ * Requests turned down with a 429 are counted apart from the errors, the
+ * accepted ones give the throughput under overload.
+ */
+public class OpenLoopGenerator {
+	private static final int TOO_MANY_REQUESTS = 429;
+
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+	@Getter
+	private final String name;
+	private final double ratePerSecond;
+	private final Supplier<HttpRequest> requests;
+	private final HttpClient httpClient;
+
+	private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+	@Getter
+	private final Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+	private final LongAdder sent = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder accepted = new LongAdder();
+	private long acceptedBefore = 0;
+	private final AtomicLong inFlight = new AtomicLong();
+
+	private Histogram interval;
+	private volatile boolean running = false;
+	private Thread thread;
+
+	public OpenLoopGenerator(String name, double ratePerSecond, Supplier<HttpRequest> requests,
+			HttpClient httpClient) {
+		this.name = name;
+		this.ratePerSecond = ratePerSecond;
+		this.requests = requests;
+		this.httpClient = httpClient;
+	}
+
+	public void start(long durationNanos) {
+		if (ratePerSecond <= 0) {
+			return;
+		}
+
+		running = true;
+		thread = new Thread(() -> run(durationNanos), "load-" + name);
+		thread.start();
+	}
+
+	public void stop() throws InterruptedException {
+		running = false;
+
+		if (null != thread) {
+			thread.join();
+		}
+	}
+
+	private void run(long durationNanos) {
+		long periodNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+		long start = System.nanoTime();
+
+		for (long i = 0; running; i++) {
+			long intended = start + i * periodNanos;
+
+			if (intended - start >= durationNanos) {
+				return;
+			}
+
+			long wait = intended - System.nanoTime();
+
+			if (wait > 0) {
+				LockSupport.parkNanos(wait);
+			}
+
+			send(intended);
+		}
+	}
+
+	private void send(long intended) {
+		sent.increment();
+		inFlight.incrementAndGet();
+
+		httpClient.sendAsync(requests.get(), HttpResponse.BodyHandlers.discarding()).whenComplete((response, e) -> {
+			inFlight.decrementAndGet();
+
+			long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+			recorder.recordValue(Math.min(micros, HIGHEST_TRACKABLE_MICROS));
+
+			if (null != e) {
+				errors.increment();
+			} else if (response.statusCode() == TOO_MANY_REQUESTS) {
+				rejected.increment();
+			} else if (response.statusCode() >= 300) {
+				errors.increment();
+			} else {
+				accepted.increment();
+			}
+		});
+	}
+
+	/**
+	 * Latencies since the previous call, in micros
+	 *
+	 * @return
+	 */
+	public synchronized Histogram intervalHistogram() {
+		interval = recorder.getIntervalHistogram(interval);
+		total.add(interval);
+		return interval;
+	}
+
+	/**
+	 * Requests accepted since the previous call
+	 *
+	 * @return
+	 */
+	public synchronized long intervalAccepted() {
+		long total = accepted.sum();
+		long interval = total - acceptedBefore;
+		acceptedBefore = total;
+		return interval;
+	}
+
+	public long getSent() {
+		return sent.sum();
+	}
+
+	public long getErrors() {
+		return errors.sum();
+	}
+
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	public long getAccepted() {
+		return accepted.sum();
+	}
+
+	public long getInFlight() {
+		return inFlight.get();
+	}
+}
@@ -0,0 +1,39 @@
+package com.needle.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Size of the Quartz tables, to see how the job store grows over a soak run
+ */
+@Getter
+@AllArgsConstructor
+public class QuartzTableStats {
+	// @formatter:off
+	private static final String QUERY = "SELECT"
+			+ " (SELECT COUNT(*) FROM qrtz_triggers),"
+			+ " (SELECT COUNT(*) FROM qrtz_job_details),"
+			+ " (SELECT COUNT(*) FROM qrtz_fired_triggers),"
+			+ " pg_total_relation_size('qrtz_triggers'),"
+			+ " pg_total_relation_size('qrtz_job_details')";
+	// @formatter:on
+
+	private final long triggers;
+	private final long jobDetails;
+	private final long firedTriggers;
+	private final long triggersBytes;
+	private final long jobDetailsBytes;
+
+	public static QuartzTableStats read(JdbcTemplate jdbcTemplate) {
+		// @formatter:off
+		return jdbcTemplate.queryForObject(QUERY, (rs, rowNum) -> new QuartzTableStats(
+				rs.getLong(1),
+				rs.getLong(2),
+				rs.getLong(3),
+				rs.getLong(4),
+				rs.getLong(5)));
+		// @formatter:on
+	}
+}
@@ -0,0 +1,111 @@
+package com.needle.loadtest;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * SMTP server accepting every message and dropping it, stands in for the relay
+ * so that the sends cost what a fast relay would
+ */
+@Slf4j
+public class SmtpSink implements Closeable {
+	private final ServerSocket serverSocket;
+	private final LongAdder messages = new LongAdder();
+
+	public SmtpSink() throws IOException {
+		this.serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+
+		Thread acceptor = new Thread(this::accept, "smtp-sink-acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Messages accepted so far
+	 *
+	 * @return
+	 */
+	public long getMessages() {
+		return messages.sum();
+	}
+
+	private void accept() {
+		while (!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				socket.setTcpNoDelay(true);
+
+				Thread session = new Thread(() -> serve(socket), "smtp-sink-session");
+				session.setDaemon(true);
+				session.start();
+			} catch (IOException e) {
+				if (!serverSocket.isClosed()) {
+					log.warn("SMTP sink stopped accepting connections", e);
+				}
+				return;
+			}
+		}
+	}
+
+	private void serve(Socket socket) {
+		try (Socket s = socket) {
+			BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+			OutputStream out = s.getOutputStream();
+
+			reply(out, "220 sink ESMTP");
+
+			String line;
+
+			while (null != (line = in.readLine())) {
+				String command = line.length() < 4 ? line.toUpperCase(Locale.ROOT)
+						: line.substring(0, 4).toUpperCase(Locale.ROOT);
+
+				switch (command) {
+				case "EHLO":
+					reply(out, "250-sink\r\n250-PIPELINING\r\n250 8BITMIME");
+					break;
+				case "DATA":
+					reply(out, "354 End data with <CR><LF>.<CR><LF>");
+					while (null != (line = in.readLine()) && !".".equals(line)) {
+						// Content is dropped
+					}
+					messages.increment();
+					reply(out, "250 Queued");
+					break;
+				case "QUIT":
+					reply(out, "221 Bye");
+					return;
+				default:
+					reply(out, "250 OK");
+				}
+			}
+		} catch (IOException e) {
+			log.debug("SMTP sink session ended", e);
+		}
+	}
+
+	private static void reply(OutputStream out, String reply) throws IOException {
+		out.write((reply + "\r\n").getBytes(StandardCharsets.US_ASCII));
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		serverSocket.close();
+	}
+}
@@ -0,0 +1,120 @@
+package com.needle.config;
+
+import java.sql.SQLException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.quartz.QuartzProperties;
+import org.springframework.stereotype.Component;
+
+import com.needle.rest.ScheduleExecutorProperties;
+import com.needle.sharding.SchedulerShards;
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Checks at startup that the connection pool can serve every thread that may
+ * hold a connection at the same time: the workers of each scheduler started
+ * on this node, its acquisition thread, misfire handler and cluster manager,
+ * and the schedule executor in async mode. Threads waiting on the pool would
+ * otherwise show up as fire lag.
+ * <p>
+ * Runs once the beans are created and before the schedulers start, a pool too
+ * small stops the startup before any trigger is acquired.
+ */
+@Slf4j
+@Component
+public class ConnectionPoolCheck implements SmartInitializingSingleton {
+	/* Acquisition thread, misfire handler and cluster manager */
+	private static final int CONNECTIONS_PER_SCHEDULER = 3;
+
+	private final DataSource dataSource;
+	private final Scheduler scheduler;
+	private final SchedulerShards schedulerShards;
+	private final ScheduleExecutorProperties scheduleExecutorProperties;
+	private final QuartzThreadingProperties properties;
+	private final QuartzProperties quartzProperties;
+
+	@Autowired
+	public ConnectionPoolCheck(DataSource dataSource, Scheduler scheduler, SchedulerShards schedulerShards,
+			ScheduleExecutorProperties scheduleExecutorProperties, QuartzThreadingProperties properties,
+			QuartzProperties quartzProperties) {
+		this.dataSource = dataSource;
+		this.scheduler = scheduler;
+		this.schedulerShards = schedulerShards;
+		this.scheduleExecutorProperties = scheduleExecutorProperties;
+		this.properties = properties;
+		this.quartzProperties = quartzProperties;
+	}
+
+	@Override
+	@SneakyThrows
+	public void afterSingletonsInstantiated() {
+		check();
+	}
+
+	public void check() throws SQLException, SchedulerException {
+		if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+			return;
+		}
+
+		int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+		int threads = 0;
+		int needed = scheduleExecutorProperties.isAsync() ? scheduleExecutorProperties.getThreads() : 0;
+
+		Set<Scheduler> schedulers = new LinkedHashSet<>(schedulerShards.getSchedulers());
+		schedulers.add(scheduler);
+
+		for (Scheduler starting : schedulers) {
+			if (!willStart(starting)) {
+				continue;
+			}
+
+			int threadPoolSize = starting.getMetaData().getThreadPoolSize();
+			threads += threadPoolSize;
+			needed += threadPoolSize + CONNECTIONS_PER_SCHEDULER;
+		}
+
+		if (needed <= poolSize) {
+			log.info("Connection pool of {} for {} Quartz threads, up to {} connections in use", poolSize, threads,
+					needed);
+			return;
+		}
+
+		String message = String.format(
+				"Connection pool of %d is too small for %d Quartz threads, up to %d connections can be in use at once",
+				poolSize, threads, needed);
+
+		if (properties.isFailOnSmallPool()) {
+			throw new IllegalStateException(message + ", raise spring.datasource.hikari.maximum-pool-size");
+		}
+
+		log.warn(message);
+	}
+
+	/**
+	 * Spring Boot starts its scheduler unless auto-startup is off, the shards
+	 * start the local ones and the urgent lane
+	 * 
+	 * @param candidate
+	 * @return
+	 * @throws SchedulerException
+	 */
+	private boolean willStart(Scheduler candidate) throws SchedulerException {
+		if (candidate.isShutdown()) {
+			return false;
+		}
+		if (candidate == scheduler) {
+			return quartzProperties.isAutoStartup();
+		}
+		return schedulerShards.isUrgentLane(candidate) || schedulerShards.getLocalShards().contains(candidate);
+	}
+}
@@ -0,0 +1,34 @@
+package com.needle.config;
+
+import java.util.Properties;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.quartz.QuartzProperties;
+import org.springframework.boot.autoconfigure.quartz.SchedulerFactoryBeanCustomizer;
+import org.springframework.scheduling.quartz.SchedulerFactoryBean;
+import org.springframework.stereotype.Component;
+
+import com.needle.jobs.store.JobStoreSchedulerFactory;
+
+/**
+ * Lets spring.quartz.properties.org.quartz.jobStore.class pick the job store of
+ * the Spring Boot scheduler, e.g. the HybridJobStore
+ */
+@Component
+public class QuartzJobStoreCustomizer implements SchedulerFactoryBeanCustomizer {
+	private final QuartzProperties quartzProperties;
+
+	@Autowired
+	public QuartzJobStoreCustomizer(QuartzProperties quartzProperties) {
+		this.quartzProperties = quartzProperties;
+	}
+
+	@Override
+	public void customize(SchedulerFactoryBean schedulerFactoryBean) {
+		Properties quartz = new Properties();
+		quartz.putAll(quartzProperties.getProperties());
+
+		schedulerFactoryBean.setSchedulerFactoryClass(JobStoreSchedulerFactory.class);
+		schedulerFactoryBean.setQuartzProperties(JobStoreSchedulerFactory.keepJobStoreClass(quartz));
+	}
+}
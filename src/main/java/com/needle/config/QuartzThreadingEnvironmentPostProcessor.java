@@ -0,0 +1,75 @@
+package com.needle.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.config.ConfigDataEnvironmentPostProcessor;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+
+/**
+ * Sizes the Quartz thread pool from the CPU count when
+ * scheduler.threading.threads-per-cpu is set, and acquires as many triggers
+ * per lock round trip as there are threads unless the batch size is set. Runs
+ * once the configuration files are loaded so that a profile can turn it on; a
+ * thread count given on the command line still wins.
+ */
+public class QuartzThreadingEnvironmentPostProcessor implements EnvironmentPostProcessor, Ordered {
+	public static final String PROPERTY_SOURCE_NAME = "quartzThreading";
+
+	private static final String QUARTZ_PREFIX = "spring.quartz.properties.";
+	private static final String THREAD_COUNT = QUARTZ_PREFIX + "org.quartz.threadPool.threadCount";
+	private static final String BATCH_MAX_COUNT = QUARTZ_PREFIX
+			+ "org.quartz.scheduler.batchTriggerAcquisitionMaxCount";
+
+	@Override
+	public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+		double threadsPerCpu = environment.getProperty("scheduler.threading.threads-per-cpu", Double.class, 0d);
+
+		if (threadsPerCpu <= 0) {
+			return;
+		}
+
+		int maxThreads = environment.getProperty("scheduler.threading.max-threads", Integer.class, 64);
+		int threads = threadCount(Runtime.getRuntime().availableProcessors(), threadsPerCpu, maxThreads);
+
+		Map<String, Object> properties = new HashMap<>();
+		properties.put(THREAD_COUNT, String.valueOf(threads));
+
+		if (!environment.containsProperty(BATCH_MAX_COUNT)) {
+			properties.put(BATCH_MAX_COUNT, String.valueOf(threads));
+		}
+
+		MutablePropertySources propertySources = environment.getPropertySources();
+		MapPropertySource propertySource = new MapPropertySource(PROPERTY_SOURCE_NAME, properties);
+
+		if (propertySources.contains(SimpleCommandLinePropertySource.COMMAND_LINE_PROPERTY_SOURCE_NAME)) {
+			propertySources.addAfter(SimpleCommandLinePropertySource.COMMAND_LINE_PROPERTY_SOURCE_NAME,
+					propertySource);
+		} else {
+			propertySources.addFirst(propertySource);
+		}
+	}
+
+	/**
+	 * Thread count for the CPU count, 1 at least
+	 * 
+	 * @param cpus
+	 * @param threadsPerCpu
+	 * @param maxThreads
+	 * @return
+	 */
+	static int threadCount(int cpus, double threadsPerCpu, int maxThreads) {
+		return (int) Math.max(1, Math.min(maxThreads, Math.round(cpus * threadsPerCpu)));
+	}
+
+	@Override
+	public int getOrder() {
+		return ConfigDataEnvironmentPostProcessor.ORDER + 1;
+	}
+}
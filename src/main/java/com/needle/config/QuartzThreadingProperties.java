@@ -0,0 +1,19 @@
+package com.needle.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "scheduler.threading")
+public class QuartzThreadingProperties {
+	/* Quartz worker threads per CPU, the configured thread count is kept when not positive */
+	private double threadsPerCpu = 0;
+	private int maxThreads = 64;
+	/* Fail the startup instead of warning when the connection pool is too small for the threads */
+	private boolean failOnSmallPool = false;
+}
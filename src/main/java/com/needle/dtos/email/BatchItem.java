@@ -0,0 +1,28 @@
+package com.needle.dtos.email;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One element of a batch request along with its position in the batch. When
+ * the element couldn't be read the request is null and the error is set.
+ */
+@Getter
+@AllArgsConstructor
+public class BatchItem<T> {
+	private final int index;
+	private final T request;
+	private final String error;
+
+	public static <T> BatchItem<T> of(int index, T request) {
+		return new BatchItem<>(index, request, null);
+	}
+
+	public static <T> BatchItem<T> rejected(int index, String error) {
+		return new BatchItem<>(index, null, error);
+	}
+
+	public boolean isRejected() {
+		return null != error;
+	}
+}
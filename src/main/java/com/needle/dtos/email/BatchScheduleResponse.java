@@ -0,0 +1,42 @@
+package com.needle.dtos.email;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.experimental.SuperBuilder;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@SuperBuilder
+public class BatchScheduleResponse {
+	private int accepted;
+	private int rejected;
+	/* Only the rejected items are listed, every other index was accepted */
+	@Builder.Default
+	private List<RejectedItem> rejections = new ArrayList<>();
+
+	public void accept(int count) {
+		accepted += count;
+	}
+
+	public void reject(int index, String message) {
+		rejected++;
+		rejections.add(new RejectedItem(index, message));
+	}
+
+	@Getter
+	@Setter
+	@AllArgsConstructor
+	@NoArgsConstructor
+	public static class RejectedItem {
+		private int index;
+		private String message;
+	}
+}
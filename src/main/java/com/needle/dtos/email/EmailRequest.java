@@ -2,10 +2,17 @@ package com.needle.dtos.email;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.Map;
 
+import javax.validation.constraints.AssertTrue;
 import javax.validation.constraints.Email;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -23,15 +30,37 @@ public class EmailRequest {
     @NotEmpty
     private String email;
 
-    @NotEmpty
     private String subject;
 
-    @NotEmpty
     private String body;
 
+    /* Subject and body come from this template when set */
+    private String templateId;
+
+    /* Values of the template placeholders for this recipient */
+    private Map<String, String> variables;
+
     @NotNull
     private LocalDateTime deliverOn;
 
     @NotNull
     private ZoneId timeZone;
+
+    /* Trigger priority from 1 to 10, 5 when not set. High priorities go to the urgent lane */
+    @Min(1)
+    @Max(10)
+    private Integer priority;
+
+    /* Retries with the same key get the first response back, the Idempotency-Key header wins over it */
+    @Size(min = 1, max = 128)
+    private String idempotencyKey;
+
+    @JsonIgnore
+    @AssertTrue(message = "either a template or a subject and body are required")
+    public boolean isContentSpecified() {
+        if (null != templateId) {
+            return !templateId.isEmpty();
+        }
+        return null != subject && !subject.isEmpty() && null != body && !body.isEmpty();
+    }
 }
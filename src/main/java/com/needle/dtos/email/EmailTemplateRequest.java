@@ -0,0 +1,20 @@
+package com.needle.dtos.email;
+
+import javax.validation.constraints.NotEmpty;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmailTemplateRequest {
+	@NotEmpty
+	private String subject;
+
+	@NotEmpty
+	private String body;
+}
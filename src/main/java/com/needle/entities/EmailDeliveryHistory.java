@@ -0,0 +1,47 @@
+package com.needle.entities;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Compact summary of an email job, appended when the executed job is purged
+ * from the job store. Rows are only ever inserted.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "email_delivery_history")
+public class EmailDeliveryHistory {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id")
+	private Long id;
+
+	@Column(name = "job_name", nullable = false, length = 200)
+	private String jobName;
+
+	@Column(name = "job_group", nullable = false, length = 200)
+	private String jobGroup;
+
+	@Column(name = "email")
+	private String email;
+
+	@Column(name = "template_id", length = 128)
+	private String templateId;
+
+	/* Delivery time in UTC, unknown for the jobs scheduled without it */
+	@Column(name = "deliver_at", columnDefinition = "TIMESTAMP")
+	private LocalDateTime deliverAt;
+
+	@Column(name = "archived_at", nullable = false, insertable = false, updatable = false, columnDefinition = "timestamp without time zone NOT NULL DEFAULT timezone('utc'::text, now())")
+	private LocalDateTime archivedAt;
+}
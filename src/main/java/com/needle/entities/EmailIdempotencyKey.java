@@ -0,0 +1,43 @@
+package com.needle.entities;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Idempotency key of a schedule request and the response it got. The key is
+ * claimed before scheduling, the response is filled in once the email is
+ * scheduled.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "email_idempotency_keys")
+public class EmailIdempotencyKey {
+	/* Supplied by the client, unique through the primary key */
+	@Id
+	@Column(name = "id", length = 128)
+	private String id;
+
+	@Column(name = "job_id", length = 200)
+	private String jobId;
+
+	@Column(name = "job_group", length = 200)
+	private String jobGroup;
+
+	@Column(name = "message")
+	private String message;
+
+	@Column(name = "created_at", nullable = false, insertable = false, updatable = false, columnDefinition = "timestamp without time zone NOT NULL DEFAULT timezone('utc'::text, now())")
+	private LocalDateTime createdAt;
+
+	/* Not set while the request is being scheduled */
+	@Column(name = "completed_at", columnDefinition = "TIMESTAMP")
+	private LocalDateTime completedAt;
+}
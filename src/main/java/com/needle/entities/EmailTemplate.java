@@ -0,0 +1,39 @@
+package com.needle.entities;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Subject and body with {{name}} placeholders, filled in with the variables of
+ * each email when it's sent. Holds the latest version, the earlier ones are
+ * kept in {@link EmailTemplateVersion}.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "email_templates")
+public class EmailTemplate {
+	@Id
+	@Column(name = "id", length = 128)
+	private String id;
+
+	@Column(name = "subject", columnDefinition = "TEXT")
+	private String subject;
+
+	@Column(name = "body", columnDefinition = "TEXT")
+	private String body;
+
+	@Column(name = "updated_at", nullable = false)
+	private LocalDateTime updatedAt;
+
+	/* Null for the templates saved before they were versioned */
+	@Column(name = "version")
+	private Long version;
+}
@@ -0,0 +1,56 @@
+package com.needle.entities;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Every saved version of a template, never updated. Email jobs keep the version
+ * they were scheduled with and are rendered with it.
+ */
+@Getter
+@Setter
+@Entity
+@IdClass(EmailTemplateVersion.Key.class)
+@Table(name = "email_template_versions")
+public class EmailTemplateVersion {
+	@Id
+	@Column(name = "template_id", length = 128)
+	private String templateId;
+
+	@Id
+	@Column(name = "version")
+	private Long version;
+
+	@Column(name = "subject", columnDefinition = "TEXT")
+	private String subject;
+
+	@Column(name = "body", columnDefinition = "TEXT")
+	private String body;
+
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+
+	@Getter
+	@Setter
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@EqualsAndHashCode
+	public static class Key implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private String templateId;
+		private Long version;
+	}
+}
@@ -0,0 +1,56 @@
+package com.needle.entities;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Entity
+/* The pending emails are indexed by a partial index, see V4__scheduled_emails_pending.sql */
+@Table(name = "scheduled_emails")
+@EntityListeners(AuditingEntityListener.class)
+public class ScheduledEmail {
+	@Id
+	@GeneratedValue(generator = TimeOrderedUuidGenerator.NAME)
+	@GenericGenerator(name = TimeOrderedUuidGenerator.NAME, strategy = TimeOrderedUuidGenerator.STRATEGY)
+	@Column(name = "id")
+	protected UUID id;
+
+	@Column(name = "email", nullable = false)
+	private String email;
+
+	@Column(name = "subject")
+	private String subject;
+
+	@Column(name = "body", columnDefinition = "TEXT")
+	private String body;
+
+	/* Delivery time in UTC */
+	@Column(name = "deliver_at", columnDefinition = "TIMESTAMP")
+	private LocalDateTime deliverAt;
+
+	/* Epoch minute of the bucket the email is dispatched with */
+	@Column(name = "delivery_minute", nullable = false)
+	private Long deliveryMinute;
+
+	@Column(name = "sent_at", columnDefinition = "TIMESTAMP")
+	private LocalDateTime sentAt;
+
+	@CreatedDate
+	@Column(name = "created_at", nullable = false, insertable = false, updatable = false, columnDefinition = "timestamp without time zone NOT NULL DEFAULT timezone('utc'::text, now())")
+	private LocalDateTime createdAt;
+}
@@ -0,0 +1,40 @@
+package com.needle.entities;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Subject and body of scheduled emails, stored once per distinct content and
+ * referenced by the jobs through their hash. A content is deleted once the jobs
+ * counted in its references are all purged.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "scheduled_email_content")
+public class ScheduledEmailContent {
+	/* SHA-256 of the subject and body, hex encoded */
+	@Id
+	@Column(name = "id", length = 64)
+	private String id;
+
+	@Column(name = "subject")
+	private String subject;
+
+	@Column(name = "body", columnDefinition = "TEXT")
+	private String body;
+
+	/* Jobs using the content, null for the contents stored before they were counted, never deleted */
+	@Column(name = "ref_count")
+	private Integer refCount;
+
+	@Column(name = "created_at", nullable = false, insertable = false, updatable = false, columnDefinition = "timestamp without time zone NOT NULL DEFAULT timezone('utc'::text, now())")
+	private LocalDateTime createdAt;
+}
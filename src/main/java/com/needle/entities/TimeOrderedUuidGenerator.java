@@ -0,0 +1,22 @@
+package com.needle.entities;
+
+import java.io.Serializable;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import com.needle.utils.TimeOrderedUuid;
+
+/**
+ * Time ordered ids for the UUID primary keys, declared on the entities with
+ * {@link org.hibernate.annotations.GenericGenerator}
+ */
+public class TimeOrderedUuidGenerator implements IdentifierGenerator {
+	public static final String NAME = "time-ordered-uuid";
+	public static final String STRATEGY = "com.needle.entities.TimeOrderedUuidGenerator";
+
+	@Override
+	public Serializable generate(SharedSessionContractImplementor session, Object object) {
+		return TimeOrderedUuid.next();
+	}
+}
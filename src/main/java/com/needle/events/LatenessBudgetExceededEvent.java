@@ -0,0 +1,17 @@
+package com.needle.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when the p99 lateness of a job group went over its budget during
+ * the last check window
+ */
+@Getter
+@AllArgsConstructor
+public class LatenessBudgetExceededEvent {
+	private final String group;
+	private final long p99Millis;
+	private final long budgetMillis;
+	private final long count;
+}
@@ -0,0 +1,16 @@
+package com.needle.events;
+
+import java.util.List;
+import java.util.UUID;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published after a batch of messages was made visible by the sweeper
+ */
+@Getter
+@AllArgsConstructor
+public class MessagesVisibleEvent {
+	private final List<UUID> messageIds;
+}
@@ -0,0 +1,38 @@
+package com.needle.jobs;
+
+import java.time.Instant;
+
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+import org.springframework.stereotype.Component;
+
+import com.needle.services.EmailBucketDispatchService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Recurring job that sends every email bucket that is due. A single trigger
+ * serves all the buckets so the number of Quartz rows doesn't grow with the
+ * number of emails.
+ */
+@Slf4j
+@Component
+@DisallowConcurrentExecution
+public class EmailBucketDispatchJob extends QuartzJobBean {
+	@Autowired
+	private EmailBucketDispatchService emailBucketDispatchService;
+
+	@Override
+	protected void executeInternal(JobExecutionContext context) throws JobExecutionException {
+		log.info("Executing Email Bucket Job with key {}", context.getJobDetail().getKey());
+
+		// Buckets are rounded up to the minute, so everything up to the current
+		// minute is due
+		long currentMinute = Instant.now().getEpochSecond() / 60;
+
+		emailBucketDispatchService.dispatch(currentMinute);
+	}
+}
@@ -0,0 +1,47 @@
+package com.needle.jobs;
+
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobDataMap;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.PersistJobDataAfterExecution;
+import org.quartz.SchedulerException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+import org.springframework.stereotype.Component;
+
+import com.needle.services.EmailJobRetentionService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Recurring job that purges the executed email jobs. The scan position is kept
+ * in the job data, per shard, so that every run continues where the previous
+ * one stopped whichever node runs it.
+ */
+@Slf4j
+@Component
+@DisallowConcurrentExecution
+@PersistJobDataAfterExecution
+public class EmailJobRetentionJob extends QuartzJobBean {
+	public static final String CURSOR_KEY = "cursor";
+
+	@Autowired
+	private EmailJobRetentionService emailJobRetentionService;
+
+	@Override
+	protected void executeInternal(JobExecutionContext context) throws JobExecutionException {
+		log.debug("Executing Email Job Retention Job with key {}", context.getJobDetail().getKey());
+
+		JobDataMap jobDataMap = context.getJobDetail().getJobDataMap();
+
+		try {
+			for (String schedulerName : emailJobRetentionService.getSchedulerNames()) {
+				String cursorKey = CURSOR_KEY + "." + schedulerName;
+				jobDataMap.put(cursorKey, emailJobRetentionService.purge(schedulerName, jobDataMap.getString(cursorKey)));
+			}
+		} catch (SchedulerException e) {
+			throw new JobExecutionException(e);
+		}
+	}
+}
@@ -1,18 +1,50 @@
 package com.needle.jobs;
 
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
 import org.quartz.DisallowConcurrentExecution;
 import org.quartz.JobDataMap;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.quartz.QuartzJobBean;
 import org.springframework.stereotype.Component;
 
+import com.needle.jobs.payload.EmailPayload;
+import com.needle.jobs.payload.EmailPayloads;
+import com.needle.mail.DeliveryResult;
+import com.needle.mail.MailRetryProperties;
+import com.needle.mail.SendPipeline;
+import com.needle.services.EmailSenderService;
+import com.needle.utils.CommonConstants;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Component
 @DisallowConcurrentExecution
 public class EmaillSchedulerJob extends QuartzJobBean {
+	/* Retries of the email so far, kept in the data of the retry trigger */
+	public static final String RETRY_ATTEMPT_KEY = "retryAttempt";
+
+	@Autowired
+	private EmailSenderService emailSenderService;
+	@Autowired
+	private SendPipeline sendPipeline;
+	@Autowired
+	private EmailPayloads emailPayloads;
+	@Autowired
+	private MailRetryProperties mailRetryProperties;
+	@Autowired
+	private MeterRegistry meterRegistry;
 
 	@Override
 	protected void executeInternal(JobExecutionContext context) throws JobExecutionException {
@@ -20,23 +52,93 @@ public class EmaillSchedulerJob extends QuartzJobBean {
 
 		// Get the job metadata information
 		JobDataMap jobDataMap = context.getMergedJobDataMap();
+		EmailPayload payload = emailPayloads.read(jobDataMap);
 		
-		String subject = jobDataMap.getString("subject");
-        String body = jobDataMap.getString("body");
-        String recipientEmail = jobDataMap.getString("email");
+		String subject = payload.getSubject();
+        String body = payload.getBody();
+        String recipientEmail = payload.getEmail();
         
-        sendMail("sandeep@mail.com", recipientEmail, subject, body);
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        if (sendPipeline.isEnabled()) {
+			// The Quartz thread is released as soon as the send is queued, the
+			// listeners get the pending send as the result
+			context.setResult(sendPipeline.submit(() -> emailSenderService.send(CommonConstants.MAIL.SENDER, recipientEmail, subject, body))
+					.whenComplete((result, e) -> {
+						boolean success = null == e && result.isSuccess();
+
+						// Measured from the firing, queueing time included
+						sample.stop(sendTimer(success));
+
+						if (!success) {
+							log.error("Unable to send email to {}: {}", recipientEmail, null != e ? e.getMessage() : result);
+							retry(context, recipientEmail, null == e && result.isPermanentFailure());
+						}
+					}));
+			return;
+		}
+
+        DeliveryResult result = emailSenderService.send(CommonConstants.MAIL.SENDER, recipientEmail, subject, body);
+
+		sample.stop(sendTimer(result.isSuccess()));
+
+		// Made available to the job listeners
+		context.setResult(result);
+
+		if (!result.isSuccess()) {
+			retry(context, recipientEmail, result.isPermanentFailure());
+			throw new JobExecutionException(String.format("Unable to send email: %s", result));
+		}
 	}
 
 	/**
-	 * Handle email sending logic
+	 * Fire the job again later through a trigger of its own, the email jobs are
+	 * durable so the job outlives its first trigger. The delay doubles on every
+	 * attempt and a rejected recipient isn't retried.
 	 * 
-	 * @param from
-	 * @param to
-	 * @param subject
-	 * @param body
+	 * @param context
+	 * @param recipientEmail
+	 * @param permanentFailure
 	 */
-	private void sendMail(String from, String to, String subject, String body) {
-		log.info("Sending email to: {}, from: {}, subject: {}, body: {}", from, to, subject, body);
+	private void retry(JobExecutionContext context, String recipientEmail, boolean permanentFailure) {
+		JobDataMap triggerDataMap = context.getTrigger().getJobDataMap();
+		int attempt = triggerDataMap.containsKey(RETRY_ATTEMPT_KEY)
+				? Integer.parseInt(String.valueOf(triggerDataMap.get(RETRY_ATTEMPT_KEY)))
+				: 0;
+
+		if (permanentFailure || attempt >= mailRetryProperties.getMaxAttempts()) {
+			log.error("Giving up on the email to {} after {} retries", recipientEmail, attempt);
+			meterRegistry.counter(CommonConstants.METRICS.EMAIL_SEND_ABANDONED).increment();
+			return;
+		}
+
+		JobKey jobKey = context.getJobDetail().getKey();
+		long delayMillis = TimeUnit.SECONDS.toMillis(mailRetryProperties.getDelaySeconds()) << attempt;
+
+		// @formatter:off
+		// Same priority as the email, stored in the scheduler of its lane
+		Trigger trigger = TriggerBuilder.newTrigger()
+				.forJob(jobKey)
+				.withIdentity(jobKey.getName() + "-retry-" + (attempt + 1), context.getTrigger().getKey().getGroup())
+				.withDescription("Send Email Retry Trigger")
+				.withPriority(context.getTrigger().getPriority())
+				.usingJobData(RETRY_ATTEMPT_KEY, String.valueOf(attempt + 1))
+				.startAt(new Date(System.currentTimeMillis() + delayMillis))
+				.withSchedule(SimpleScheduleBuilder.simpleSchedule().withMisfireHandlingInstructionFireNow())
+				.build();
+		// @formatter:on
+
+		try {
+			context.getScheduler().scheduleJob(trigger);
+			meterRegistry.counter(CommonConstants.METRICS.EMAIL_SEND_RETRIED).increment();
+			log.info("Email to {} retried in {} ms, attempt {}", recipientEmail, delayMillis, attempt + 1);
+		} catch (SchedulerException e) {
+			log.error("Unable to retry the email to {}", recipientEmail, e);
+		}
+	}
+
+	private Timer sendTimer(boolean success) {
+		return meterRegistry.timer(CommonConstants.METRICS.EMAIL_SEND, CommonConstants.METRICS.TAG_OUTCOME,
+				success ? CommonConstants.METRICS.SUCCESS : CommonConstants.METRICS.FAILURE);
 	}
 }
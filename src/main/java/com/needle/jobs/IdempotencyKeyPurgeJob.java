@@ -0,0 +1,32 @@
+package com.needle.jobs;
+
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+import org.springframework.stereotype.Component;
+
+import com.needle.services.IdempotencyService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Recurring job that forgets the expired idempotency keys, registered whether
+ * the job retention is enabled or not
+ */
+@Slf4j
+@Component
+@DisallowConcurrentExecution
+public class IdempotencyKeyPurgeJob extends QuartzJobBean {
+
+	@Autowired
+	private IdempotencyService idempotencyService;
+
+	@Override
+	protected void executeInternal(JobExecutionContext context) throws JobExecutionException {
+		log.debug("Executing Idempotency Key Purge Job with key {}", context.getJobDetail().getKey());
+
+		idempotencyService.purgeExpired();
+	}
+}
@@ -0,0 +1,39 @@
+package com.needle.jobs;
+
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+import org.springframework.stereotype.Component;
+
+import com.needle.services.MessagePartitionService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Recurring job that keeps the monthly partitions of the messages table ahead
+ * of time and detaches the old ones, instead of deleting the old messages row
+ * by row
+ */
+@Slf4j
+@Component
+@DisallowConcurrentExecution
+public class MessagePartitionJob extends QuartzJobBean {
+	@Autowired
+	private MessagePartitionService messagePartitionService;
+
+	@Override
+	protected void executeInternal(JobExecutionContext context) throws JobExecutionException {
+		log.debug("Executing Message Partition Job with key {}", context.getJobDetail().getKey());
+
+		if (!messagePartitionService.isEnabled()) {
+			// Fired by a node still running with the partitions enabled, nothing is detached or dropped
+			log.info("Message partitions disabled, job {} skipped", context.getJobDetail().getKey());
+			return;
+		}
+
+		messagePartitionService.createPartitions();
+		messagePartitionService.detachPartitions();
+	}
+}
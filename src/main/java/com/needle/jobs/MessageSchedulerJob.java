@@ -13,7 +13,10 @@ import org.springframework.stereotype.Component;
 
 import com.needle.entities.Message;
 import com.needle.repositories.MessageRepository;
+import com.needle.utils.CommonConstants;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -22,6 +25,8 @@ import lombok.extern.slf4j.Slf4j;
 public class MessageSchedulerJob extends QuartzJobBean {
 	@Autowired
     private MessageRepository messageRepository;
+	@Autowired
+	private MeterRegistry meterRegistry;
 	
 	@Override
 	protected void executeInternal(JobExecutionContext context) throws JobExecutionException {
@@ -34,6 +39,7 @@ public class MessageSchedulerJob extends QuartzJobBean {
 		UUID messageId = UUID.fromString(String.valueOf(jobDataMap.get("messageId")));
 		
 		if (null != messageId) {
+			Timer.Sample sample = Timer.start(meterRegistry);
 			Optional<Message> messageOpt = messageRepository.findById(messageId);
 			
 			if (messageOpt.isPresent()) {
@@ -41,6 +47,10 @@ public class MessageSchedulerJob extends QuartzJobBean {
 				message.setVisible(true);
 				messageRepository.save(message);
 			}
+
+			// Missing when the message was deleted before it became visible
+			sample.stop(meterRegistry.timer(CommonConstants.METRICS.MESSAGE_VISIBILITY, CommonConstants.METRICS.TAG_OUTCOME,
+					messageOpt.isPresent() ? CommonConstants.METRICS.SUCCESS : "missing"));
 		}
 	}
 }
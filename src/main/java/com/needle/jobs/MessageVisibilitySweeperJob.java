@@ -0,0 +1,31 @@
+package com.needle.jobs;
+
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+import org.springframework.stereotype.Component;
+
+import com.needle.services.MessageVisibilitySweeperService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Recurring job that makes all the due messages visible at once instead of one
+ * job per message
+ */
+@Slf4j
+@Component
+@DisallowConcurrentExecution
+public class MessageVisibilitySweeperJob extends QuartzJobBean {
+	@Autowired
+	private MessageVisibilitySweeperService messageVisibilitySweeperService;
+
+	@Override
+	protected void executeInternal(JobExecutionContext context) throws JobExecutionException {
+		log.debug("Executing Message Sweeper Job with key {}", context.getJobDetail().getKey());
+
+		messageVisibilitySweeperService.sweep();
+	}
+}
@@ -3,13 +3,20 @@ package com.needle.jobs.listeners;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.quartz.JobListener;
+import org.springframework.stereotype.Component;
 import org.springframework.util.ObjectUtils;
 
 import com.needle.utils.CommonConstants;
 
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Single listener for the email job groups, registered once at startup on every
+ * node: the email jobs in job mode and the bucket dispatch job in bucketed
+ * mode.
+ */
 @Slf4j
+@Component
 public class EmailJobListener implements JobListener {
 	public static final String LISTENER_NAME = "EMAIL_JOB_LISTENER";
 
@@ -0,0 +1,91 @@
+package com.needle.jobs.listeners;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.quartz.JobDataMap;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.needle.mail.DeliveryResult;
+import com.needle.metrics.LatencyTracker;
+import com.needle.sharding.SchedulerShards;
+
+/**
+ * Global listener feeding the fire lag of every job, and the lateness of the
+ * jobs that carry their requested delivery time, to the latency tracker. Jobs
+ * of the urgent lane are tracked apart from the rest of their group.
+ */
+@Component
+public class JobLatencyListener implements JobListener {
+	public static final String LISTENER_NAME = "JOB_LATENCY_LISTENER";
+	/* Requested delivery time in epoch millis */
+	public static final String DELIVER_AT_KEY = "deliverAt";
+
+	/* Appended to the group of the jobs fired by the urgent lane */
+	public static final String URGENT_GROUP_SUFFIX = "-" + SchedulerShards.URGENT_LANE;
+
+	private final LatencyTracker latencyTracker;
+	private final SchedulerShards schedulerShards;
+
+	@Autowired
+	public JobLatencyListener(LatencyTracker latencyTracker, SchedulerShards schedulerShards) {
+		this.latencyTracker = latencyTracker;
+		this.schedulerShards = schedulerShards;
+	}
+
+	@Override
+	public String getName() {
+		return LISTENER_NAME;
+	}
+
+	@Override
+	public void jobToBeExecuted(JobExecutionContext context) {
+		if (null == context.getScheduledFireTime()) {
+			return;
+		}
+
+		latencyTracker.recordFireLag(group(context),
+				context.getFireTime().getTime() - context.getScheduledFireTime().getTime());
+	}
+
+	@Override
+	public void jobExecutionVetoed(JobExecutionContext context) {
+	}
+
+	@Override
+	public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+		JobDataMap jobDataMap = context.getMergedJobDataMap();
+
+		if (null != jobException || !jobDataMap.containsKey(DELIVER_AT_KEY)) {
+			return;
+		}
+
+		String group = group(context);
+		// Stored as a string so that the map stays string only
+		long deliverAt = Long.parseLong(String.valueOf(jobDataMap.get(DELIVER_AT_KEY)));
+		Object result = context.getResult();
+
+		if (result instanceof CompletableFuture) {
+			// Sent later by the send pipeline
+			((CompletableFuture<?>) result).thenAccept(sent -> recordLateness(group, deliverAt, sent));
+			return;
+		}
+
+		recordLateness(group, deliverAt, result);
+	}
+
+	private void recordLateness(String group, long deliverAt, Object result) {
+		if (result instanceof DeliveryResult && ((DeliveryResult) result).isSuccess()) {
+			latencyTracker.recordLateness(group, System.currentTimeMillis() - deliverAt);
+		}
+	}
+
+	private String group(JobExecutionContext context) {
+		String group = context.getJobDetail().getKey().getGroup();
+
+		return schedulerShards.isUrgentLane(context.getScheduler()) ? group + URGENT_GROUP_SUFFIX : group;
+	}
+}
@@ -0,0 +1,60 @@
+package com.needle.jobs.listeners;
+
+import java.util.concurrent.TimeUnit;
+
+import org.quartz.JobExecutionContext;
+import org.quartz.JobExecutionException;
+import org.quartz.JobListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.needle.utils.CommonConstants;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Global listener recording how long every job runs. How late the jobs fire is
+ * recorded by {@link JobLatencyListener}.
+ */
+@Component
+public class JobMetricsListener implements JobListener {
+	public static final String LISTENER_NAME = "JOB_METRICS_LISTENER";
+
+	private final MeterRegistry meterRegistry;
+
+	@Autowired
+	public JobMetricsListener(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public String getName() {
+		return LISTENER_NAME;
+	}
+
+	@Override
+	public void jobToBeExecuted(JobExecutionContext context) {
+	}
+
+	@Override
+	public void jobExecutionVetoed(JobExecutionContext context) {
+		meterRegistry.counter(CommonConstants.METRICS.JOB_VETOED, CommonConstants.METRICS.TAG_GROUP, group(context))
+				.increment();
+	}
+
+	@Override
+	public void jobWasExecuted(JobExecutionContext context, JobExecutionException jobException) {
+		String outcome = null == jobException ? CommonConstants.METRICS.SUCCESS : CommonConstants.METRICS.FAILURE;
+
+		// @formatter:off
+		meterRegistry.timer(CommonConstants.METRICS.JOB_EXECUTION,
+				CommonConstants.METRICS.TAG_GROUP, group(context),
+				CommonConstants.METRICS.TAG_OUTCOME, outcome)
+				.record(context.getJobRunTime(), TimeUnit.MILLISECONDS);
+		// @formatter:on
+	}
+
+	private static String group(JobExecutionContext context) {
+		return context.getJobDetail().getKey().getGroup();
+	}
+}
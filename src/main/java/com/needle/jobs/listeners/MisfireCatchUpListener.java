@@ -0,0 +1,162 @@
+package com.needle.jobs.listeners;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.quartz.JobExecutionContext;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.TriggerListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.needle.utils.CommonConstants;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Spreads the once-only triggers that fire late, e.g. all at once after a
+ * downtime, instead of firing them together. Late triggers get a slot each at
+ * the catch-up rate from the first one on, however long the backlog; the ones
+ * whose slot is still ahead are vetoed and rescheduled to it with the lowest
+ * priority, so that the triggers due on time go first.
+ * <p>
+ * The slots are kept in memory, each node spreads the late triggers it
+ * acquires on its own: the rate is per node and the cluster catches up at up
+ * to the rate times the number of nodes firing the late triggers. The rate has
+ * to be set for what the mail relay takes divided by that number.
+ * <p>
+ * The catch-up backlog of the cluster is the deferred count minus the fired
+ * count, summed over the nodes.
+ */
+@Slf4j
+@Component
+public class MisfireCatchUpListener implements TriggerListener {
+	public static final String LISTENER_NAME = "MISFIRE_CATCH_UP_LISTENER";
+	/* Marks the triggers rescheduled by the catch-up */
+	public static final String CATCH_UP_KEY = "catchUp";
+
+	private static final int CATCH_UP_PRIORITY = Trigger.DEFAULT_PRIORITY - 4;
+
+	private final MisfireCatchUpProperties properties;
+	private final MeterRegistry meterRegistry;
+
+	/* Next free slot of the current catch-up on this node, only moves forward */
+	private double nextFreeSlot = 0;
+	private long lastLateAt = 0;
+	/* The backlog went past the window during the current catch-up */
+	private boolean overflowLogged = false;
+
+	@Autowired
+	public MisfireCatchUpListener(MisfireCatchUpProperties properties, MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public String getName() {
+		return LISTENER_NAME;
+	}
+
+	@Override
+	public void triggerFired(Trigger trigger, JobExecutionContext context) {
+	}
+
+	@Override
+	public boolean vetoJobExecution(Trigger trigger, JobExecutionContext context) {
+		if (!properties.isEnabled() || !isOnce(trigger)) {
+			return false;
+		}
+
+		String group = trigger.getJobKey().getGroup();
+
+		if (trigger.getJobDataMap().containsKey(CATCH_UP_KEY)) {
+			// Its slot came
+			count(CommonConstants.METRICS.CATCH_UP_FIRED, group);
+			return false;
+		}
+
+		long now = context.getFireTime().getTime();
+
+		if (now - trigger.getStartTime().getTime() < TimeUnit.SECONDS.toMillis(properties.getLateThresholdSeconds())) {
+			return false;
+		}
+
+		long slot = nextSlot(now);
+
+		if (slot <= now) {
+			count(CommonConstants.METRICS.CATCH_UP_IMMEDIATE, group);
+			return false;
+		}
+
+		// @formatter:off
+		Trigger deferred = trigger.getTriggerBuilder()
+				.startAt(new Date(slot))
+				.withPriority(CATCH_UP_PRIORITY)
+				.usingJobData(CATCH_UP_KEY, "true")
+				.build();
+		// @formatter:on
+
+		try {
+			// Still stored once vetoed since it has a next fire time
+			context.getScheduler().rescheduleJob(trigger.getKey(), deferred);
+		} catch (SchedulerException e) {
+			log.error("Unable to defer the late trigger {}, firing it now", trigger.getKey(), e);
+			return false;
+		}
+
+		count(CommonConstants.METRICS.CATCH_UP_DEFERRED, group);
+
+		return true;
+	}
+
+	@Override
+	public void triggerMisfired(Trigger trigger) {
+	}
+
+	@Override
+	public void triggerComplete(Trigger trigger, JobExecutionContext context,
+			CompletedExecutionInstruction triggerInstructionCode) {
+	}
+
+	/**
+	 * Slot of the next late trigger. The slots are 1 / rate apart from the next
+	 * free one, or from now once the catch-up fell behind, so the rate holds
+	 * when there are more late triggers than the window takes at that rate.
+	 * 
+	 * @param now
+	 * @return
+	 */
+	private synchronized long nextSlot(long now) {
+		long windowMillis = TimeUnit.SECONDS.toMillis(properties.getWindowSeconds());
+
+		if (now - lastLateAt > windowMillis) {
+			overflowLogged = false;
+			log.warn("Catching up late triggers at {} per second on this node", properties.getRatePerSecond());
+		}
+
+		lastLateAt = now;
+
+		double slot = Math.max(nextFreeSlot, now);
+		nextFreeSlot = slot + 1000 / properties.getRatePerSecond();
+
+		if (!overflowLogged && slot - now > windowMillis) {
+			overflowLogged = true;
+			log.warn("Late triggers deferred past the {} seconds catch-up window, raise the rate to catch up sooner",
+					properties.getWindowSeconds());
+		}
+
+		return (long) slot;
+	}
+
+	private void count(String name, String group) {
+		meterRegistry.counter(name, CommonConstants.METRICS.TAG_GROUP, group).increment();
+	}
+
+	private static boolean isOnce(Trigger trigger) {
+		return trigger instanceof SimpleTrigger && ((SimpleTrigger) trigger).getRepeatCount() == 0;
+	}
+}
@@ -0,0 +1,21 @@
+package com.needle.jobs.listeners;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "scheduler.catch-up")
+public class MisfireCatchUpProperties {
+	private boolean enabled = false;
+	/* A once-only trigger firing this late after its start time is catching up */
+	private long lateThresholdSeconds = 60;
+	/* Late triggers fired per second at most by each node while catching up, not by the cluster */
+	private double ratePerSecond = 5;
+	/* A catch-up ends once no trigger came late for this long, a backlog spread further is logged */
+	private long windowSeconds = 1800;
+}
@@ -0,0 +1,55 @@
+package com.needle.jobs.listeners;
+
+import org.quartz.JobExecutionContext;
+import org.quartz.Trigger;
+import org.quartz.Trigger.CompletedExecutionInstruction;
+import org.quartz.TriggerListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.needle.utils.CommonConstants;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Global listener counting the fired and misfired triggers of every job group
+ */
+@Component
+public class TriggerMetricsListener implements TriggerListener {
+	public static final String LISTENER_NAME = "TRIGGER_METRICS_LISTENER";
+
+	private final MeterRegistry meterRegistry;
+
+	@Autowired
+	public TriggerMetricsListener(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	@Override
+	public String getName() {
+		return LISTENER_NAME;
+	}
+
+	@Override
+	public void triggerFired(Trigger trigger, JobExecutionContext context) {
+		meterRegistry.counter(CommonConstants.METRICS.TRIGGER_FIRED, CommonConstants.METRICS.TAG_GROUP,
+				trigger.getJobKey().getGroup()).increment();
+	}
+
+	@Override
+	public boolean vetoJobExecution(Trigger trigger, JobExecutionContext context) {
+		return false;
+	}
+
+	@Override
+	public void triggerMisfired(Trigger trigger) {
+		meterRegistry.counter(CommonConstants.METRICS.TRIGGER_MISFIRED, CommonConstants.METRICS.TAG_GROUP,
+				trigger.getJobKey().getGroup()).increment();
+	}
+
+	@Override
+	public void triggerComplete(Trigger trigger, JobExecutionContext context,
+			CompletedExecutionInstruction triggerInstructionCode) {
+		// Execution time is recorded by the job listener
+	}
+}
@@ -0,0 +1,177 @@
+package com.needle.jobs.payload;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.quartz.JobDataMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * The whole payload as a single byte array entry. Layout:
+ *
+ * <pre>
+ * version  1 byte
+ * flags    1 byte, bit 0 set when the fields are deflated
+ * fields   email, subject and body, each one an int length (-1 for null)
+ *          followed by its UTF-8 bytes
+ * </pre>
+ *
+ * The fields are deflated once they are larger than the compression threshold.
+ * The lengths are checked against the bytes left so that a corrupted payload
+ * can't make the decoder allocate more than the payload holds.
+ */
+@Component
+public class BinaryEmailPayloadCodec implements EmailPayloadCodec {
+	public static final String NAME = "binary";
+
+	private static final String PAYLOAD_KEY = "payload";
+	private static final byte VERSION = 1;
+	private static final byte DEFLATED = 1;
+	/* Inflated fields past this size are rejected, far above any single email */
+	private static final int MAX_INFLATED_SIZE = 64 * 1024 * 1024;
+
+	private final int compressionThreshold;
+
+	public BinaryEmailPayloadCodec(
+			@Value("${scheduler.email.payload-compression-threshold:1024}") int compressionThreshold) {
+		this.compressionThreshold = compressionThreshold;
+	}
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public void write(EmailPayload payload, JobDataMap jobDataMap) {
+		jobDataMap.put(PAYLOAD_KEY, encode(payload));
+	}
+
+	@Override
+	public boolean canRead(JobDataMap jobDataMap) {
+		return jobDataMap.get(PAYLOAD_KEY) instanceof byte[];
+	}
+
+	@Override
+	public EmailPayload read(JobDataMap jobDataMap) {
+		return decode((byte[]) jobDataMap.get(PAYLOAD_KEY));
+	}
+
+	public byte[] encode(EmailPayload payload) {
+		try {
+			byte[] fields = writeFields(payload);
+			boolean deflate = fields.length > compressionThreshold;
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(fields.length / (deflate ? 2 : 1) + 2);
+			bytes.write(VERSION);
+			bytes.write(deflate ? DEFLATED : 0);
+
+			if (!deflate) {
+				bytes.write(fields);
+				return bytes.toByteArray();
+			}
+
+			Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+			try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+				out.write(fields);
+			} finally {
+				deflater.end();
+			}
+
+			return bytes.toByteArray();
+		} catch (IOException e) {
+			// Only written to memory
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public EmailPayload decode(byte[] bytes) {
+		if (bytes.length < 2 || bytes[0] != VERSION) {
+			throw new IllegalArgumentException("Unsupported email payload version: " + (bytes.length > 0 ? bytes[0] : -1));
+		}
+
+		try {
+			ByteBuffer fields = (bytes[1] & DEFLATED) != 0 ? ByteBuffer.wrap(inflate(bytes))
+					: ByteBuffer.wrap(bytes, 2, bytes.length - 2);
+
+			return new EmailPayload(readString(fields), readString(fields), readString(fields));
+		} catch (IOException | BufferUnderflowException e) {
+			throw new IllegalArgumentException("Corrupted email payload", e);
+		}
+	}
+
+	private static byte[] inflate(byte[] bytes) throws IOException {
+		ByteArrayOutputStream fields = new ByteArrayOutputStream(bytes.length * 4);
+		byte[] chunk = new byte[8192];
+
+		try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(bytes, 2, bytes.length - 2))) {
+			int read;
+
+			while ((read = in.read(chunk)) != -1) {
+				if (fields.size() + read > MAX_INFLATED_SIZE) {
+					throw new IOException("Email payload inflates past " + MAX_INFLATED_SIZE + " bytes");
+				}
+				fields.write(chunk, 0, read);
+			}
+		}
+
+		return fields.toByteArray();
+	}
+
+	private static byte[] writeFields(EmailPayload payload) throws IOException {
+		int size = length(payload.getEmail()) + length(payload.getSubject()) + length(payload.getBody());
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(size * 3 + 12);
+
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			writeString(out, payload.getEmail());
+			writeString(out, payload.getSubject());
+			writeString(out, payload.getBody());
+		}
+
+		return bytes.toByteArray();
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (null == value) {
+			out.writeInt(-1);
+			return;
+		}
+
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer in) throws IOException {
+		int length = in.getInt();
+
+		if (length == -1) {
+			return null;
+		}
+
+		if (length < 0 || length > in.remaining()) {
+			throw new IOException("Field of " + length + " bytes with " + in.remaining() + " bytes left");
+		}
+
+		String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+		in.position(in.position() + length);
+
+		return value;
+	}
+
+	private static int length(String value) {
+		return null == value ? 0 : value.length();
+	}
+}
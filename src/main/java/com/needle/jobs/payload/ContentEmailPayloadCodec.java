@@ -0,0 +1,46 @@
+package com.needle.jobs.payload;
+
+import org.quartz.JobDataMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.needle.entities.ScheduledEmailContent;
+import com.needle.services.EmailContentService;
+
+/**
+ * Only the recipient and the id of the content in the job data, the subject and
+ * body are stored once in scheduled_email_content for all the emails sharing
+ * them and fetched when the job fires
+ */
+@Component
+public class ContentEmailPayloadCodec implements EmailPayloadCodec {
+	public static final String NAME = "content";
+
+	public static final String CONTENT_ID_KEY = "contentId";
+
+	@Autowired
+	private EmailContentService emailContentService;
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public void write(EmailPayload payload, JobDataMap jobDataMap) {
+		jobDataMap.put("email", payload.getEmail());
+		jobDataMap.put(CONTENT_ID_KEY, emailContentService.store(payload.getSubject(), payload.getBody()));
+	}
+
+	@Override
+	public boolean canRead(JobDataMap jobDataMap) {
+		return jobDataMap.containsKey(CONTENT_ID_KEY);
+	}
+
+	@Override
+	public EmailPayload read(JobDataMap jobDataMap) {
+		ScheduledEmailContent content = emailContentService.fetch(jobDataMap.getString(CONTENT_ID_KEY));
+
+		return new EmailPayload(jobDataMap.getString("email"), content.getSubject(), content.getBody());
+	}
+}
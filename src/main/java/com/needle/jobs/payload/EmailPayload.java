@@ -0,0 +1,19 @@
+package com.needle.jobs.payload;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * What an email job needs to send its email
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor
+public class EmailPayload {
+	private final String email;
+	private final String subject;
+	private final String body;
+}
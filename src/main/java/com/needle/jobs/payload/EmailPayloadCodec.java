@@ -0,0 +1,28 @@
+package com.needle.jobs.payload;
+
+import org.quartz.JobDataMap;
+
+/**
+ * Layout of the email payload in the job data map, which the JDBC store writes
+ * to QRTZ_JOB_DETAILS.JOB_DATA and reads back on every fire
+ */
+public interface EmailPayloadCodec {
+	/**
+	 * Name the codec is selected with
+	 *
+	 * @return
+	 */
+	String getName();
+
+	void write(EmailPayload payload, JobDataMap jobDataMap);
+
+	/**
+	 * Check if the data map was written by this codec
+	 *
+	 * @param jobDataMap
+	 * @return
+	 */
+	boolean canRead(JobDataMap jobDataMap);
+
+	EmailPayload read(JobDataMap jobDataMap);
+}
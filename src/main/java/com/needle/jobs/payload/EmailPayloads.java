@@ -0,0 +1,132 @@
+package com.needle.jobs.payload;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.quartz.JobDataMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.needle.services.EmailContentService;
+import com.needle.services.EmailTemplateService;
+
+/**
+ * Writes the email payloads with the configured codec and reads them with
+ * whichever codec wrote them, so the jobs stored before a switch still fire.
+ * Template emails only store the template id, its version and the variables,
+ * they are rendered with that version when the job fires so that saving the
+ * template again doesn't change the emails already scheduled.
+ */
+@Component
+public class EmailPayloads {
+	public static final String TEMPLATE_ID_KEY = "templateId";
+	public static final String TEMPLATE_VERSION_KEY = "templateVersion";
+
+	private final List<EmailPayloadCodec> codecs;
+	private final EmailPayloadCodec writer;
+	private final EmailTemplateService emailTemplateService;
+	private final EmailContentService emailContentService;
+
+	@Autowired
+	public EmailPayloads(List<EmailPayloadCodec> codecs, EmailTemplateService emailTemplateService,
+			EmailContentService emailContentService,
+			@Value("${scheduler.email.payload-codec:" + MapEmailPayloadCodec.NAME + "}") String codec) {
+		this.codecs = codecs;
+		this.emailTemplateService = emailTemplateService;
+		this.emailContentService = emailContentService;
+		// @formatter:off
+		this.writer = codecs.stream()
+				.filter(c -> c.getName().equals(codec))
+				.findFirst()
+				.orElseThrow(() -> new IllegalArgumentException("Unknown email payload codec: " + codec));
+		// @formatter:on
+	}
+
+	public void write(EmailPayload payload, JobDataMap jobDataMap) {
+		writer.write(payload, jobDataMap);
+	}
+
+	/**
+	 * Write a template email with the latest version of the template, each
+	 * variable as its own string entry
+	 * 
+	 * @param email
+	 * @param templateId
+	 * @param variables
+	 * @param jobDataMap
+	 */
+	public void writeTemplate(String email, String templateId, Map<String, String> variables,
+			JobDataMap jobDataMap) {
+		jobDataMap.put("email", email);
+		jobDataMap.put(TEMPLATE_ID_KEY, templateId);
+
+		Long version = emailTemplateService.currentVersion(templateId);
+
+		if (null != version) {
+			// Stored as a string so that the map stays string only
+			jobDataMap.put(TEMPLATE_VERSION_KEY, String.valueOf(version));
+		}
+
+		if (null != variables) {
+			variables.forEach((name, value) -> jobDataMap.put(EmailTemplateService.VARIABLE_KEY_PREFIX + name, value));
+		}
+	}
+
+	public EmailPayload read(JobDataMap jobDataMap) {
+		if (jobDataMap.containsKey(TEMPLATE_ID_KEY)) {
+			// Jobs scheduled before the templates were versioned use the latest one
+			Long version = jobDataMap.containsKey(TEMPLATE_VERSION_KEY)
+					? Long.parseLong(String.valueOf(jobDataMap.get(TEMPLATE_VERSION_KEY)))
+					: null;
+
+			return emailTemplateService.render(jobDataMap.getString("email"), jobDataMap.getString(TEMPLATE_ID_KEY),
+					version, jobDataMap::getString);
+		}
+
+		for (EmailPayloadCodec codec : codecs) {
+			if (codec.canRead(jobDataMap)) {
+				return codec.read(jobDataMap);
+			}
+		}
+
+		throw new IllegalArgumentException("No email payload in the job data");
+	}
+
+	/**
+	 * Drop the references of payloads written for jobs that weren't stored, the
+	 * contents only they used are deleted
+	 * 
+	 * @param jobDataMaps
+	 */
+	public void discard(List<JobDataMap> jobDataMaps) {
+		Map<String, Integer> references = new HashMap<>();
+
+		for (JobDataMap jobDataMap : jobDataMaps) {
+			String contentId = jobDataMap.getString(ContentEmailPayloadCodec.CONTENT_ID_KEY);
+
+			if (null != contentId) {
+				references.merge(contentId, 1, Integer::sum);
+			}
+		}
+
+		if (!references.isEmpty()) {
+			emailContentService.release(references);
+		}
+	}
+
+	/**
+	 * Recipient of an email job, without rendering or fetching its content when
+	 * it's stored on its own
+	 * 
+	 * @param jobDataMap
+	 * @return
+	 */
+	public String readEmail(JobDataMap jobDataMap) {
+		if (jobDataMap.containsKey("email")) {
+			return jobDataMap.getString("email");
+		}
+		return read(jobDataMap).getEmail();
+	}
+}
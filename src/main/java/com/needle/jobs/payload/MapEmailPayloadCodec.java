@@ -0,0 +1,37 @@
+package com.needle.jobs.payload;
+
+import org.quartz.JobDataMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * One string entry per field, the original layout. With string values only the
+ * store can be switched to org.quartz.jobStore.useProperties.
+ */
+@Component
+public class MapEmailPayloadCodec implements EmailPayloadCodec {
+	public static final String NAME = "map";
+
+	@Override
+	public String getName() {
+		return NAME;
+	}
+
+	@Override
+	public void write(EmailPayload payload, JobDataMap jobDataMap) {
+		jobDataMap.put("email", payload.getEmail());
+		jobDataMap.put("subject", payload.getSubject());
+		jobDataMap.put("body", payload.getBody());
+	}
+
+	@Override
+	public boolean canRead(JobDataMap jobDataMap) {
+		// The content codec writes the recipient too
+		return jobDataMap.containsKey("body");
+	}
+
+	@Override
+	public EmailPayload read(JobDataMap jobDataMap) {
+		return new EmailPayload(jobDataMap.getString("email"), jobDataMap.getString("subject"),
+				jobDataMap.getString("body"));
+	}
+}
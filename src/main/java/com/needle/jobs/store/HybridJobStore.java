@@ -0,0 +1,302 @@
+package com.needle.jobs.store;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.JobPersistenceException;
+import org.quartz.SchedulerConfigException;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+import org.springframework.scheduling.quartz.LocalDataSourceJobStore;
+
+import com.needle.utils.CommonConstants;
+import com.needle.utils.TimingWheel;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * JDBC job store that keeps the triggers due within the horizon in an
+ * in-memory timing wheel and acquires them from it, instead of querying the
+ * triggers table on every acquisition. The table stays the source of truth: a
+ * trigger is still acquired by moving its row from WAITING to ACQUIRED, so a
+ * trigger that another node acquired, paused or removed is just skipped.
+ * <p>
+ * The triggers stored or resumed by this node go to the wheel right away, the
+ * wheel is reloaded from the table every refresh interval for the ones stored
+ * by the other nodes or put back by the misfire handler and the cluster
+ * recovery.
+ * <p>
+ * Enabled with org.quartz.jobStore.class=com.needle.jobs.store.HybridJobStore,
+ * org.quartz.jobStore.nearTermHorizonSeconds and
+ * org.quartz.jobStore.nearTermRefreshSeconds set it up.
+ */
+@Slf4j
+public class HybridJobStore extends LocalDataSourceJobStore {
+	private static final long TICK_MILLIS = 1000;
+	private static final int WHEEL_SIZE = 60;
+
+	// @formatter:off
+	private static final String SELECT_NEAR_TERM_TRIGGERS = "SELECT " + COL_TRIGGER_NAME + ", " + COL_TRIGGER_GROUP
+			+ ", " + COL_NEXT_FIRE_TIME + ", " + COL_PRIORITY
+			+ " FROM %s" + TABLE_TRIGGERS
+			+ " WHERE " + COL_SCHEDULER_NAME + " = ? AND " + COL_TRIGGER_STATE + " = ? AND " + COL_NEXT_FIRE_TIME + " <= ?";
+	// @formatter:on
+
+	private long nearTermHorizonSeconds = 300;
+	private long nearTermRefreshSeconds = 10;
+
+	private TimingWheel<NearTermTrigger> wheel;
+	/* Fire time each trigger of the wheel is there for, older entries are dropped */
+	private final Map<TriggerKey, Long> fireTimes = new HashMap<>();
+	private long loadedAt = 0;
+
+	public void setNearTermHorizonSeconds(long nearTermHorizonSeconds) {
+		this.nearTermHorizonSeconds = nearTermHorizonSeconds;
+	}
+
+	public void setNearTermRefreshSeconds(long nearTermRefreshSeconds) {
+		this.nearTermRefreshSeconds = nearTermRefreshSeconds;
+	}
+
+	@Override
+	public void initialize(ClassLoadHelper loadHelper, SchedulerSignaler signaler) throws SchedulerConfigException {
+		if (nearTermRefreshSeconds >= nearTermHorizonSeconds) {
+			throw new SchedulerConfigException("The near term horizon should be longer than its refresh interval");
+		}
+
+		super.initialize(loadHelper, signaler);
+
+		wheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+
+		Metrics.globalRegistry.gauge(CommonConstants.METRICS.WHEEL_TRIGGERS,
+				Tags.of(CommonConstants.METRICS.TAG_SCHEDULER, getInstanceName()), this,
+				HybridJobStore::wheelSize);
+
+		log.info("Triggers due within {} seconds are acquired from memory, reloaded every {} seconds",
+				nearTermHorizonSeconds, nearTermRefreshSeconds);
+	}
+
+	/**
+	 * Acquire the triggers of the wheel due in the batch, same rules as the
+	 * query of the JDBC store: the earliest first, then the highest priority,
+	 * the misfired ones are left to the misfire handler
+	 */
+	@Override
+	protected List<OperableTrigger> acquireNextTrigger(Connection conn, long noLaterThan, int maxCount,
+			long timeWindow) throws JobPersistenceException {
+		if (timeWindow < 0) {
+			throw new IllegalArgumentException();
+		}
+
+		long now = System.currentTimeMillis();
+
+		if (now - loadedAt >= TimeUnit.SECONDS.toMillis(nearTermRefreshSeconds)) {
+			load(conn, now);
+		}
+
+		List<NearTermTrigger> candidates = poll(noLaterThan + timeWindow);
+		List<OperableTrigger> acquired = new ArrayList<>();
+		Set<JobKey> nonConcurrentJobs = new HashSet<>();
+		long batchEnd = noLaterThan;
+
+		try {
+			for (NearTermTrigger candidate : candidates) {
+				if (acquired.size() >= maxCount || candidate.fireTime > batchEnd) {
+					// Next batch
+					schedule(candidate.key, candidate.fireTime, candidate.priority);
+					continue;
+				}
+
+				OperableTrigger trigger = retrieveTrigger(conn, candidate.key);
+
+				if (null == trigger || null == trigger.getNextFireTime()) {
+					continue;
+				}
+
+				long fireTime = trigger.getNextFireTime().getTime();
+
+				if (fireTime != candidate.fireTime) {
+					// Moved since it was loaded
+					schedule(candidate.key, fireTime, trigger.getPriority());
+					continue;
+				}
+
+				if (fireTime < getMisfireTime()
+						&& trigger.getMisfireInstruction() != Trigger.MISFIRE_INSTRUCTION_IGNORE_MISFIRE_POLICY) {
+					// Comes back with the next load once handled
+					continue;
+				}
+
+				JobDetail job;
+
+				try {
+					job = retrieveJob(conn, trigger.getJobKey());
+				} catch (JobPersistenceException e) {
+					log.error("Unable to load the job of trigger {}, marking it in error", trigger.getKey(), e);
+					getDelegate().updateTriggerState(conn, trigger.getKey(), STATE_ERROR);
+					continue;
+				}
+
+				if (null == job) {
+					continue;
+				}
+
+				if (job.isConcurrentExectionDisallowed() && !nonConcurrentJobs.add(job.getKey())) {
+					schedule(candidate.key, fireTime, trigger.getPriority());
+					continue;
+				}
+
+				// Taken by another node, paused or blocked otherwise
+				if (getDelegate().updateTriggerStateFromOtherState(conn, trigger.getKey(), STATE_ACQUIRED,
+						STATE_WAITING) <= 0) {
+					continue;
+				}
+
+				trigger.setFireInstanceId(getFiredTriggerRecordId());
+				getDelegate().insertFiredTrigger(conn, trigger, STATE_ACQUIRED, null);
+
+				if (acquired.isEmpty()) {
+					batchEnd = Math.max(fireTime, now) + timeWindow;
+				}
+
+				acquired.add(trigger);
+			}
+		} catch (SQLException e) {
+			throw new JobPersistenceException("Couldn't acquire next trigger: " + e.getMessage(), e);
+		}
+
+		return acquired;
+	}
+
+	@Override
+	protected void storeTrigger(Connection conn, OperableTrigger newTrigger, JobDetail job, boolean replaceExisting,
+			String state, boolean forceState, boolean recovering) throws JobPersistenceException {
+		super.storeTrigger(conn, newTrigger, job, replaceExisting, state, forceState, recovering);
+
+		// A rolled back one is skipped on acquisition
+		if (null != newTrigger.getNextFireTime()) {
+			scheduleIfNearTerm(newTrigger.getKey(), newTrigger.getNextFireTime().getTime(), newTrigger.getPriority());
+		}
+	}
+
+	@Override
+	public void resumeTrigger(Connection conn, TriggerKey key) throws JobPersistenceException {
+		super.resumeTrigger(conn, key);
+
+		OperableTrigger trigger = retrieveTrigger(conn, key);
+
+		if (null != trigger && null != trigger.getNextFireTime()) {
+			scheduleIfNearTerm(key, trigger.getNextFireTime().getTime(), trigger.getPriority());
+		}
+	}
+
+	@Override
+	protected void releaseAcquiredTrigger(Connection conn, OperableTrigger trigger) throws JobPersistenceException {
+		super.releaseAcquiredTrigger(conn, trigger);
+
+		if (null != trigger.getNextFireTime()) {
+			scheduleIfNearTerm(trigger.getKey(), trigger.getNextFireTime().getTime(), trigger.getPriority());
+		}
+	}
+
+	/**
+	 * Add the waiting triggers due within the horizon, the ones in the wheel
+	 * already stay as they are unless their fire time changed
+	 * 
+	 * @param conn
+	 * @param now
+	 * @throws JobPersistenceException
+	 */
+	private void load(Connection conn, long now) throws JobPersistenceException {
+		int loaded = 0;
+
+		try (PreparedStatement statement = conn.prepareStatement(String.format(SELECT_NEAR_TERM_TRIGGERS, tablePrefix))) {
+			statement.setString(1, getInstanceName());
+			statement.setString(2, STATE_WAITING);
+			statement.setLong(3, now + TimeUnit.SECONDS.toMillis(nearTermHorizonSeconds));
+
+			try (ResultSet resultSet = statement.executeQuery()) {
+				while (resultSet.next()) {
+					TriggerKey key = new TriggerKey(resultSet.getString(1), resultSet.getString(2));
+					schedule(key, resultSet.getLong(3), resultSet.getInt(4));
+					loaded++;
+				}
+			}
+		} catch (SQLException e) {
+			throw new JobPersistenceException("Couldn't load the near term triggers: " + e.getMessage(), e);
+		}
+
+		loadedAt = now;
+
+		log.debug("Loaded {} triggers due within {} seconds", loaded, nearTermHorizonSeconds);
+	}
+
+	private void scheduleIfNearTerm(TriggerKey key, long fireTime, int priority) {
+		if (fireTime <= System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(nearTermHorizonSeconds)) {
+			schedule(key, fireTime, priority);
+		}
+	}
+
+	private synchronized void schedule(TriggerKey key, long fireTime, int priority) {
+		Long previous = fireTimes.put(key, fireTime);
+
+		if (null == previous || previous != fireTime) {
+			wheel.add(fireTime, new NearTermTrigger(key, fireTime, priority));
+		}
+	}
+
+	/**
+	 * Triggers of the wheel due at the given time at the latest, in the order
+	 * they should be acquired in
+	 * 
+	 * @param until
+	 * @return
+	 */
+	private synchronized List<NearTermTrigger> poll(long until) {
+		List<NearTermTrigger> due = new ArrayList<>();
+
+		for (TimingWheel.Entry<NearTermTrigger> entry : wheel.poll(until)) {
+			NearTermTrigger trigger = entry.getItem();
+
+			// Superseded by a later entry of the same trigger otherwise
+			if (fireTimes.remove(trigger.key, trigger.fireTime)) {
+				due.add(trigger);
+			}
+		}
+
+		due.sort(Comparator.comparingLong((NearTermTrigger trigger) -> trigger.fireTime)
+				.thenComparing(Comparator.comparingInt((NearTermTrigger trigger) -> trigger.priority).reversed()));
+
+		return due;
+	}
+
+	private synchronized double wheelSize() {
+		return fireTimes.size();
+	}
+
+	@AllArgsConstructor
+	private static class NearTermTrigger {
+		private final TriggerKey key;
+		private final long fireTime;
+		private final int priority;
+	}
+}
@@ -0,0 +1,56 @@
+package com.needle.jobs.store;
+
+import java.util.Properties;
+
+import org.quartz.SchedulerException;
+import org.quartz.impl.StdSchedulerFactory;
+import org.springframework.scheduling.quartz.LocalDataSourceJobStore;
+
+/**
+ * The SchedulerFactoryBean sets LocalDataSourceJobStore as the job store
+ * whenever it's given a data source, whatever org.quartz.jobStore.class says.
+ * This factory puts the configured class back, it has to extend
+ * LocalDataSourceJobStore to get the data source of the application.
+ */
+public class JobStoreSchedulerFactory extends StdSchedulerFactory {
+	/* Outside of the org.quartz.jobStore prefix, not passed to the job store */
+	private static final String PROP_CONFIGURED_JOB_STORE_CLASS = "com.needle.quartz.jobStore.class";
+
+	/**
+	 * Quartz properties that keep their job store class through the
+	 * SchedulerFactoryBean, to be used with this factory
+	 * 
+	 * @param quartz
+	 * @return
+	 */
+	public static Properties keepJobStoreClass(Properties quartz) {
+		String jobStoreClass = quartz.getProperty(PROP_JOB_STORE_CLASS);
+
+		if (null == jobStoreClass || LocalDataSourceJobStore.class.getName().equals(jobStoreClass)) {
+			return quartz;
+		}
+
+		Properties properties = new Properties();
+		properties.putAll(quartz);
+		properties.setProperty(PROP_CONFIGURED_JOB_STORE_CLASS, jobStoreClass);
+
+		return properties;
+	}
+
+	@Override
+	public void initialize(Properties props) throws SchedulerException {
+		String jobStoreClass = props.getProperty(PROP_CONFIGURED_JOB_STORE_CLASS);
+
+		if (null == jobStoreClass) {
+			super.initialize(props);
+			return;
+		}
+
+		Properties properties = new Properties();
+		properties.putAll(props);
+		properties.remove(PROP_CONFIGURED_JOB_STORE_CLASS);
+		properties.setProperty(PROP_JOB_STORE_CLASS, jobStoreClass);
+
+		super.initialize(properties);
+	}
+}
@@ -0,0 +1,39 @@
+package com.needle.mail;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of a single message, the code is the last SMTP reply code or 0 when
+ * no reply was received
+ */
+@Getter
+@AllArgsConstructor
+public class DeliveryResult {
+	private final String recipient;
+	private final boolean success;
+	private final int code;
+	private final String message;
+
+	public static DeliveryResult sent(String recipient, int code, String message) {
+		return new DeliveryResult(recipient, true, code, message);
+	}
+
+	public static DeliveryResult failed(String recipient, int code, String message) {
+		return new DeliveryResult(recipient, false, code, message);
+	}
+
+	/**
+	 * A 5xx reply won't succeed on a retry
+	 * 
+	 * @return
+	 */
+	public boolean isPermanentFailure() {
+		return !success && code >= 500;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s %s %d %s", recipient, success ? "sent" : "failed", code, message);
+	}
+}
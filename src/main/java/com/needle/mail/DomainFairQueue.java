@@ -0,0 +1,277 @@
+package com.needle.mail;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Dispatch stage in front of the sender. Emails are queued by recipient domain
+ * and the domains are served round-robin, each one within the rate of its own
+ * token bucket, so that one big domain neither starves the others nor gets
+ * throttled by its provider.
+ */
+@Component
+public class DomainFairQueue {
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private final MailThrottleProperties properties;
+	private final ConcurrentMap<String, DomainQueue> domains = new ConcurrentHashMap<>();
+	/* Domains with pending emails, in the order they are served */
+	private final Queue<DomainQueue> ring = new ConcurrentLinkedQueue<>();
+
+	private Semaphore senderPermits;
+	private ExecutorService senders;
+	private Thread dispatcherThread;
+	private volatile boolean running = false;
+
+	@Autowired
+	public DomainFairQueue(MailThrottleProperties properties) {
+		this.properties = properties;
+	}
+
+	public boolean isEnabled() {
+		return properties.isEnabled();
+	}
+
+	@PostConstruct
+	public void start() {
+		if (!isEnabled() || running) {
+			return;
+		}
+
+		running = true;
+		senderPermits = new Semaphore(properties.getSenderThreads());
+		senders = Executors.newFixedThreadPool(properties.getSenderThreads(),
+				new CustomizableThreadFactory("mail-sender-"));
+
+		dispatcherThread = new Thread(this::dispatchLoop, "mail-domain-dispatcher");
+		dispatcherThread.setDaemon(true);
+		dispatcherThread.start();
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (!running) {
+			return;
+		}
+
+		running = false;
+		dispatcherThread.interrupt();
+		senders.shutdown();
+
+		// Whatever is still queued won't be sent by this node
+		DomainQueue domainQueue;
+		while (null != (domainQueue = ring.poll())) {
+			MailTask task;
+			while (null != (task = domainQueue.poll())) {
+				task.getResult().complete(DeliveryResult.failed(task.getMessage().getTo(), 0, "Dispatcher stopped"));
+			}
+		}
+	}
+
+	/**
+	 * Queue an email behind the other emails of its domain
+	 *
+	 * @param message
+	 * @param sender  does the actual sending once the email's turn comes
+	 * @return completed with the result of the send
+	 */
+	public CompletableFuture<DeliveryResult> submit(MailMessage message,
+			Function<MailMessage, DeliveryResult> sender) {
+		if (!running) {
+			throw new IllegalStateException("Domain dispatcher isn't running");
+		}
+
+		MailTask task = new MailTask(message, sender, new CompletableFuture<>());
+		DomainQueue domainQueue = domains.computeIfAbsent(domainOf(message.getTo()), this::newDomainQueue);
+
+		domainQueue.offer(task);
+		activate(domainQueue);
+
+		return task.getResult();
+	}
+
+	/**
+	 * Lock-free counters of every domain seen so far
+	 *
+	 * @return
+	 */
+	public Map<String, DomainQueue> getDomains() {
+		return domains;
+	}
+
+	private void dispatchLoop() {
+		while (running) {
+			try {
+				senderPermits.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+
+			long waitNanos = dispatchNext();
+
+			if (waitNanos > 0) {
+				senderPermits.release();
+				// Woken up early by a new email
+				LockSupport.parkNanos(this, waitNanos);
+			}
+		}
+	}
+
+	/**
+	 * Hand the next email to a sender, going around the domains once at most
+	 *
+	 * @return 0 when an email was dispatched, otherwise the nanos until a domain
+	 *         can send again
+	 */
+	private long dispatchNext() {
+		long minWait = IDLE_PARK_NANOS;
+		int pending = ring.size();
+
+		for (int i = 0; i < pending; i++) {
+			DomainQueue domainQueue = ring.poll();
+
+			if (null == domainQueue) {
+				break;
+			}
+
+			long wait = domainQueue.bucket.tryAcquire(System.nanoTime());
+			MailTask task = wait == 0 ? domainQueue.poll() : null;
+
+			if (wait > 0) {
+				domainQueue.getThrottled().increment();
+				minWait = Math.min(minWait, wait);
+			}
+
+			// Back at the end of the ring while it still has emails
+			requeue(domainQueue);
+
+			if (null != task) {
+				senders.execute(() -> send(domainQueue, task));
+				return 0;
+			}
+		}
+
+		return minWait;
+	}
+
+	private void send(DomainQueue domainQueue, MailTask task) {
+		try {
+			DeliveryResult result = task.getSender().apply(task.getMessage());
+			domainQueue.getSent().increment();
+			task.getResult().complete(result);
+		} catch (RuntimeException e) {
+			task.getResult().complete(DeliveryResult.failed(task.getMessage().getTo(), 0, e.getMessage()));
+		} finally {
+			senderPermits.release();
+		}
+	}
+
+	private void activate(DomainQueue domainQueue) {
+		if (domainQueue.active.compareAndSet(false, true)) {
+			ring.offer(domainQueue);
+			LockSupport.unpark(dispatcherThread);
+		}
+	}
+
+	private void requeue(DomainQueue domainQueue) {
+		if (!domainQueue.isEmpty()) {
+			ring.offer(domainQueue);
+			return;
+		}
+
+		domainQueue.active.set(false);
+
+		// An email may have arrived after the check
+		if (!domainQueue.isEmpty()) {
+			activate(domainQueue);
+		}
+	}
+
+	private DomainQueue newDomainQueue(String domain) {
+		double rate = properties.getRatesPerSecond().getOrDefault(domain, properties.getDefaultRatePerSecond());
+		return new DomainQueue(domain, new TokenBucket(rate, properties.getBurst()));
+	}
+
+	/**
+	 * Domain part of an email address
+	 *
+	 * @param email
+	 * @return
+	 */
+	static String domainOf(String email) {
+		if (null == email) {
+			return "";
+		}
+		return email.substring(email.lastIndexOf('@') + 1).trim().toLowerCase(Locale.ROOT);
+	}
+
+	@Getter
+	public static class DomainQueue {
+		private final String domain;
+		@Getter(AccessLevel.NONE)
+		private final TokenBucket bucket;
+		@Getter(AccessLevel.NONE)
+		private final Queue<MailTask> tasks = new ConcurrentLinkedQueue<>();
+		@Getter(AccessLevel.NONE)
+		private final AtomicBoolean active = new AtomicBoolean(false);
+		private final AtomicInteger queued = new AtomicInteger();
+		private final LongAdder sent = new LongAdder();
+		private final LongAdder throttled = new LongAdder();
+
+		DomainQueue(String domain, TokenBucket bucket) {
+			this.domain = domain;
+			this.bucket = bucket;
+		}
+
+		void offer(MailTask task) {
+			tasks.offer(task);
+			queued.incrementAndGet();
+		}
+
+		MailTask poll() {
+			MailTask task = tasks.poll();
+			if (null != task) {
+				queued.decrementAndGet();
+			}
+			return task;
+		}
+
+		boolean isEmpty() {
+			return tasks.isEmpty();
+		}
+	}
+
+	@Getter
+	@AllArgsConstructor
+	static class MailTask {
+		private final MailMessage message;
+		private final Function<MailMessage, DeliveryResult> sender;
+		private final CompletableFuture<DeliveryResult> result;
+	}
+}
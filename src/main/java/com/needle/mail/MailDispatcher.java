@@ -0,0 +1,138 @@
+package com.needle.mail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends emails over pooled, persistent SMTP sessions. Consecutive messages go
+ * over the same connection instead of a new connection per email.
+ */
+@Slf4j
+@Component
+public class MailDispatcher {
+	private final MailDispatcherProperties properties;
+	private final ConcurrentMap<String, SmtpSessionPool> pools = new ConcurrentHashMap<>();
+
+	@Autowired
+	public MailDispatcher(MailDispatcherProperties properties) {
+		this.properties = properties;
+	}
+
+	/**
+	 * Check if a relay host is configured
+	 * 
+	 * @return
+	 */
+	public boolean isEnabled() {
+		return StringUtils.hasText(properties.getHost());
+	}
+
+	/**
+	 * Send a single message through the default relay
+	 * 
+	 * @param message
+	 * @return
+	 */
+	public DeliveryResult send(MailMessage message) {
+		return sendAll(Collections.singletonList(message)).get(0);
+	}
+
+	/**
+	 * Send the messages through the default relay
+	 * 
+	 * @param messages
+	 * @return one result per message, in order
+	 */
+	public List<DeliveryResult> sendAll(List<MailMessage> messages) {
+		return sendAll(properties.getHost(), properties.getPort(), messages);
+	}
+
+	/**
+	 * Send the messages through the given relay, reusing a session for as many
+	 * messages as it can take
+	 * 
+	 * @param host
+	 * @param port
+	 * @param messages
+	 * @return one result per message, in order
+	 */
+	public List<DeliveryResult> sendAll(String host, int port, List<MailMessage> messages) {
+		SmtpSessionPool pool = pools.computeIfAbsent(host + ":" + port,
+				key -> new SmtpSessionPool(host, port, properties));
+
+		List<DeliveryResult> results = new ArrayList<>(messages.size());
+
+		int next = 0;
+		boolean retrying = false;
+
+		while (next < messages.size()) {
+			SmtpSession session;
+
+			try {
+				session = pool.borrow();
+			} catch (IOException e) {
+				log.error("Unable to open an SMTP session to {}:{}", host, port, e);
+
+				for (; next < messages.size(); next++) {
+					results.add(DeliveryResult.failed(messages.get(next).getTo(), 0, e.getMessage()));
+				}
+				break;
+			}
+
+			try {
+				while (next < messages.size()) {
+					results.add(session.send(messages.get(next)));
+					next++;
+					retrying = false;
+
+					if (!pool.isReusable(session)) {
+						break;
+					}
+				}
+			} catch (IOException e) {
+				MailMessage message = messages.get(next);
+
+				if (session.isDataEnded()) {
+					// The server may have accepted the message before the connection failed, a
+					// retry could deliver it twice
+					log.error("Lost the SMTP session after sending the email to {}, not retrying", message.getTo(), e);
+					results.add(DeliveryResult.failed(message.getTo(), 0, "Delivery unknown: " + e.getMessage()));
+					next++;
+					retrying = false;
+				} else if (retrying) {
+					log.error("Unable to send email to {}", message.getTo(), e);
+					results.add(DeliveryResult.failed(message.getTo(), 0, e.getMessage()));
+					next++;
+					retrying = false;
+				} else {
+					// A pooled session may have been dropped by the server, the message is
+					// retried once over a fresh session
+					log.debug("SMTP session to {}:{} failed, retrying on a new one", host, port, e);
+					retrying = true;
+				}
+			} finally {
+				pool.release(session);
+			}
+		}
+
+		return results;
+	}
+
+	@PreDestroy
+	public void close() {
+		pools.values().forEach(SmtpSessionPool::close);
+		pools.clear();
+	}
+}
@@ -0,0 +1,29 @@
+package com.needle.mail;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "mail.dispatcher")
+public class MailDispatcherProperties {
+	/* Relay host, emails are only logged when not set */
+	private String host;
+	private int port = 25;
+	/* Name sent with EHLO */
+	private String heloName = "localhost";
+	/* Upper bound of open sessions per relay host */
+	private int maxSessionsPerHost = 4;
+	/* Session is closed and replaced after this many messages */
+	private int maxMessagesPerSession = 100;
+	/* Idle sessions older than this are closed instead of reused */
+	private long maxIdleMillis = 30000;
+	private int connectTimeoutMillis = 10000;
+	private int readTimeoutMillis = 30000;
+	/* How long a sender waits for a free session */
+	private long borrowTimeoutMillis = 30000;
+}
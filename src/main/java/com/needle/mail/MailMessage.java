@@ -0,0 +1,21 @@
+package com.needle.mail;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+@AllArgsConstructor
+public class MailMessage {
+	private final String from;
+	private final String to;
+	private final String subject;
+	private final String body;
+	@Builder.Default
+	private final String contentType = "text/plain";
+
+	public static MailMessage of(String from, String to, String subject, String body) {
+		return MailMessage.builder().from(from).to(to).subject(subject).body(body).build();
+	}
+}
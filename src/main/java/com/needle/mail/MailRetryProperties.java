@@ -0,0 +1,18 @@
+package com.needle.mail;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "mail.retry")
+public class MailRetryProperties {
+	/* Retries of an email job whose send failed, none when not positive */
+	private int maxAttempts = 3;
+	/* Delay before the first retry, doubled on every attempt */
+	private long delaySeconds = 60;
+}
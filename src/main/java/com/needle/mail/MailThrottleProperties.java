@@ -0,0 +1,27 @@
+package com.needle.mail;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "mail.throttle")
+public class MailThrottleProperties {
+	/* Emails go straight to the sender when disabled */
+	private boolean enabled = false;
+	/* Rate of the domains without their own limit, unlimited when not positive */
+	private double defaultRatePerSecond = 20;
+	/* Rate per recipient domain, ex., mail.throttle.rates-per-second[gmail.com]=50 */
+	private Map<String, Double> ratesPerSecond = new HashMap<>();
+	/* Emails a domain can take at once after being idle */
+	private int burst = 10;
+	/* Emails being sent at the same time across all the domains */
+	private int senderThreads = 8;
+}
@@ -0,0 +1,274 @@
+package com.needle.mail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.quartz.SchedulerException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.needle.sharding.SchedulerShards;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded in-process pipeline between the Quartz jobs and the sender. The jobs
+ * only enqueue the send so the Quartz threads are freed right away, the sends
+ * run on a worker pool of their own. When the queue is full this node stops
+ * acquiring triggers until the workers catch up. On shutdown the queued sends
+ * are drained, the ones still queued after the drain timeout are failed so that
+ * their jobs can retry them.
+ */
+@Slf4j
+@Component
+public class SendPipeline {
+	/* How long an idle worker waits before checking if the pipeline stopped */
+	private static final long POLL_MILLIS = 100;
+
+	private final SendPipelineProperties properties;
+	private final SchedulerShards schedulerShards;
+	private final List<Thread> workers = new ArrayList<>();
+
+	private BlockingQueue<Send<?>> queue;
+	private volatile boolean running = false;
+	@Getter
+	private volatile boolean paused = false;
+
+	@Autowired
+	public SendPipeline(SendPipelineProperties properties, SchedulerShards schedulerShards) {
+		this.properties = properties;
+		this.schedulerShards = schedulerShards;
+	}
+
+	public boolean isEnabled() {
+		return properties.isEnabled();
+	}
+
+	@PostConstruct
+	public void start() {
+		if (!isEnabled() || running) {
+			return;
+		}
+
+		running = true;
+		queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+
+		ThreadFactory threadFactory = workerThreadFactory();
+
+		for (int i = 0; i < properties.getWorkers(); i++) {
+			Thread worker = threadFactory.newThread(this::work);
+			worker.setDaemon(true);
+			workers.add(worker);
+			worker.start();
+		}
+
+		log.info("Send pipeline started with {} workers on {} threads", properties.getWorkers(),
+				isVirtual(workers.get(0)) ? "virtual" : "platform");
+	}
+
+	/**
+	 * Stop taking sends and let the workers drain the queue. The sends left after
+	 * the drain timeout are failed.
+	 */
+	@PreDestroy
+	public void stop() {
+		if (!running) {
+			return;
+		}
+
+		running = false;
+		log.info("Stopping the send pipeline, draining {} queued sends", queue.size());
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(properties.getDrainTimeoutSeconds());
+
+		try {
+			for (Thread worker : workers) {
+				long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+
+				if (remaining > 0) {
+					worker.join(remaining);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+
+		workers.forEach(Thread::interrupt);
+		workers.clear();
+
+		failQueued();
+	}
+
+	/**
+	 * Queue a send, the caller only blocks when the pipeline is full
+	 *
+	 * @param <T>
+	 * @param task
+	 * @return completed once the task ran
+	 */
+	public <T> CompletableFuture<T> submit(Supplier<T> task) {
+		if (!running) {
+			throw new IllegalStateException("Send pipeline isn't running");
+		}
+
+		Send<T> send = new Send<>(task);
+
+		if (!queue.offer(send)) {
+			pauseAcquisition();
+
+			try {
+				queue.put(send);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				send.fail(e);
+			}
+		}
+
+		// Queued while the pipeline was stopping, after the queue was drained
+		if (!running && queue.remove(send)) {
+			send.fail(new RejectedExecutionException("Send pipeline stopped"));
+		}
+
+		return send.getResult();
+	}
+
+	/**
+	 * Sends waiting for a worker
+	 *
+	 * @return
+	 */
+	public int getQueueSize() {
+		return null == queue ? 0 : queue.size();
+	}
+
+	private void work() {
+		// Keeps going once stopped until the queue is drained
+		while (running || !queue.isEmpty()) {
+			Send<?> send;
+
+			try {
+				send = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+
+			if (null == send) {
+				continue;
+			}
+
+			send.run();
+
+			if (paused && queue.size() <= properties.getResumeThreshold()) {
+				resumeAcquisition();
+			}
+		}
+	}
+
+	private void failQueued() {
+		List<Send<?>> left = new ArrayList<>();
+		queue.drainTo(left);
+
+		if (!left.isEmpty()) {
+			log.warn("Send pipeline stopped with {} sends left, failing them", left.size());
+			left.forEach(send -> send.fail(new RejectedExecutionException("Send pipeline stopped")));
+		}
+	}
+
+	private synchronized void pauseAcquisition() {
+		if (paused) {
+			return;
+		}
+
+		try {
+			log.warn("Send pipeline is full, pausing trigger acquisition");
+			schedulerShards.standbyLocal();
+			paused = true;
+		} catch (SchedulerException e) {
+			log.error("Unable to pause the scheduler", e);
+		}
+	}
+
+	private synchronized void resumeAcquisition() {
+		if (!paused || !running || queue.size() > properties.getResumeThreshold()) {
+			return;
+		}
+
+		try {
+			schedulerShards.resumeLocal();
+			paused = false;
+			log.info("Send pipeline drained, trigger acquisition resumed");
+		} catch (SchedulerException e) {
+			log.error("Unable to resume the scheduler", e);
+		}
+	}
+
+	/**
+	 * Virtual threads when the JDK has them, looked up by reflection since the
+	 * project compiles against Java 11
+	 *
+	 * @return
+	 */
+	private ThreadFactory workerThreadFactory() {
+		if (properties.isVirtualThreads()) {
+			try {
+				Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+				Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+				builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "mail-worker-", 0L);
+				return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+			} catch (ReflectiveOperationException | RuntimeException e) {
+				log.debug("Virtual threads aren't available, using platform threads");
+			}
+		}
+
+		return new CustomizableThreadFactory("mail-worker-");
+	}
+
+	private static boolean isVirtual(Thread thread) {
+		try {
+			return (boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * A queued send and its pending result
+	 *
+	 * @param <T>
+	 */
+	private static class Send<T> implements Runnable {
+		private final Supplier<T> task;
+		@Getter
+		private final CompletableFuture<T> result = new CompletableFuture<>();
+
+		Send(Supplier<T> task) {
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+			try {
+				result.complete(task.get());
+			} catch (Throwable e) {
+				result.completeExceptionally(e);
+			}
+		}
+
+		void fail(Throwable e) {
+			result.completeExceptionally(e);
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package com.needle.mail;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "mail.pipeline")
+public class SendPipelineProperties {
+	/* Jobs send on the Quartz thread when disabled */
+	private boolean enabled = false;
+	/* Sends running at the same time */
+	private int workers = 16;
+	/* Sends waiting for a worker, trigger acquisition is paused once it is full */
+	private int queueCapacity = 1000;
+	/* Trigger acquisition resumes once the queue is down to this size */
+	private int resumeThreshold = 500;
+	/* Run the workers on virtual threads when the JDK has them */
+	private boolean virtualThreads = true;
+	/* How long the queued sends get to drain on shutdown, the rest are failed */
+	private long drainTimeoutSeconds = 30;
+}
@@ -0,0 +1,422 @@
+package com.needle.mail;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A persistent SMTP connection that sends several messages one after the other.
+ * The envelope commands are pipelined when the server advertises PIPELINING.
+ */
+@Slf4j
+class SmtpSession implements Closeable {
+	private static final int MAX_LINE_LENGTH = 998;
+
+	private final Socket socket;
+	private final BufferedReader reader;
+	private final OutputStream out;
+	private final Set<String> extensions = new HashSet<>();
+
+	@Getter
+	private int messagesSent = 0;
+	private long lastUsed = System.currentTimeMillis();
+	/* A transaction was started since the last RSET */
+	private boolean dirty = false;
+	/* The connection can't be trusted anymore */
+	private boolean broken = false;
+	/* The end of the data of the current message was written */
+	private boolean dataEnded = false;
+
+	private SmtpSession(Socket socket) throws IOException {
+		this.socket = socket;
+		this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+		this.out = new BufferedOutputStream(socket.getOutputStream(), 8192);
+	}
+
+	/**
+	 * Connect and greet the server
+	 *
+	 * @param host
+	 * @param port
+	 * @param properties
+	 * @return
+	 * @throws IOException
+	 */
+	static SmtpSession open(String host, int port, MailDispatcherProperties properties) throws IOException {
+		Socket socket = new Socket();
+
+		try {
+			socket.setTcpNoDelay(true);
+			socket.connect(new InetSocketAddress(host, port), properties.getConnectTimeoutMillis());
+			socket.setSoTimeout(properties.getReadTimeoutMillis());
+
+			SmtpSession session = new SmtpSession(socket);
+			session.handshake(properties.getHeloName());
+
+			log.debug("Opened SMTP session to {}:{} with extensions {}", host, port, session.extensions);
+
+			return session;
+		} catch (IOException | RuntimeException e) {
+			socket.close();
+			throw e;
+		}
+	}
+
+	boolean supportsPipelining() {
+		return extensions.contains("PIPELINING");
+	}
+
+	/**
+	 * Check if the end of the data of the last message was written. A failure
+	 * after that point may come after the server accepted the message.
+	 *
+	 * @return
+	 */
+	boolean isDataEnded() {
+		return dataEnded;
+	}
+
+	/**
+	 * Check if the session can take another message
+	 *
+	 * @param maxMessages
+	 * @param maxIdleMillis
+	 * @return
+	 */
+	boolean isReusable(int maxMessages, long maxIdleMillis) {
+		// @formatter:off
+		return !broken
+				&& !socket.isClosed()
+				&& messagesSent < maxMessages
+				&& System.currentTimeMillis() - lastUsed < maxIdleMillis;
+		// @formatter:on
+	}
+
+	/**
+	 * Send a message over this session. A rejected message is reported through
+	 * the result; an IOException means the session is no longer usable.
+	 *
+	 * @param message
+	 * @return
+	 * @throws IOException
+	 */
+	DeliveryResult send(MailMessage message) throws IOException {
+		try {
+			return doSend(message);
+		} catch (IOException | RuntimeException e) {
+			broken = true;
+			throw e;
+		} finally {
+			lastUsed = System.currentTimeMillis();
+		}
+	}
+
+	private DeliveryResult doSend(MailMessage message) throws IOException {
+		dataEnded = false;
+
+		boolean eightBit = extensions.contains("8BITMIME") && !hasLongLines(message.getBody());
+
+		List<String> commands = new ArrayList<>(4);
+
+		if (dirty) {
+			commands.add("RSET");
+		}
+		commands.add(String.format("MAIL FROM:<%s>%s", message.getFrom(), eightBit ? " BODY=8BITMIME" : ""));
+		commands.add(String.format("RCPT TO:<%s>", message.getTo()));
+		commands.add("DATA");
+
+		dirty = true;
+
+		List<SmtpReply> replies = exchange(commands);
+
+		int offset = commands.size() - 3;
+
+		if (offset > 0 && !replies.get(0).isPositive()) {
+			throw new IOException("RSET rejected: " + replies.get(0));
+		}
+
+		SmtpReply mail = reply(replies, offset);
+		SmtpReply rcpt = reply(replies, offset + 1);
+		SmtpReply data = reply(replies, offset + 2);
+
+		if (null == data || data.getCode() != 354) {
+			return failed(message, firstFailure(mail, rcpt, data));
+		}
+
+		if (!mail.isPositive() || !rcpt.isPositive()) {
+			// The server is waiting for content, end it right away
+			writeLine(".");
+			out.flush();
+			readReply();
+			return failed(message, firstFailure(mail, rcpt, data));
+		}
+
+		writeContent(message, eightBit);
+		// The terminator may reach the server with the flush, even if it then fails
+		dataEnded = true;
+		out.flush();
+
+		SmtpReply end = readReply();
+
+		if (!end.isPositive()) {
+			return failed(message, end);
+		}
+
+		messagesSent++;
+
+		return DeliveryResult.sent(message.getTo(), end.getCode(), end.getText());
+	}
+
+	/**
+	 * Send the commands and read their replies, all at once when pipelining is
+	 * supported. Without pipelining the exchange stops at the first failure.
+	 *
+	 * @param commands
+	 * @return
+	 * @throws IOException
+	 */
+	private List<SmtpReply> exchange(List<String> commands) throws IOException {
+		List<SmtpReply> replies = new ArrayList<>(commands.size());
+
+		if (supportsPipelining()) {
+			for (String command : commands) {
+				writeLine(command);
+			}
+			out.flush();
+
+			for (int i = 0; i < commands.size(); i++) {
+				replies.add(readReply());
+			}
+
+			return replies;
+		}
+
+		for (String command : commands) {
+			writeLine(command);
+			out.flush();
+
+			SmtpReply reply = readReply();
+			replies.add(reply);
+
+			if (!reply.isPositive() && reply.getCode() != 354) {
+				break;
+			}
+		}
+
+		return replies;
+	}
+
+	private void handshake(String heloName) throws IOException {
+		SmtpReply greeting = readReply();
+
+		if (greeting.getCode() != 220) {
+			throw new IOException("Unexpected greeting: " + greeting);
+		}
+
+		writeLine("EHLO " + heloName);
+		out.flush();
+
+		SmtpReply ehlo = readReply();
+
+		if (ehlo.isPositive()) {
+			// First line is the server name, the rest are the extensions
+			for (String line : ehlo.getLines().subList(1, ehlo.getLines().size())) {
+				extensions.add(line.split(" ", 2)[0].toUpperCase(Locale.ROOT));
+			}
+			return;
+		}
+
+		writeLine("HELO " + heloName);
+		out.flush();
+
+		SmtpReply helo = readReply();
+
+		if (!helo.isPositive()) {
+			throw new IOException("HELO rejected: " + helo);
+		}
+	}
+
+	private void writeContent(MailMessage message, boolean eightBit) throws IOException {
+		writeLine("Date: " + DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now()));
+		writeLine("From: <" + message.getFrom() + ">");
+		writeLine("To: <" + message.getTo() + ">");
+		writeLine("Subject: " + encodeHeader(message.getSubject()));
+		writeLine("MIME-Version: 1.0");
+		writeLine("Content-Type: " + message.getContentType() + "; charset=UTF-8");
+		writeLine("Content-Transfer-Encoding: " + (eightBit ? "8bit" : "base64"));
+		writeLine("");
+
+		String body = null == message.getBody() ? "" : message.getBody();
+
+		if (eightBit) {
+			for (String line : body.split("\r\n|\r|\n", -1)) {
+				// Dot stuffing, a line starting with a dot would otherwise end the data
+				writeLine(line.startsWith(".") ? "." + line : line);
+			}
+		} else {
+			writeLine(Base64.getMimeEncoder().encodeToString(body.getBytes(StandardCharsets.UTF_8)));
+		}
+
+		writeLine(".");
+	}
+
+	private SmtpReply readReply() throws IOException {
+		List<String> lines = new ArrayList<>(1);
+		int code;
+
+		while (true) {
+			String line = reader.readLine();
+
+			if (null == line) {
+				throw new EOFException("Connection closed by the server");
+			}
+			if (line.length() < 3) {
+				throw new IOException("Malformed reply: " + line);
+			}
+
+			code = Integer.parseInt(line.substring(0, 3));
+			lines.add(line.length() > 4 ? line.substring(4) : "");
+
+			// "250-" continues the reply, "250 " ends it
+			if (line.length() == 3 || line.charAt(3) != '-') {
+				break;
+			}
+		}
+
+		if (code == 421) {
+			// Service is closing the connection
+			broken = true;
+		}
+
+		return new SmtpReply(code, lines);
+	}
+
+	private void writeLine(String line) throws IOException {
+		out.write(line.getBytes(StandardCharsets.UTF_8));
+		out.write('\r');
+		out.write('\n');
+	}
+
+	@Override
+	public void close() {
+		try {
+			if (!broken && !socket.isClosed()) {
+				writeLine("QUIT");
+				out.flush();
+				readReply();
+			}
+		} catch (IOException e) {
+			log.debug("Unable to quit the SMTP session cleanly", e);
+		} finally {
+			try {
+				socket.close();
+			} catch (IOException e) {
+				log.debug("Unable to close the SMTP socket", e);
+			}
+		}
+	}
+
+	private static SmtpReply reply(List<SmtpReply> replies, int index) {
+		return index < replies.size() ? replies.get(index) : null;
+	}
+
+	private static SmtpReply firstFailure(SmtpReply... replies) {
+		for (SmtpReply reply : replies) {
+			if (null != reply && !reply.isPositive()) {
+				return reply;
+			}
+		}
+		return null;
+	}
+
+	private static DeliveryResult failed(MailMessage message, SmtpReply reply) {
+		if (null == reply) {
+			return DeliveryResult.failed(message.getTo(), 0, "No reply from the server");
+		}
+		return DeliveryResult.failed(message.getTo(), reply.getCode(), reply.getText());
+	}
+
+	private static boolean hasLongLines(String body) {
+		if (null == body) {
+			return false;
+		}
+
+		// Line length in UTF-8 octets
+		int lineLength = 0;
+
+		for (int i = 0; i < body.length(); i++) {
+			char c = body.charAt(i);
+
+			if (c == '\r' || c == '\n') {
+				lineLength = 0;
+				continue;
+			}
+
+			lineLength += c < 0x80 ? 1 : (c < 0x800 || Character.isSurrogate(c)) ? 2 : 3;
+
+			if (lineLength > MAX_LINE_LENGTH) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static String encodeHeader(String value) {
+		if (null == value) {
+			return "";
+		}
+
+		boolean ascii = value.chars().allMatch(c -> c >= 0x20 && c < 0x7f);
+
+		if (ascii) {
+			return value;
+		}
+
+		return "=?UTF-8?B?" + Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8)) + "?=";
+	}
+
+	@Getter
+	@AllArgsConstructor
+	static class SmtpReply {
+		private final int code;
+		private final List<String> lines;
+
+		/**
+		 * 2xx reply
+		 *
+		 * @return
+		 */
+		boolean isPositive() {
+			return code >= 200 && code < 300;
+		}
+
+		String getText() {
+			return String.join(" ", lines);
+		}
+
+		@Override
+		public String toString() {
+			return code + " " + getText();
+		}
+	}
+}
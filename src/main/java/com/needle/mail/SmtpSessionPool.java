@@ -0,0 +1,110 @@
+package com.needle.mail;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded pool of persistent sessions to a single relay host. The most recently
+ * used session is handed out first so that the pool shrinks back on its own
+ * when the load drops.
+ */
+@Slf4j
+class SmtpSessionPool implements Closeable {
+	private final String host;
+	private final int port;
+	private final MailDispatcherProperties properties;
+	private final Semaphore permits;
+	private final Deque<SmtpSession> idle = new ConcurrentLinkedDeque<>();
+
+	private volatile boolean closed = false;
+
+	SmtpSessionPool(String host, int port, MailDispatcherProperties properties) {
+		this.host = host;
+		this.port = port;
+		this.properties = properties;
+		this.permits = new Semaphore(properties.getMaxSessionsPerHost(), true);
+	}
+
+	/**
+	 * Take an idle session or open a new one, waiting while the host is at its
+	 * session limit
+	 * 
+	 * @return
+	 * @throws IOException
+	 */
+	SmtpSession borrow() throws IOException {
+		if (closed) {
+			throw new IOException("Session pool to " + host + " is closed");
+		}
+
+		try {
+			if (!permits.tryAcquire(properties.getBorrowTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+				throw new IOException("Timed out waiting for an SMTP session to " + host);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for an SMTP session to " + host);
+		}
+
+		try {
+			SmtpSession session;
+
+			while (null != (session = idle.pollFirst())) {
+				if (isReusable(session)) {
+					return session;
+				}
+				session.close();
+			}
+
+			return SmtpSession.open(host, port, properties);
+		} catch (IOException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Give back a session, it is closed when it can't take more messages
+	 * 
+	 * @param session
+	 */
+	void release(SmtpSession session) {
+		try {
+			if (!closed && isReusable(session)) {
+				idle.offerFirst(session);
+			} else {
+				session.close();
+			}
+		} finally {
+			permits.release();
+		}
+	}
+
+	boolean isReusable(SmtpSession session) {
+		return session.isReusable(properties.getMaxMessagesPerSession(), properties.getMaxIdleMillis());
+	}
+
+	int getIdleCount() {
+		return idle.size();
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+
+		SmtpSession session;
+
+		while (null != (session = idle.pollFirst())) {
+			session.close();
+		}
+
+		log.debug("Closed SMTP session pool to {}:{}", host, port);
+	}
+}
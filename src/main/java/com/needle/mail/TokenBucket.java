@@ -0,0 +1,52 @@
+package com.needle.mail;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. Instead of a token count it keeps the theoretical
+ * arrival time of the next token, so taking a token is a single compare and
+ * set.
+ */
+class TokenBucket {
+	private final long intervalNanos;
+	private final long burstNanos;
+	private final AtomicLong nextFree;
+
+	/**
+	 * @param ratePerSecond tokens per second, unlimited when not positive
+	 * @param burst         tokens that can be taken at once
+	 */
+	TokenBucket(double ratePerSecond, int burst) {
+		this.intervalNanos = ratePerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond) : 0;
+		this.burstNanos = intervalNanos * Math.max(1, burst);
+		this.nextFree = new AtomicLong(System.nanoTime());
+	}
+
+	/**
+	 * Take a token if one is available
+	 * 
+	 * @param now current {@link System#nanoTime()}
+	 * @return 0 when a token was taken, otherwise the nanos to wait for the next
+	 *         one
+	 */
+	long tryAcquire(long now) {
+		if (intervalNanos == 0) {
+			return 0;
+		}
+
+		while (true) {
+			long current = nextFree.get();
+			long next = Math.max(current, now) + intervalNanos;
+			long ahead = next - now - burstNanos;
+
+			if (ahead > 0) {
+				return ahead;
+			}
+
+			if (nextFree.compareAndSet(current, next)) {
+				return 0;
+			}
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package com.needle.metrics;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fire lag and lateness percentiles per job group on /actuator/lateness
+ */
+@Component
+@Endpoint(id = "lateness")
+public class LatencyEndpoint {
+	@Autowired
+	private LatencyTracker latencyTracker;
+
+	@ReadOperation
+	public Map<String, LatencyTracker.GroupReport> lateness() {
+		return latencyTracker.report();
+	}
+}
@@ -0,0 +1,26 @@
+package com.needle.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "scheduler.latency")
+public class LatencyProperties {
+	/* p99 lateness allowed for the groups without a budget of their own */
+	private long defaultBudgetMillis = 60000;
+	/* p99 lateness allowed per job group */
+	private Map<String, Long> budgetsMillis = new HashMap<>();
+	/* Window the p99 is checked against the budget over */
+	private long checkIntervalSeconds = 60;
+	/* Larger values are recorded as this one */
+	private long highestTrackableMillis = 86400000;
+	private int significantDigits = 3;
+}
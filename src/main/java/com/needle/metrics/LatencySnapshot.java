@@ -0,0 +1,30 @@
+package com.needle.metrics;
+
+import org.HdrHistogram.AbstractHistogram;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Percentiles of a latency histogram, in milliseconds
+ */
+@Getter
+@AllArgsConstructor
+public class LatencySnapshot {
+	private final long count;
+	private final long p50;
+	private final long p99;
+	private final long p999;
+	private final long max;
+
+	public static LatencySnapshot of(AbstractHistogram histogram) {
+		// @formatter:off
+		return new LatencySnapshot(
+				histogram.getTotalCount(),
+				histogram.getValueAtPercentile(50.0),
+				histogram.getValueAtPercentile(99.0),
+				histogram.getValueAtPercentile(99.9),
+				histogram.getMaxValue());
+		// @formatter:on
+	}
+}
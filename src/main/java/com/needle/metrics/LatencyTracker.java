@@ -0,0 +1,242 @@
+package com.needle.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.needle.events.LatenessBudgetExceededEvent;
+import com.needle.utils.CommonConstants;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fire lag and end-to-end lateness of every job group. The values go into
+ * HdrHistogram recorders, recording never takes a lock, and the p99 lateness
+ * of each group is checked against its budget at a fixed interval. The fire lag
+ * is only recorded here, the Micrometer meters read it from the histograms.
+ */
+@Slf4j
+@Component
+public class LatencyTracker {
+	private final LatencyProperties properties;
+	private final ApplicationEventPublisher eventPublisher;
+	private final MeterRegistry meterRegistry;
+	private final ConcurrentMap<String, GroupLatency> groups = new ConcurrentHashMap<>();
+
+	private ScheduledExecutorService checker;
+
+	@Autowired
+	public LatencyTracker(LatencyProperties properties, ApplicationEventPublisher eventPublisher,
+			MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.eventPublisher = eventPublisher;
+		this.meterRegistry = meterRegistry;
+	}
+
+	@PostConstruct
+	public void start() {
+		long interval = properties.getCheckIntervalSeconds();
+
+		checker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("latency-check-"));
+		checker.scheduleAtFixedRate(this::checkBudgets, interval, interval, TimeUnit.SECONDS);
+	}
+
+	@PreDestroy
+	public void stop() {
+		checker.shutdownNow();
+	}
+
+	/**
+	 * Time between the scheduled and the actual fire time of a job
+	 *
+	 * @param group
+	 * @param millis
+	 */
+	public void recordFireLag(String group, long millis) {
+		group(group).getFireLag().record(millis);
+	}
+
+	/**
+	 * Time between the requested delivery time and the completed send
+	 *
+	 * @param group
+	 * @param millis
+	 */
+	public void recordLateness(String group, long millis) {
+		group(group).getLateness().record(millis);
+	}
+
+	/**
+	 * Percentiles of every group since startup
+	 *
+	 * @return
+	 */
+	public Map<String, GroupReport> report() {
+		Map<String, GroupReport> report = new TreeMap<>();
+
+		groups.forEach((name, group) -> report.put(name, new GroupReport(group.getFireLag().snapshot(),
+				group.getLateness().snapshot(), budgetOf(name))));
+
+		return report;
+	}
+
+	void checkBudgets() {
+		try {
+			groups.forEach(this::checkBudget);
+		} catch (RuntimeException e) {
+			// An exception would cancel the next checks
+			log.error("Unable to check the lateness budgets", e);
+		}
+	}
+
+	private void checkBudget(String name, GroupLatency group) {
+		Histogram window = group.getLateness().closeWindow();
+
+		if (window.getTotalCount() == 0) {
+			return;
+		}
+
+		long p99 = window.getValueAtPercentile(99.0);
+		long budget = budgetOf(name);
+
+		if (p99 <= budget) {
+			return;
+		}
+
+		// @formatter:off
+		log.error("p99 lateness of {} is {} ms over the last {} s for {} emails, the budget is {} ms",
+				name, p99, properties.getCheckIntervalSeconds(), window.getTotalCount(), budget);
+
+		meterRegistry.counter(CommonConstants.METRICS.LATENESS_BUDGET_EXCEEDED, CommonConstants.METRICS.TAG_GROUP, name)
+				.increment();
+		// @formatter:on
+
+		eventPublisher.publishEvent(new LatenessBudgetExceededEvent(name, p99, budget, window.getTotalCount()));
+	}
+
+	private long budgetOf(String group) {
+		return properties.getBudgetsMillis().getOrDefault(group, properties.getDefaultBudgetMillis());
+	}
+
+	private GroupLatency group(String group) {
+		return groups.computeIfAbsent(group, this::newGroup);
+	}
+
+	private GroupLatency newGroup(String name) {
+		GroupLatency group = new GroupLatency(new LatencyRecorder(properties), new LatencyRecorder(properties));
+
+		registerFireLag(name, group.getFireLag());
+
+		return group;
+	}
+
+	/**
+	 * Publish the fire lag of a group, read from its histogram at scrape time
+	 *
+	 * @param name
+	 * @param fireLag
+	 */
+	private void registerFireLag(String name, LatencyRecorder fireLag) {
+		// @formatter:off
+		FunctionTimer.builder(CommonConstants.METRICS.JOB_FIRE_LAG, fireLag,
+				recorder -> recorder.snapshot().getCount(), LatencyRecorder::totalMillis, TimeUnit.MILLISECONDS)
+				.tag(CommonConstants.METRICS.TAG_GROUP, name)
+				.register(meterRegistry);
+
+		Gauge.builder(CommonConstants.METRICS.JOB_FIRE_LAG_PERCENTILE, fireLag, recorder -> recorder.snapshot().getP50())
+				.tags(CommonConstants.METRICS.TAG_GROUP, name, CommonConstants.METRICS.TAG_PERCENTILE, "0.5")
+				.register(meterRegistry);
+		Gauge.builder(CommonConstants.METRICS.JOB_FIRE_LAG_PERCENTILE, fireLag, recorder -> recorder.snapshot().getP99())
+				.tags(CommonConstants.METRICS.TAG_GROUP, name, CommonConstants.METRICS.TAG_PERCENTILE, "0.99")
+				.register(meterRegistry);
+		Gauge.builder(CommonConstants.METRICS.JOB_FIRE_LAG_PERCENTILE, fireLag, recorder -> recorder.snapshot().getP999())
+				.tags(CommonConstants.METRICS.TAG_GROUP, name, CommonConstants.METRICS.TAG_PERCENTILE, "0.999")
+				.register(meterRegistry);
+		// @formatter:on
+	}
+
+	@Getter
+	@AllArgsConstructor
+	static class GroupLatency {
+		private final LatencyRecorder fireLag;
+		private final LatencyRecorder lateness;
+	}
+
+	/**
+	 * A lock-free recorder for the writers, drained into the histograms the
+	 * readers use
+	 */
+	static class LatencyRecorder {
+		private final long highestTrackable;
+		private final Recorder recorder;
+		/* Everything since startup */
+		private final Histogram total;
+		/* Since the last budget check */
+		private final Histogram window;
+		private Histogram interval;
+
+		LatencyRecorder(LatencyProperties properties) {
+			this.highestTrackable = properties.getHighestTrackableMillis();
+			this.recorder = new Recorder(highestTrackable, properties.getSignificantDigits());
+			this.total = new Histogram(highestTrackable, properties.getSignificantDigits());
+			this.window = new Histogram(highestTrackable, properties.getSignificantDigits());
+		}
+
+		void record(long millis) {
+			// Early sends count as on time, values out of range as the highest one
+			recorder.recordValue(Math.min(Math.max(millis, 0), highestTrackable));
+		}
+
+		synchronized LatencySnapshot snapshot() {
+			drain();
+			return LatencySnapshot.of(total);
+		}
+
+		synchronized double totalMillis() {
+			drain();
+			return total.getMean() * total.getTotalCount();
+		}
+
+		synchronized Histogram closeWindow() {
+			drain();
+
+			Histogram closed = window.copy();
+			window.reset();
+
+			return closed;
+		}
+
+		private void drain() {
+			interval = recorder.getIntervalHistogram(interval);
+			total.add(interval);
+			window.add(interval);
+		}
+	}
+
+	@Getter
+	@AllArgsConstructor
+	public static class GroupReport {
+		private final LatencySnapshot fireLag;
+		private final LatencySnapshot lateness;
+		private final long budgetMillis;
+	}
+}
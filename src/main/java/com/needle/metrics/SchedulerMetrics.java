@@ -0,0 +1,225 @@
+package com.needle.metrics;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.Trigger.TriggerState;
+import org.quartz.TriggerKey;
+import org.quartz.impl.jdbcjobstore.JobStoreSupport;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.needle.jobs.listeners.JobLatencyListener;
+import com.needle.jobs.listeners.JobMetricsListener;
+import com.needle.jobs.listeners.TriggerMetricsListener;
+import com.needle.sharding.SchedulerShards;
+import com.needle.utils.CommonConstants;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Registers the global metric listeners, a gauge of the pending triggers of
+ * every trigger group and a gauge of the triggers already due but not fired
+ * yet of every lane. The counts come from a query per shard on the job store
+ * and are cached between scrapes.
+ */
+@Slf4j
+@Component
+public class SchedulerMetrics implements MeterBinder {
+	// @formatter:off
+	private static final String PENDING_TRIGGERS_QUERY = "SELECT TRIGGER_GROUP, COUNT(*) FROM %sTRIGGERS"
+			+ " WHERE SCHED_NAME = ? AND TRIGGER_STATE IN ('WAITING', 'ACQUIRED', 'BLOCKED', 'PAUSED', 'PAUSED_BLOCKED')"
+			+ " GROUP BY TRIGGER_GROUP";
+	private static final String DUE_TRIGGERS_QUERY = "SELECT COUNT(*) FROM %sTRIGGERS"
+			+ " WHERE SCHED_NAME = ? AND TRIGGER_STATE = 'WAITING' AND NEXT_FIRE_TIME <= ?";
+	// @formatter:on
+
+	private final SchedulerShards schedulerShards;
+	private final JobMetricsListener jobMetricsListener;
+	private final JobLatencyListener jobLatencyListener;
+	private final TriggerMetricsListener triggerMetricsListener;
+	private final JdbcTemplate jdbcTemplate;
+	private final String tablePrefix;
+	private final long refreshMillis;
+
+	private final Map<String, Long> pendingTriggers = new ConcurrentHashMap<>();
+	private final Map<String, Long> dueTriggers = new ConcurrentHashMap<>();
+	private final AtomicLong refreshedAt = new AtomicLong();
+
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	public SchedulerMetrics(SchedulerShards schedulerShards, JobMetricsListener jobMetricsListener,
+			JobLatencyListener jobLatencyListener, TriggerMetricsListener triggerMetricsListener, JdbcTemplate jdbcTemplate,
+			@Value("${spring.quartz.properties.org.quartz.jobStore.tablePrefix:QRTZ_}") String tablePrefix,
+			@Value("${scheduler.metrics.pending-refresh-seconds:30}") long refreshSeconds) {
+		this.schedulerShards = schedulerShards;
+		this.jobMetricsListener = jobMetricsListener;
+		this.jobLatencyListener = jobLatencyListener;
+		this.triggerMetricsListener = triggerMetricsListener;
+		this.jdbcTemplate = jdbcTemplate;
+		this.tablePrefix = tablePrefix;
+		this.refreshMillis = TimeUnit.SECONDS.toMillis(refreshSeconds);
+	}
+
+	/**
+	 * Global listeners, registered on every shard before the schedulers start
+	 *
+	 * @throws SchedulerException
+	 */
+	@PostConstruct
+	public void registerListeners() throws SchedulerException {
+		for (Scheduler scheduler : schedulerShards.getSchedulers()) {
+			scheduler.getListenerManager().addJobListener(jobMetricsListener);
+			scheduler.getListenerManager().addJobListener(jobLatencyListener);
+			scheduler.getListenerManager().addTriggerListener(triggerMetricsListener);
+		}
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		this.meterRegistry = registry;
+
+		refreshedAt.set(System.currentTimeMillis());
+		refresh();
+
+		for (String lane : schedulerShards.getLanes().keySet()) {
+			// @formatter:off
+			Gauge.builder(CommonConstants.METRICS.LANE_DUE_TRIGGERS, this, metrics -> metrics.dueTriggers(lane))
+					.description("Triggers of the lane due but not fired yet")
+					.tag(CommonConstants.METRICS.TAG_LANE, lane)
+					.register(registry);
+			// @formatter:on
+		}
+	}
+
+	private double pendingTriggers(String group) {
+		refreshIfStale();
+
+		return pendingTriggers.getOrDefault(group, 0L);
+	}
+
+	private double dueTriggers(String lane) {
+		refreshIfStale();
+
+		return dueTriggers.getOrDefault(lane, 0L);
+	}
+
+	private void refreshIfStale() {
+		long now = System.currentTimeMillis();
+		long last = refreshedAt.get();
+
+		// Only one scrape refreshes the counts, the others read the cached ones
+		if (now - last >= refreshMillis && refreshedAt.compareAndSet(last, now)) {
+			refresh();
+		}
+	}
+
+	private void refresh() {
+		try {
+			dueTriggers.putAll(countDueTriggers());
+		} catch (Exception e) {
+			log.warn("Unable to count the due triggers", e);
+		}
+
+		Map<String, Long> counts;
+
+		try {
+			counts = countPendingTriggers();
+		} catch (Exception e) {
+			log.warn("Unable to count the pending triggers", e);
+			return;
+		}
+
+		// Groups without pending triggers drop to zero instead of disappearing
+		pendingTriggers.replaceAll((group, count) -> counts.getOrDefault(group, 0L));
+
+		counts.forEach((group, count) -> {
+			if (null == pendingTriggers.put(group, count)) {
+				// @formatter:off
+				Gauge.builder(CommonConstants.METRICS.TRIGGERS_PENDING, this, metrics -> metrics.pendingTriggers(group))
+						.description("Triggers of the group waiting to fire")
+						.tag(CommonConstants.METRICS.TAG_GROUP, group)
+						.register(meterRegistry);
+				// @formatter:on
+			}
+		});
+	}
+
+	private Map<String, Long> countPendingTriggers() throws SchedulerException {
+		Map<String, Long> counts = new HashMap<>();
+
+		for (Scheduler scheduler : schedulerShards.getSchedulers()) {
+			if (JobStoreSupport.class.isAssignableFrom(scheduler.getMetaData().getJobStoreClass())) {
+				jdbcTemplate.query(String.format(PENDING_TRIGGERS_QUERY, tablePrefix), rs -> {
+					counts.merge(rs.getString(1), rs.getLong(2), Long::sum);
+				}, scheduler.getSchedulerName());
+				continue;
+			}
+
+			// In memory store, the keys are cheap to list
+			for (String group : scheduler.getTriggerGroupNames()) {
+				counts.merge(group, (long) scheduler.getTriggerKeys(GroupMatcher.<TriggerKey>groupEquals(group)).size(),
+						Long::sum);
+			}
+		}
+
+		return counts;
+	}
+
+	private Map<String, Long> countDueTriggers() throws SchedulerException {
+		Map<String, Long> counts = new HashMap<>();
+		long now = System.currentTimeMillis();
+
+		for (Map.Entry<String, List<Scheduler>> lane : schedulerShards.getLanes().entrySet()) {
+			long due = 0;
+
+			for (Scheduler scheduler : lane.getValue()) {
+				due += countDueTriggers(scheduler, now);
+			}
+
+			counts.put(lane.getKey(), due);
+		}
+
+		return counts;
+	}
+
+	private long countDueTriggers(Scheduler scheduler, long now) throws SchedulerException {
+		if (JobStoreSupport.class.isAssignableFrom(scheduler.getMetaData().getJobStoreClass())) {
+			Long due = jdbcTemplate.queryForObject(String.format(DUE_TRIGGERS_QUERY, tablePrefix), Long.class,
+					scheduler.getSchedulerName(), now);
+			return null == due ? 0 : due;
+		}
+
+		// In memory store, the triggers are cheap to go through
+		long due = 0;
+
+		for (String group : scheduler.getTriggerGroupNames()) {
+			for (TriggerKey key : scheduler.getTriggerKeys(GroupMatcher.<TriggerKey>groupEquals(group))) {
+				Trigger trigger = scheduler.getTrigger(key);
+
+				if (null != trigger && null != trigger.getNextFireTime() && trigger.getNextFireTime().getTime() <= now
+						&& scheduler.getTriggerState(key) == TriggerState.NORMAL) {
+					due++;
+				}
+			}
+		}
+
+		return due;
+	}
+}
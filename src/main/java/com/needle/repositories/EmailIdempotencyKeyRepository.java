@@ -0,0 +1,73 @@
+package com.needle.repositories;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.needle.entities.EmailIdempotencyKey;
+
+@Repository
+public interface EmailIdempotencyKeyRepository extends JpaRepository<EmailIdempotencyKey, String> {
+	/**
+	 * Claim a key unless it's claimed already
+	 * 
+	 * @param id
+	 * @return 1 when claimed, 0 when it was already there
+	 */
+	@Modifying
+	@Transactional
+	@Query(value = "INSERT INTO email_idempotency_keys (id) VALUES (:id) ON CONFLICT (id) DO NOTHING", nativeQuery = true)
+	int insertIfAbsent(@Param("id") String id);
+
+	/**
+	 * Record the response of a claimed key
+	 * 
+	 * @param id
+	 * @param jobId
+	 * @param jobGroup
+	 * @param message
+	 * @param completedAt
+	 * @return
+	 */
+	@Modifying
+	@Transactional
+	@Query("UPDATE EmailIdempotencyKey k SET k.jobId = :jobId, k.jobGroup = :jobGroup, k.message = :message, k.completedAt = :completedAt WHERE k.id = :id")
+	int complete(@Param("id") String id, @Param("jobId") String jobId, @Param("jobGroup") String jobGroup,
+			@Param("message") String message, @Param("completedAt") LocalDateTime completedAt);
+
+	/**
+	 * Release a key claimed before the given time and never completed, its
+	 * request was abandoned
+	 * 
+	 * @param id
+	 * @param before
+	 * @return
+	 */
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM EmailIdempotencyKey k WHERE k.id = :id AND k.completedAt IS NULL AND k.createdAt < :before")
+	int deleteAbandoned(@Param("id") String id, @Param("before") LocalDateTime before);
+
+	/**
+	 * Release a key claimed before the given time whether completed or not, it
+	 * expired and wasn't purged yet
+	 * 
+	 * @param id
+	 * @param before
+	 * @return
+	 */
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM EmailIdempotencyKey k WHERE k.id = :id AND k.createdAt < :before")
+	int deleteExpired(@Param("id") String id, @Param("before") LocalDateTime before);
+
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM EmailIdempotencyKey k WHERE k.createdAt < :before")
+	int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,27 @@
+package com.needle.repositories;
+
+import java.util.Optional;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.needle.entities.EmailTemplate;
+
+@Repository
+public interface EmailTemplateRepository extends JpaRepository<EmailTemplate, String> {
+	/**
+	 * Find a template and lock it until the end of the transaction, the saves of
+	 * a template are numbered one after the other
+	 * 
+	 * @param id
+	 * @return
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("select t from EmailTemplate t where t.id = :id")
+	Optional<EmailTemplate> findForUpdate(@Param("id") String id);
+}
@@ -0,0 +1,10 @@
+package com.needle.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.needle.entities.EmailTemplateVersion;
+
+@Repository
+public interface EmailTemplateVersionRepository extends JpaRepository<EmailTemplateVersion, EmailTemplateVersion.Key> {
+}
@@ -1,13 +1,49 @@
 package com.needle.repositories;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.needle.entities.Message;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, UUID> {
+	/**
+	 * Make a bounded batch of due messages visible in a single statement. Not
+	 * marked as modifying since the update returns the ids of the rows it
+	 * flipped, it has to be called inside a transaction. The rows are updated by
+	 * their whole primary key, partition key included.
+	 * 
+	 * @param now   local time the messages are compared with
+	 * @param limit
+	 * @return ids of the messages made visible
+	 */
+	// @formatter:off
+	@Query(value = "UPDATE messages SET is_visible = true, modified_at = timezone('utc', now()) "
+			+ "WHERE (id, created_at) IN (SELECT id, created_at FROM messages WHERE is_visible = false AND make_visible_at <= :now "
+			+ "ORDER BY make_visible_at LIMIT :limit FOR UPDATE SKIP LOCKED) "
+			+ "RETURNING CAST(id AS varchar)", nativeQuery = true)
+	// @formatter:on
+	List<String> makeDueMessagesVisible(@Param("now") LocalDateTime now, @Param("limit") int limit);
 
+	/**
+	 * Check if messages created within a range are still to be made visible. The
+	 * range is on the partition key so that only its partitions are scanned.
+	 * 
+	 * @param from     inclusive
+	 * @param to       exclusive
+	 * @param dueAfter messages due before are not waited for anymore
+	 * @return
+	 */
+	// @formatter:off
+	@Query(value = "SELECT EXISTS (SELECT 1 FROM messages WHERE created_at >= :from AND created_at < :to "
+			+ "AND is_visible = false AND make_visible_at >= :dueAfter)", nativeQuery = true)
+	// @formatter:on
+	boolean existsPendingCreatedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+			@Param("dueAfter") LocalDateTime dueAfter);
 }
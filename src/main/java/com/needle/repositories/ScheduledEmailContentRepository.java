@@ -0,0 +1,66 @@
+package com.needle.repositories;
+
+import java.util.Collection;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.needle.entities.ScheduledEmailContent;
+
+@Repository
+public interface ScheduledEmailContentRepository extends JpaRepository<ScheduledEmailContent, String> {
+	/**
+	 * Store a content with one reference, or add a reference when the same one is
+	 * already stored
+	 * 
+	 * @param id
+	 * @param subject
+	 * @param body
+	 * @return
+	 */
+	// @formatter:off
+	@Modifying
+	@Transactional
+	@Query(value = "INSERT INTO scheduled_email_content (id, subject, body, ref_count) VALUES (:id, :subject, :body, 1)"
+			+ " ON CONFLICT (id) DO UPDATE SET ref_count = scheduled_email_content.ref_count + 1", nativeQuery = true)
+	int insertOrReference(@Param("id") String id, @Param("subject") String subject, @Param("body") String body);
+	// @formatter:on
+
+	/**
+	 * Add a reference to a stored content without sending it again
+	 * 
+	 * @param id
+	 * @return 0 when the content isn't stored
+	 */
+	@Modifying
+	@Transactional
+	@Query(value = "UPDATE scheduled_email_content SET ref_count = ref_count + 1 WHERE id = :id", nativeQuery = true)
+	int reference(@Param("id") String id);
+
+	/**
+	 * Drop references to a content
+	 * 
+	 * @param id
+	 * @param count
+	 * @return
+	 */
+	@Modifying
+	@Transactional
+	@Query(value = "UPDATE scheduled_email_content SET ref_count = ref_count - :count WHERE id = :id", nativeQuery = true)
+	int release(@Param("id") String id, @Param("count") int count);
+
+	/**
+	 * Delete the contents among the given ones that no job references anymore
+	 * 
+	 * @param ids
+	 * @return
+	 */
+	@Modifying
+	@Transactional
+	@Query(value = "DELETE FROM scheduled_email_content WHERE id IN (:ids) AND ref_count <= 0", nativeQuery = true)
+	int deleteUnreferenced(@Param("ids") Collection<String> ids);
+}
@@ -0,0 +1,49 @@
+package com.needle.repositories;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.needle.entities.ScheduledEmail;
+
+@Repository
+public interface ScheduledEmailRepository extends JpaRepository<ScheduledEmail, UUID> {
+	/**
+	 * Find the next page of pending emails of every bucket up to the given minute,
+	 * ordered by bucket and id and starting after the given bucket and id
+	 * 
+	 * @param deliveryMinute
+	 * @param afterMinute
+	 * @param afterId
+	 * @param page
+	 * @return
+	 */
+	// @formatter:off
+	@Query("select e from ScheduledEmail e where e.deliveryMinute <= :deliveryMinute and e.sentAt is null"
+			+ " and (e.deliveryMinute > :afterMinute or (e.deliveryMinute = :afterMinute and e.id > :afterId))"
+			+ " order by e.deliveryMinute, e.id")
+	List<ScheduledEmail> findPendingAfter(@Param("deliveryMinute") long deliveryMinute,
+			@Param("afterMinute") long afterMinute, @Param("afterId") UUID afterId, Pageable page);
+	// @formatter:on
+
+	/**
+	 * Mark a set of emails as sent, committed on its own
+	 * 
+	 * @param ids
+	 * @param sentAt
+	 * @return
+	 */
+	@Modifying
+	@Transactional
+	@Query("update ScheduledEmail e set e.sentAt = :sentAt where e.id in :ids")
+	int markSent(@Param("ids") Collection<UUID> ids, @Param("sentAt") LocalDateTime sentAt);
+}
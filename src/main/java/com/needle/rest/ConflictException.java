@@ -0,0 +1,19 @@
+package com.needle.rest;
+
+import lombok.Getter;
+
+/**
+ * The request conflicts with one still in flight, answered with a 409 telling
+ * the client when to retry
+ */
+@Getter
+public class ConflictException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	private final long retryAfterSeconds;
+
+	public ConflictException(String message, long retryAfterSeconds) {
+		super(message);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+}
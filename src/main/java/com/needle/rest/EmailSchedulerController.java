@@ -1,18 +1,28 @@
 package com.needle.rest;
 
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
-import org.quartz.SchedulerException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.needle.dtos.email.EmailRequest;
 import com.needle.services.EmailSchedulerService;
+import com.needle.services.IdempotencyService;
+import com.needle.utils.JsonArrayReader;
 import com.needle.dtos.email.BaseResponse;
+import com.needle.dtos.email.BatchScheduleResponse;
 
 @RestController
 @RequestMapping("emails")
@@ -20,16 +30,45 @@ public class EmailSchedulerController {
 	@Autowired
 	private EmailSchedulerService emailSchedulerService;
 
+	@Autowired
+	private IdempotencyService idempotencyService;
+
+	@Autowired
+	private ScheduleExecutor scheduleExecutor;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
 	/**
-	 * Schedule an email job
+	 * Schedule an email job, once per idempotency key when one is given
 	 * 
+	 * @param idempotencyKey
 	 * @param request
 	 * @return
-	 * @throws SchedulerException
 	 */
 	@PostMapping("schedule")
-	public ResponseEntity<BaseResponse> schedule(@Valid @RequestBody EmailRequest request)
-			throws SchedulerException {
-		return ResponseEntity.ok(emailSchedulerService.schedule(request));
+	public CompletableFuture<ResponseEntity<BaseResponse>> schedule(
+			@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+			@Valid @RequestBody EmailRequest request) {
+		String key = null != idempotencyKey ? idempotencyKey : request.getIdempotencyKey();
+
+		return scheduleExecutor.submit(() -> ResponseEntity
+				.ok(idempotencyService.schedule(key, () -> emailSchedulerService.schedule(request))));
+	}
+
+	/**
+	 * Schedule a batch of email jobs. The body is a JSON array of email requests
+	 * which is read as a stream instead of being bound in one go.
+	 * 
+	 * @param request
+	 * @return
+	 * @throws IOException
+	 */
+	@PostMapping(path = "schedule/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<BatchScheduleResponse> scheduleBatch(HttpServletRequest request) throws IOException {
+		try (JsonParser parser = objectMapper.getFactory().createParser(request.getInputStream())) {
+			return ResponseEntity.ok(emailSchedulerService
+					.scheduleBatch(new JsonArrayReader<>(parser, objectMapper, EmailRequest.class)));
+		}
 	}
 }
@@ -0,0 +1,42 @@
+package com.needle.rest;
+
+import javax.validation.Valid;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.needle.dtos.email.BaseResponse;
+import com.needle.dtos.email.EmailTemplateRequest;
+import com.needle.services.EmailTemplateService;
+
+@RestController
+@RequestMapping("templates")
+public class EmailTemplateController {
+	@Autowired
+	private EmailTemplateService emailTemplateService;
+
+	/**
+	 * Create or replace an email template
+	 * 
+	 * @param templateId
+	 * @param request
+	 * @return
+	 */
+	@PutMapping("{templateId}")
+	public ResponseEntity<BaseResponse> save(@PathVariable(name = "templateId") String templateId,
+			@Valid @RequestBody EmailTemplateRequest request) {
+		emailTemplateService.save(templateId, request.getSubject(), request.getBody());
+
+		// @formatter:off
+		return ResponseEntity.ok(BaseResponse.builder()
+				.success(true)
+				.message("Template saved")
+				.build());
+		// @formatter:on
+	}
+}
@@ -1,10 +1,10 @@
 package com.needle.rest;
 
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import javax.validation.Valid;
 
-import org.quartz.SchedulerException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -24,16 +24,18 @@ public class MessageSchedulerController {
 	@Autowired
 	private MessageSchedulerService schedulerService;
 
+	@Autowired
+	private ScheduleExecutor scheduleExecutor;
+
 	/**
 	 * Schedule a message job
 	 * 
 	 * @param request
 	 * @return
-	 * @throws SchedulerException
 	 */
 	@PostMapping("schedule")
-	public ResponseEntity<BaseResponse> schedule(@Valid @RequestBody MessageRequest request) throws SchedulerException {
-		return ResponseEntity.ok(schedulerService.schedule(request));
+	public CompletableFuture<ResponseEntity<BaseResponse>> schedule(@Valid @RequestBody MessageRequest request) {
+		return scheduleExecutor.submit(() -> ResponseEntity.ok(schedulerService.schedule(request)));
 	}
 
 	/**
@@ -41,11 +43,10 @@ public class MessageSchedulerController {
 	 * 
 	 * @param messageId
 	 * @return
-	 * @throws SchedulerException
 	 */
 	@DeleteMapping(path = "schedule/{messageId}")
-	public ResponseEntity<BaseResponse> unschedule(@PathVariable(name = "messageId") UUID messageId)
-			throws SchedulerException {
-		return ResponseEntity.ok(schedulerService.unschedule(messageId));
+	public CompletableFuture<ResponseEntity<BaseResponse>> unschedule(
+			@PathVariable(name = "messageId") UUID messageId) {
+		return scheduleExecutor.submit(() -> ResponseEntity.ok(schedulerService.unschedule(messageId)));
 	}
 }
@@ -0,0 +1,69 @@
+package com.needle.rest;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.needle.dtos.email.BaseResponse;
+
+@RestControllerAdvice
+public class RestExceptionHandler {
+	/**
+	 * Overloaded, the client retries after the given delay
+	 * 
+	 * @param e
+	 * @return
+	 */
+	@ExceptionHandler(TooManyRequestsException.class)
+	public ResponseEntity<BaseResponse> tooManyRequests(TooManyRequestsException e) {
+		// @formatter:off
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+				.body(BaseResponse.builder()
+						.success(false)
+						.message(e.getMessage())
+						.build());
+		// @formatter:on
+	}
+
+	/**
+	 * Same request still in flight, the client retries once it's done
+	 * 
+	 * @param e
+	 * @return
+	 */
+	@ExceptionHandler(ConflictException.class)
+	public ResponseEntity<BaseResponse> conflict(ConflictException e) {
+		// @formatter:off
+		return ResponseEntity.status(HttpStatus.CONFLICT)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+				.body(BaseResponse.builder()
+						.success(false)
+						.message(e.getMessage())
+						.build());
+		// @formatter:on
+	}
+
+	/**
+	 * Body read by hand, e.g. the batch array, that isn't JSON or not of the
+	 * expected shape
+	 * 
+	 * @param e
+	 * @return
+	 */
+	@ExceptionHandler({ JsonParseException.class, MismatchedInputException.class })
+	public ResponseEntity<BaseResponse> unreadableBody(JsonProcessingException e) {
+		// @formatter:off
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+				.body(BaseResponse.builder()
+						.success(false)
+						.message(e.getOriginalMessage())
+						.build());
+		// @formatter:on
+	}
+}
@@ -0,0 +1,106 @@
+package com.needle.rest;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import com.needle.utils.CommonConstants;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded executor the schedule endpoints run on in async mode. The request
+ * threads are released while the Quartz JDBC calls run, at most as many at a
+ * time as there are threads so the connection pool isn't queued on. A request
+ * finding the queue full is rejected right away instead of waiting for a
+ * connection.
+ */
+@Slf4j
+@Component
+public class ScheduleExecutor {
+	private final ScheduleExecutorProperties properties;
+	private final MeterRegistry meterRegistry;
+
+	private ThreadPoolExecutor executor;
+
+	@Autowired
+	public ScheduleExecutor(ScheduleExecutorProperties properties, MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.meterRegistry = meterRegistry;
+	}
+
+	@PostConstruct
+	public void start() {
+		if (!properties.isAsync()) {
+			return;
+		}
+
+		executor = new ThreadPoolExecutor(properties.getThreads(), properties.getThreads(), 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(properties.getQueueCapacity()), new CustomizableThreadFactory("schedule-"),
+				new ThreadPoolExecutor.AbortPolicy());
+
+		meterRegistry.gauge(CommonConstants.METRICS.REST_QUEUED, executor, e -> e.getQueue().size());
+
+		log.info("Schedule requests run on {} threads with {} queued at most", properties.getThreads(),
+				properties.getQueueCapacity());
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (null != executor) {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Run a schedule request, on the executor in async mode and on the calling
+	 * thread otherwise
+	 * 
+	 * @param <T>
+	 * @param task
+	 * @return completed with the result of the task
+	 * @throws TooManyRequestsException when the executor is full
+	 */
+	public <T> CompletableFuture<T> submit(Callable<T> task) {
+		if (null == executor) {
+			return run(task);
+		}
+
+		CompletableFuture<T> result = new CompletableFuture<>();
+
+		try {
+			executor.execute(() -> complete(result, task));
+		} catch (RejectedExecutionException e) {
+			meterRegistry.counter(CommonConstants.METRICS.REST_REJECTED).increment();
+			throw new TooManyRequestsException("Too many schedule requests, retry later",
+					properties.getRetryAfterSeconds());
+		}
+
+		return result;
+	}
+
+	private static <T> CompletableFuture<T> run(Callable<T> task) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		complete(result, task);
+		return result;
+	}
+
+	private static <T> void complete(CompletableFuture<T> result, Callable<T> task) {
+		try {
+			result.complete(task.call());
+		} catch (Exception e) {
+			result.completeExceptionally(e);
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package com.needle.rest;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "scheduler.rest")
+public class ScheduleExecutorProperties {
+	/* Schedule requests run on the executor instead of the request threads */
+	private boolean async = false;
+	/* Below the connection pool size, the Quartz threads need connections too */
+	private int threads = 6;
+	/* Requests waiting for a thread, the next ones are rejected right away */
+	private int queueCapacity = 200;
+	private long retryAfterSeconds = 1;
+}
@@ -0,0 +1,19 @@
+package com.needle.rest;
+
+import lombok.Getter;
+
+/**
+ * The request can't be taken now, answered with a 429 telling the client when
+ * to retry
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+	private static final long serialVersionUID = 1L;
+
+	private final long retryAfterSeconds;
+
+	public TooManyRequestsException(String message, long retryAfterSeconds) {
+		super(message);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+}
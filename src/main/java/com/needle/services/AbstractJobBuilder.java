@@ -1,7 +1,14 @@
 package com.needle.services;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.quartz.CronScheduleBuilder;
@@ -14,6 +21,7 @@ import org.quartz.JobKey;
 import org.quartz.JobListener;
 import org.quartz.Matcher;
 import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
 import org.quartz.Trigger;
 import org.quartz.Trigger.TriggerState;
 import org.quartz.TriggerBuilder;
@@ -21,10 +29,19 @@ import org.quartz.TriggerKey;
 import org.quartz.TriggerListener;
 import org.quartz.impl.matchers.GroupMatcher;
 import org.quartz.impl.matchers.KeyMatcher;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.CollectionUtils;
 
+import com.needle.sharding.SchedulerShards;
+import com.needle.utils.CommonConstants;
 import com.needle.utils.DateTimeUtils;
+import com.needle.utils.JobBuilderUtils;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 
@@ -33,11 +50,36 @@ public abstract class AbstractJobBuilder {
 	private Scheduler scheduler = null;
 
 	private static final String JOB_NAME_PREFIX = "JOB_"; // Task name prefix
+
+	private static final int DEFAULT_BATCH_SIZE = 500; // Jobs stored per job store transaction
+
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	private MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+	private SchedulerShards schedulerShards = null;
 	
 	protected AbstractJobBuilder(Scheduler scheduler) {
 		this.setScheduler(scheduler);
 	}
 
+	/**
+	 * Number of jobs handed to the scheduler in a single call while adding jobs
+	 * in bulk
+	 * 
+	 * @param batchSize
+	 */
+	protected void setBatchSize(int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size should be at least 1");
+		}
+		this.batchSize = batchSize;
+	}
+
+	protected int getBatchSize() {
+		return batchSize;
+	}
+
 	/**
 	 * This needs to be called by the class extending this class
 	 * 
@@ -47,6 +89,104 @@ public abstract class AbstractJobBuilder {
 		this.scheduler = scheduler;
 	}
 
+	/**
+	 * Registry the scheduling timers are recorded in
+	 * 
+	 * @param meterRegistry
+	 */
+	@Autowired(required = false)
+	protected void setMeterRegistry(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * Shards the jobs are routed to, all the jobs go to the scheduler otherwise
+	 * 
+	 * @param schedulerShards
+	 */
+	@Autowired(required = false)
+	protected void setSchedulerShards(SchedulerShards schedulerShards) {
+		this.schedulerShards = schedulerShards;
+	}
+
+	/**
+	 * Scheduler a job and its trigger are stored in
+	 * 
+	 * @param name
+	 * @param priority
+	 * @return
+	 */
+	private Scheduler schedulerFor(String name, int priority) {
+		if (null == schedulerShards) {
+			return scheduler;
+		}
+		return schedulerShards.schedulerFor(routingKey(name), priority);
+	}
+
+	/**
+	 * Scheduler holding an existing job, its priority isn't known so the urgent
+	 * lane is checked when it's not in its shard, then the unsharded scheduler
+	 * for the jobs stored before sharding was enabled
+	 * 
+	 * @param jobKey
+	 * @return
+	 * @throws SchedulerException
+	 */
+	private Scheduler schedulerHolding(JobKey jobKey) throws SchedulerException {
+		if (null == schedulerShards) {
+			return scheduler;
+		}
+
+		Scheduler shard = schedulerShards.shardFor(routingKey(jobKey.getName()));
+
+		if (shard.checkExists(jobKey)) {
+			return shard;
+		}
+
+		for (Scheduler other : Arrays.asList(schedulerShards.getUrgentLane(), schedulerShards.getUnsharded())) {
+			if (null != other && other.checkExists(jobKey)) {
+				return other;
+			}
+		}
+
+		return shard;
+	}
+
+	private Scheduler schedulerHolding(TriggerKey triggerKey) throws SchedulerException {
+		if (null == schedulerShards) {
+			return scheduler;
+		}
+
+		Scheduler shard = schedulerShards.shardFor(routingKey(triggerKey.getName()));
+
+		if (shard.checkExists(triggerKey)) {
+			return shard;
+		}
+
+		for (Scheduler other : Arrays.asList(schedulerShards.getUrgentLane(), schedulerShards.getUnsharded())) {
+			if (null != other && other.checkExists(triggerKey)) {
+				return other;
+			}
+		}
+
+		return shard;
+	}
+
+	/**
+	 * The job name is prefixed and the trigger name isn't, both are routed
+	 * without the prefix
+	 * 
+	 * @param name
+	 * @return
+	 */
+	private static String routingKey(String name) {
+		return name.startsWith(JOB_NAME_PREFIX) ? name.substring(JOB_NAME_PREFIX.length()) : name;
+	}
+
+	private List<Scheduler> schedulers() {
+		return null == schedulerShards ? Collections.singletonList(scheduler) : schedulerShards.getSchedulers();
+	}
+
 	/**
 	 * Check if the scheduler is initialized
 	 */
@@ -65,20 +205,86 @@ public abstract class AbstractJobBuilder {
 	 * @param dataMap
 	 * @return
 	 */
-	@SneakyThrows
 	protected JobDetail addJob(Class<? extends Job> jobClass, String jobName, Date triggerStartTime,
 			JobDataMap dataMap) {
+		return addJob(jobClass, jobName, triggerStartTime, dataMap, Trigger.DEFAULT_PRIORITY);
+	}
+
+	/**
+	 * Execute task after specified time (only once), ahead of the tasks due at
+	 * the same time with a lower priority
+	 * 
+	 * @param jobClass
+	 * @param jobName
+	 * @param triggerStartTime
+	 * @param dataMap
+	 * @param priority         trigger priority
+	 * @return
+	 */
+	@SneakyThrows
+	protected JobDetail addJob(Class<? extends Job> jobClass, String jobName, Date triggerStartTime,
+			JobDataMap dataMap, int priority) {
 		// use job Class name as group name
 		String groupName = jobClass.getSimpleName();
 
 		// Create task trigger
 		Trigger trigger = TriggerBuilder.newTrigger().withIdentity(jobName, groupName).startAt(triggerStartTime)
-				.build();
+				.withPriority(priority).build();
 
 		// Binding triggers and tasks into the scheduler
 		return this.scheduleJob(jobClass, groupName, jobName, dataMap, trigger);
 	}
 
+	/**
+	 * Execute a list of tasks after their specified times (only once). The jobs
+	 * are stored in chunks of {@link #getBatchSize()}, each chunk being a single
+	 * job store transaction instead of one transaction per job.
+	 * 
+	 * @param jobClass
+	 * @param jobs
+	 * @return
+	 */
+	@SneakyThrows
+	protected List<JobDetail> addJobs(Class<? extends Job> jobClass, List<BatchJob> jobs) {
+		failOnNullScheduler();
+
+		// use job Class name as group name
+		String groupName = jobClass.getSimpleName();
+
+		List<JobDetail> jobDetails = new ArrayList<>(jobs.size());
+		// A chunk per shard, each one stored in its own transaction
+		Map<Scheduler, Map<JobDetail, Set<? extends Trigger>>> chunks = new HashMap<>();
+
+		for (BatchJob job : jobs) {
+			// Create task trigger
+			Trigger trigger = TriggerBuilder.newTrigger().withIdentity(job.getJobName(), groupName)
+					.startAt(job.getTriggerStartTime()).withPriority(job.getPriority()).build();
+
+			JobDetail jobDetail = buildJobDetail(jobClass, groupName, job.getJobName(), job.getDataMap());
+			Scheduler shard = schedulerFor(job.getJobName(), job.getPriority());
+			Map<JobDetail, Set<? extends Trigger>> triggersAndJobs = chunks.computeIfAbsent(shard,
+					s -> new LinkedHashMap<>());
+
+			triggersAndJobs.put(jobDetail, Collections.singleton(trigger));
+			jobDetails.add(jobDetail);
+
+			if (triggersAndJobs.size() >= batchSize) {
+				scheduleChunk(shard, groupName, triggersAndJobs);
+				triggersAndJobs.clear();
+			}
+		}
+
+		for (Map.Entry<Scheduler, Map<JobDetail, Set<? extends Trigger>>> chunk : chunks.entrySet()) {
+			if (!chunk.getValue().isEmpty()) {
+				scheduleChunk(chunk.getKey(), groupName, chunk.getValue());
+			}
+		}
+
+		log.info("Created {} tasks in group: {}", jobDetails.size(), groupName);
+
+		return jobDetails;
+	}
+
 	/**
 	 * Tasks with triggers (executed multiple times)
 	 * 
@@ -103,6 +309,34 @@ public abstract class AbstractJobBuilder {
 		return this.scheduleJob(jobClass, groupName, jobName, dataMap, cronTrigger);
 	}
 
+	/**
+	 * Task with a cron trigger existing once for the whole cluster, rescheduled
+	 * when registered before with another expression
+	 * 
+	 * @param jobClass
+	 * @param jobName
+	 * @param cronExpression
+	 * @param dataMap
+	 */
+	@SneakyThrows
+	protected void registerJobWithCron(Class<? extends Job> jobClass, String jobName, String cronExpression,
+			JobDataMap dataMap) {
+		failOnNullScheduler();
+
+		String groupName = jobClass.getSimpleName();
+
+		CronTrigger cronTrigger = TriggerBuilder.newTrigger().withIdentity(jobName, groupName)
+				.withSchedule(CronScheduleBuilder.cronSchedule(cronExpression)).build();
+		JobDetail jobDetail = buildJobDetail(jobClass, groupName, jobName, dataMap);
+
+		// Left where it was registered, e.g. before sharding was enabled
+		Scheduler holding = schedulerHolding(jobDetail.getKey());
+		Scheduler shard = holding.checkExists(jobDetail.getKey()) ? holding
+				: schedulerFor(jobName, cronTrigger.getPriority());
+
+		JobBuilderUtils.registerRecurring(shard, jobDetail, cronTrigger);
+	}
+
 	/**
 	 * Tasks with triggers and a specified time period (immediate execution)
 	 * 
@@ -146,8 +380,64 @@ public abstract class AbstractJobBuilder {
 			Trigger trigger) {
 		failOnNullScheduler();
 
+		JobDetail jobDetail = buildJobDetail(jobClass, groupName, jobName, dataMap);
+		log.info("Create task with name: {}", jobDetail.getKey().getName());
+
+		Timer.Sample sample = Timer.start(meterRegistry);
+		String outcome = CommonConstants.METRICS.FAILURE;
+
+		try {
+			// Binding triggers and tasks into the scheduler
+			schedulerFor(jobName, trigger.getPriority()).scheduleJob(jobDetail, trigger);
+			outcome = CommonConstants.METRICS.SUCCESS;
+		} finally {
+			sample.stop(scheduleTimer(CommonConstants.METRICS.JOB_SCHEDULE, groupName, outcome));
+		}
+
+		return jobDetail;
+	}
+
+	/**
+	 * Store a chunk of jobs in a single job store transaction
+	 * 
+	 * @param shard
+	 * @param groupName
+	 * @param triggersAndJobs
+	 * @throws SchedulerException
+	 */
+	private void scheduleChunk(Scheduler shard, String groupName,
+			Map<JobDetail, Set<? extends Trigger>> triggersAndJobs) throws SchedulerException {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		String outcome = CommonConstants.METRICS.FAILURE;
+
+		try {
+			shard.scheduleJobs(triggersAndJobs, false);
+			outcome = CommonConstants.METRICS.SUCCESS;
+		} finally {
+			sample.stop(scheduleTimer(CommonConstants.METRICS.JOB_SCHEDULE_BATCH, groupName, outcome));
+		}
+	}
+
+	private Timer scheduleTimer(String name, String groupName, String outcome) {
+		// @formatter:off
+		return meterRegistry.timer(name,
+				CommonConstants.METRICS.TAG_GROUP, groupName,
+				CommonConstants.METRICS.TAG_OUTCOME, outcome);
+		// @formatter:on
+	}
+
+	/**
+	 * Build the job detail by prefixing the job name
+	 * 
+	 * @param jobClass
+	 * @param groupName
+	 * @param jobName
+	 * @param dataMap
+	 * @return
+	 */
+	private JobDetail buildJobDetail(Class<? extends Job> jobClass, String groupName, String jobName,
+			JobDataMap dataMap) {
 		jobName = String.format("%s%s", JOB_NAME_PREFIX, jobName);
-		log.info("Create task with name: {}", jobName);
 
 		final String storeDurablyKey = "storeDurably";
 
@@ -160,17 +450,12 @@ public abstract class AbstractJobBuilder {
 
 		// @formatter:off
 		// Create task
-		JobDetail jobDetail = JobBuilder.newJob(jobClass)
+		return JobBuilder.newJob(jobClass)
 				.withIdentity(jobName, groupName)
 				.setJobData(dataMap)
 				.storeDurably(storeDurably)
 				.build();
 		// @formatter:on
-
-		// Binding triggers and tasks into the scheduler
-		scheduler.scheduleJob(jobDetail, trigger);
-
-		return jobDetail;
 	}
 
 	/**
@@ -185,13 +470,14 @@ public abstract class AbstractJobBuilder {
 		failOnNullScheduler();
 
 		JobKey jobKey = new JobKey(name, group);
-		JobDetail jobDetail = scheduler.getJobDetail(jobKey);
+		Scheduler shard = schedulerHolding(jobKey);
+		JobDetail jobDetail = shard.getJobDetail(jobKey);
 
 		if (jobDetail == null) {
 			throw new RuntimeException("Task does not exist");
 		}
 
-		return scheduler.deleteJob(jobKey);
+		return shard.deleteJob(jobKey);
 	}
 
 	/**
@@ -208,7 +494,8 @@ public abstract class AbstractJobBuilder {
 
 		Date date = null;
 		TriggerKey triggerKey = new TriggerKey(name, group);
-		CronTrigger cronTrigger = (CronTrigger) scheduler.getTrigger(triggerKey);
+		Scheduler shard = schedulerHolding(triggerKey);
+		CronTrigger cronTrigger = (CronTrigger) shard.getTrigger(triggerKey);
 
 		String oldTime = cronTrigger.getCronExpression();
 
@@ -216,12 +503,30 @@ public abstract class AbstractJobBuilder {
 			CronScheduleBuilder cronScheduleBuilder = CronScheduleBuilder.cronSchedule(time);
 			CronTrigger trigger = TriggerBuilder.newTrigger().withIdentity(name, group)
 					.withSchedule(cronScheduleBuilder).build();
-			date = scheduler.rescheduleJob(triggerKey, trigger);
+			date = shard.rescheduleJob(triggerKey, trigger);
 		}
 
 		return date != null;
 	}
 
+	/**
+	 * Check if a job was already added
+	 * 
+	 * @param name
+	 * @param jobClass
+	 * @return
+	 */
+	@SneakyThrows
+	protected boolean jobExists(String name, Class<? extends Job> jobClass) {
+		failOnNullScheduler();
+
+		name = String.format("%s%s", JOB_NAME_PREFIX, name);
+
+		JobKey jobKey = new JobKey(name, jobClass.getSimpleName());
+
+		return schedulerHolding(jobKey).checkExists(jobKey);
+	}
+
 	/**
 	 * Get Job status
 	 * 
@@ -234,7 +539,7 @@ public abstract class AbstractJobBuilder {
 		failOnNullScheduler();
 
 		TriggerKey triggerKey = TriggerKey.triggerKey(name, group);
-		return scheduler.getTriggerState(triggerKey);
+		return schedulerHolding(triggerKey).getTriggerState(triggerKey);
 	}
 
 	/**
@@ -246,7 +551,7 @@ public abstract class AbstractJobBuilder {
 	@SneakyThrows
 	protected TriggerState getJobState(TriggerKey triggerKey) {
 		failOnNullScheduler();
-		return scheduler.getTriggerState(triggerKey);
+		return schedulerHolding(triggerKey).getTriggerState(triggerKey);
 	}
 
 	/**
@@ -255,7 +560,10 @@ public abstract class AbstractJobBuilder {
 	@SneakyThrows
 	protected void pauseAllJob() {
 		failOnNullScheduler();
-		scheduler.pauseAll();
+
+		for (Scheduler shard : schedulers()) {
+			shard.pauseAll();
+		}
 	}
 
 	/**
@@ -269,13 +577,14 @@ public abstract class AbstractJobBuilder {
 		failOnNullScheduler();
 
 		JobKey jobKey = new JobKey(name, group);
-		JobDetail jobDetail = scheduler.getJobDetail(jobKey);
+		Scheduler shard = schedulerHolding(jobKey);
+		JobDetail jobDetail = shard.getJobDetail(jobKey);
 
 		if (jobDetail == null) {
 			throw new RuntimeException("Task does not exist");
 		}
 
-		scheduler.pauseJob(jobKey);
+		shard.pauseJob(jobKey);
 	}
 
 	/**
@@ -284,7 +593,10 @@ public abstract class AbstractJobBuilder {
 	@SneakyThrows
 	protected void resumeAllJob() {
 		failOnNullScheduler();
-		scheduler.resumeAll();
+
+		for (Scheduler shard : schedulers()) {
+			shard.resumeAll();
+		}
 	}
 
 	/**
@@ -298,11 +610,12 @@ public abstract class AbstractJobBuilder {
 		failOnNullScheduler();
 
 		JobKey jobKey = new JobKey(name, group);
-		JobDetail jobDetail = scheduler.getJobDetail(jobKey);
+		Scheduler shard = schedulerHolding(jobKey);
+		JobDetail jobDetail = shard.getJobDetail(jobKey);
 		if (jobDetail == null) {
 			throw new RuntimeException("Task does not exist");
 		}
-		scheduler.resumeJob(jobKey);
+		shard.resumeJob(jobKey);
 	}
 
 	/**
@@ -314,7 +627,9 @@ public abstract class AbstractJobBuilder {
 	protected void addJobListener(JobListener listener) {
 		failOnNullScheduler();
 
-		scheduler.getListenerManager().addJobListener(listener);
+		for (Scheduler shard : schedulers()) {
+			shard.getListenerManager().addJobListener(listener);
+		}
 	}
 
 	/**
@@ -335,7 +650,9 @@ public abstract class AbstractJobBuilder {
 
 		Matcher<JobKey> matcher = KeyMatcher.keyEquals(jobKey);
 
-		scheduler.getListenerManager().addJobListener(listener, matcher);
+		for (Scheduler shard : schedulers()) {
+			shard.getListenerManager().addJobListener(listener, matcher);
+		}
 	}
 
 	/**
@@ -350,7 +667,10 @@ public abstract class AbstractJobBuilder {
 
 		String group = jobClass.getSimpleName();
 		Matcher<JobKey> matcher = GroupMatcher.groupEquals(group);
-		scheduler.getListenerManager().addJobListener(listener, matcher);
+
+		for (Scheduler shard : schedulers()) {
+			shard.getListenerManager().addJobListener(listener, matcher);
+		}
 	}
 
 	/**
@@ -362,7 +682,27 @@ public abstract class AbstractJobBuilder {
 	protected void addTriggerListener(TriggerListener listener) {
 		failOnNullScheduler();
 
-		scheduler.getListenerManager().addTriggerListener(listener);
+		for (Scheduler shard : schedulers()) {
+			shard.getListenerManager().addTriggerListener(listener);
+		}
+	}
+
+	/**
+	 * Add trigger listener to a Job Group
+	 * 
+	 * @param jobClass
+	 * @param listener
+	 */
+	@SneakyThrows
+	protected void addTriggerListenerByGroup(Class<? extends Job> jobClass, TriggerListener listener) {
+		failOnNullScheduler();
+
+		String group = jobClass.getSimpleName();
+		Matcher<TriggerKey> matcher = GroupMatcher.triggerGroupEquals(group);
+
+		for (Scheduler shard : schedulers()) {
+			shard.getListenerManager().addTriggerListener(listener, matcher);
+		}
 	}
 
 	/**
@@ -377,12 +717,32 @@ public abstract class AbstractJobBuilder {
 
 		String groupName = jobClass.getSimpleName();
 		GroupMatcher<JobKey> matcher = GroupMatcher.jobGroupEquals(groupName);
-		Set<JobKey> jobKeySet = scheduler.getJobKeys(matcher);
+		long count = 0;
+
+		for (Scheduler shard : schedulers()) {
+			Set<JobKey> jobKeySet = shard.getJobKeys(matcher);
 
-		if (!CollectionUtils.isEmpty(jobKeySet)) {
-			return jobKeySet.stream().filter(d -> d.getGroup().equals(groupName)).count();
+			if (!CollectionUtils.isEmpty(jobKeySet)) {
+				count += jobKeySet.stream().filter(d -> d.getGroup().equals(groupName)).count();
+			}
 		}
 
-		return 0;
+		return count;
+	}
+
+	/**
+	 * A single once-only job handed to {@link AbstractJobBuilder#addJobs}
+	 */
+	@Getter
+	@AllArgsConstructor
+	protected static class BatchJob {
+		private final String jobName;
+		private final Date triggerStartTime;
+		private final JobDataMap dataMap;
+		private final int priority;
+
+		public BatchJob(String jobName, Date triggerStartTime, JobDataMap dataMap) {
+			this(jobName, triggerStartTime, dataMap, Trigger.DEFAULT_PRIORITY);
+		}
 	}
 }
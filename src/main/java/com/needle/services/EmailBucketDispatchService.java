@@ -0,0 +1,11 @@
+package com.needle.services;
+
+public interface EmailBucketDispatchService {
+	/**
+	 * Send the pending emails of every bucket up to the given epoch minute
+	 * 
+	 * @param deliveryMinute
+	 * @return number of emails sent
+	 */
+	int dispatch(long deliveryMinute);
+}
@@ -0,0 +1,34 @@
+package com.needle.services;
+
+import java.util.Map;
+
+import com.needle.entities.ScheduledEmailContent;
+
+public interface EmailContentService {
+	/**
+	 * Store a subject and body once whatever the number of emails using them,
+	 * every call counts as one more email referencing the content
+	 * 
+	 * @param subject
+	 * @param body
+	 * @return id of the content, derived from the content itself
+	 */
+	String store(String subject, String body);
+
+	/**
+	 * Drop the references of purged jobs and delete the contents no job uses
+	 * anymore, in the transaction of the caller
+	 * 
+	 * @param references number of references to drop by content id
+	 */
+	void release(Map<String, Integer> references);
+
+	/**
+	 * Content of an id returned by {@link #store}, served from memory when it was
+	 * used recently
+	 * 
+	 * @param contentId
+	 * @return
+	 */
+	ScheduledEmailContent fetch(String contentId);
+}
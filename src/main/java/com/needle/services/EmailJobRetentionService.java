@@ -0,0 +1,27 @@
+package com.needle.services;
+
+import java.util.List;
+
+import org.quartz.SchedulerException;
+
+public interface EmailJobRetentionService {
+	/**
+	 * Schedulers the email jobs are stored in, one per shard
+	 * 
+	 * @return
+	 */
+	List<String> getSchedulerNames();
+
+	/**
+	 * Purge the executed email jobs of a scheduler older than the retention, a
+	 * bounded number of batches per call. Nothing is purged while the retention
+	 * is disabled.
+	 * 
+	 * @param schedulerName
+	 * @param after         name of the last job scanned by the previous call, null
+	 *                      or empty to start from the beginning
+	 * @return name of the last job scanned, empty once every job was scanned
+	 * @throws SchedulerException
+	 */
+	String purge(String schedulerName, String after) throws SchedulerException;
+}
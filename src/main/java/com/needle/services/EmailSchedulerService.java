@@ -1,9 +1,13 @@
 package com.needle.services;
 
+import java.util.Iterator;
+
 import org.quartz.SchedulerException;
 
 import com.needle.dtos.email.EmailRequest;
 import com.needle.dtos.email.BaseResponse;
+import com.needle.dtos.email.BatchItem;
+import com.needle.dtos.email.BatchScheduleResponse;
 
 public interface EmailSchedulerService {
 	/**
@@ -14,4 +18,13 @@ public interface EmailSchedulerService {
 	 * @throws SchedulerException
 	 */
 	BaseResponse schedule(EmailRequest request) throws SchedulerException;
+
+	/**
+	 * Schedule a batch of email jobs. Invalid items are rejected without
+	 * stopping the rest of the batch.
+	 * 
+	 * @param requests
+	 * @return
+	 */
+	BatchScheduleResponse scheduleBatch(Iterator<BatchItem<EmailRequest>> requests);
 }
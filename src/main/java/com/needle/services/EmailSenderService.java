@@ -0,0 +1,27 @@
+package com.needle.services;
+
+import java.util.List;
+
+import com.needle.mail.DeliveryResult;
+import com.needle.mail.MailMessage;
+
+public interface EmailSenderService {
+	/**
+	 * Handle email sending logic
+	 * 
+	 * @param from
+	 * @param to
+	 * @param subject
+	 * @param body
+	 * @return
+	 */
+	DeliveryResult send(String from, String to, String subject, String body);
+
+	/**
+	 * Send several emails, sharing connections between them
+	 * 
+	 * @param messages
+	 * @return one result per message, in order
+	 */
+	List<DeliveryResult> sendAll(List<MailMessage> messages);
+}
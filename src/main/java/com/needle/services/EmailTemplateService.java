@@ -0,0 +1,75 @@
+package com.needle.services;
+
+import java.util.Map;
+import java.util.function.Function;
+
+import com.needle.jobs.payload.EmailPayload;
+
+public interface EmailTemplateService {
+	/* Variables are stored in the job data under this prefix */
+	String VARIABLE_KEY_PREFIX = "var.";
+
+	/**
+	 * Create a template or save a new version of it. The emails already scheduled
+	 * keep the version they were scheduled with.
+	 * 
+	 * @param templateId
+	 * @param subject
+	 * @param body
+	 */
+	void save(String templateId, String subject, String body);
+
+	/**
+	 * Latest version of a template, the one new emails are scheduled with
+	 * 
+	 * @param templateId
+	 * @return null for a template saved before the templates were versioned
+	 */
+	Long currentVersion(String templateId);
+
+	/**
+	 * Check if a template exists
+	 * 
+	 * @param templateId
+	 * @return
+	 */
+	boolean exists(String templateId);
+
+	/**
+	 * Render the subject and body of a version of a template for one recipient
+	 * 
+	 * @param email
+	 * @param templateId
+	 * @param version    latest version when null
+	 * @param variables  value of a variable by its name prefixed with
+	 *                   {@link #VARIABLE_KEY_PREFIX}
+	 * @return
+	 */
+	EmailPayload render(String email, String templateId, Long version, Function<String, String> variables);
+
+	/**
+	 * Render the latest version of a template for one recipient
+	 * 
+	 * @param email
+	 * @param templateId
+	 * @param variables  value of a variable by its name prefixed with
+	 *                   {@link #VARIABLE_KEY_PREFIX}
+	 * @return
+	 */
+	default EmailPayload render(String email, String templateId, Function<String, String> variables) {
+		return render(email, templateId, null, variables);
+	}
+
+	/**
+	 * Render a template with the variables of a request
+	 * 
+	 * @param email
+	 * @param templateId
+	 * @param variables  value of a variable by its name
+	 * @return
+	 */
+	default EmailPayload render(String email, String templateId, Map<String, String> variables) {
+		return render(email, templateId,
+				key -> null == variables ? null : variables.get(key.substring(VARIABLE_KEY_PREFIX.length())));
+	}
+}
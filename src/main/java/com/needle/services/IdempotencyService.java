@@ -0,0 +1,33 @@
+package com.needle.services;
+
+import org.quartz.SchedulerException;
+
+import com.needle.dtos.email.BaseResponse;
+import com.needle.rest.ConflictException;
+
+public interface IdempotencyService {
+	/**
+	 * Schedule once per idempotency key. A key seen before gets the response of
+	 * its first request back without scheduling anything.
+	 * 
+	 * @param key        scheduled every time when null
+	 * @param scheduling
+	 * @return
+	 * @throws SchedulerException
+	 * @throws ConflictException  while the first request of the key is still
+	 *                            being scheduled
+	 */
+	BaseResponse schedule(String key, Scheduling scheduling) throws SchedulerException;
+
+	/**
+	 * Forget the keys older than the retention of the keys
+	 * 
+	 * @return number of keys removed
+	 */
+	int purgeExpired();
+
+	@FunctionalInterface
+	interface Scheduling {
+		BaseResponse schedule() throws SchedulerException;
+	}
+}
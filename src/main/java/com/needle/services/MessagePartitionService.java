@@ -0,0 +1,29 @@
+package com.needle.services;
+
+import java.util.List;
+
+public interface MessagePartitionService {
+	/**
+	 * Whether the partitions are maintained by this node, read by the recurring
+	 * job as it can be fired by any node
+	 * 
+	 * @return
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Create the monthly partitions of the messages table missing up to the
+	 * configured number of months ahead
+	 * 
+	 * @return names of the partitions created
+	 */
+	List<String> createPartitions();
+
+	/**
+	 * Detach the partitions past the retention that have no message left to be
+	 * made visible, dropping them when configured
+	 * 
+	 * @return names of the partitions detached
+	 */
+	List<String> detachPartitions();
+}
@@ -0,0 +1,10 @@
+package com.needle.services;
+
+public interface MessageVisibilitySweeperService {
+	/**
+	 * Make every due message visible in bounded batches
+	 * 
+	 * @return number of messages made visible
+	 */
+	int sweep();
+}
@@ -0,0 +1,204 @@
+package com.needle.services.impl;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+
+import org.quartz.JobDataMap;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.needle.dtos.email.BaseResponse;
+import com.needle.dtos.email.BatchItem;
+import com.needle.dtos.email.BatchScheduleResponse;
+import com.needle.dtos.email.EmailRequest;
+import com.needle.entities.ScheduledEmail;
+import com.needle.jobs.EmailBucketDispatchJob;
+import com.needle.jobs.listeners.EmailJobListener;
+import com.needle.jobs.payload.EmailPayload;
+import com.needle.repositories.ScheduledEmailRepository;
+import com.needle.services.AbstractJobBuilder;
+import com.needle.services.EmailSchedulerService;
+import com.needle.services.EmailTemplateService;
+import com.needle.utils.CommonConstants;
+import com.needle.utils.DateTimeUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stores the emails in the scheduled_emails table grouped by delivery minute.
+ * A single recurring job dispatches the buckets as they fall due instead of one
+ * Quartz job per email.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "scheduler.email.mode", havingValue = "bucketed")
+public class BucketedEmailSchedulerServiceImpl extends AbstractJobBuilder implements EmailSchedulerService {
+	private static final String BUCKET_JOB_NAME = "EMAIL_BUCKET_DISPATCH";
+
+	private final ScheduledEmailRepository scheduledEmailRepository;
+	private final EmailRequestValidator validator;
+	private final EmailTemplateService emailTemplateService;
+	private final EmailJobListener emailJobListener;
+	private final String bucketCron;
+
+	@Autowired
+	public BucketedEmailSchedulerServiceImpl(Scheduler scheduler, ScheduledEmailRepository scheduledEmailRepository,
+			EmailRequestValidator validator, EmailTemplateService emailTemplateService,
+			EmailJobListener emailJobListener,
+			@Value("${scheduler.batch.chunk-size:500}") int batchSize,
+			@Value("${scheduler.email.bucket-cron:0 * * * * ?}") String bucketCron) {
+		super(scheduler);
+		this.scheduledEmailRepository = scheduledEmailRepository;
+		this.validator = validator;
+		this.emailTemplateService = emailTemplateService;
+		this.emailJobListener = emailJobListener;
+		this.bucketCron = bucketCron;
+		this.setBatchSize(batchSize);
+	}
+
+	/**
+	 * Same listener as the email jobs in job mode, registered before the
+	 * scheduler starts
+	 */
+	@PostConstruct
+	public void registerJobListener() {
+		addJobListenerByGroup(EmailBucketDispatchJob.class, emailJobListener);
+	}
+
+	/**
+	 * Register the recurring dispatch job once for the whole cluster
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void registerBucketJob() {
+		registerJobWithCron(EmailBucketDispatchJob.class, BUCKET_JOB_NAME, bucketCron, new JobDataMap());
+	}
+
+	@Override
+	public BaseResponse schedule(EmailRequest request) throws SchedulerException {
+		log.info(CommonConstants.LOGS.ENTRY, "schedule", this.getClass().getName());
+		// Check the delivery time as per the time zone and the template
+		String error = validator.validate(request);
+
+		if (null != error) {
+			// @formatter:off
+			return BaseResponse.builder()
+					.success(false)
+					.message(error)
+					.build();
+			// @formatter:on
+		}
+
+		ScheduledEmail scheduledEmail = scheduledEmailRepository.save(buildScheduledEmail(request));
+
+		log.info(CommonConstants.LOGS.EXIT, "schedule", this.getClass().getName());
+
+		// @formatter:off
+        return BaseResponse.builder()
+        		.success(true)
+        		.jobId(scheduledEmail.getId().toString())
+        		.jobGroup(EmailBucketDispatchJob.class.getSimpleName())
+        		.message("Email Scheduled Successfully!")
+        		.build();
+        // @formatter:on
+	}
+
+	@Override
+	public BatchScheduleResponse scheduleBatch(Iterator<BatchItem<EmailRequest>> requests) {
+		log.info(CommonConstants.LOGS.ENTRY, "scheduleBatch", this.getClass().getName());
+
+		BatchScheduleResponse response = new BatchScheduleResponse();
+
+		List<ScheduledEmail> chunk = new ArrayList<>(getBatchSize());
+		List<Integer> chunkIndexes = new ArrayList<>(getBatchSize());
+
+		while (requests.hasNext()) {
+			BatchItem<EmailRequest> item = requests.next();
+
+			String error = item.isRejected() ? item.getError() : validator.validate(item.getRequest());
+
+			if (null != error) {
+				response.reject(item.getIndex(), error);
+				continue;
+			}
+
+			chunk.add(buildScheduledEmail(item.getRequest()));
+			chunkIndexes.add(item.getIndex());
+
+			if (chunk.size() >= getBatchSize()) {
+				flushBatch(chunk, chunkIndexes, response);
+			}
+		}
+
+		flushBatch(chunk, chunkIndexes, response);
+
+		log.info("Batch scheduled, accepted: {}, rejected: {}", response.getAccepted(), response.getRejected());
+		log.info(CommonConstants.LOGS.EXIT, "scheduleBatch", this.getClass().getName());
+
+		return response;
+	}
+
+	/**
+	 * Store the pending chunk of emails, a failure rejects only the items of this
+	 * chunk
+	 * 
+	 * @param chunk
+	 * @param chunkIndexes
+	 * @param response
+	 */
+	private void flushBatch(List<ScheduledEmail> chunk, List<Integer> chunkIndexes, BatchScheduleResponse response) {
+		if (chunk.isEmpty()) {
+			return;
+		}
+
+		try {
+			scheduledEmailRepository.saveAll(chunk);
+			response.accept(chunk.size());
+		} catch (Exception e) {
+			log.error("Unable to schedule a chunk of {} emails", chunk.size(), e);
+			chunkIndexes.forEach(index -> response.reject(index, "Unable to schedule the email"));
+		}
+
+		chunk.clear();
+		chunkIndexes.clear();
+	}
+
+	/**
+	 * Build the row of an email along with its bucket. Template emails are
+	 * rendered here since the row holds the final subject and body.
+	 * 
+	 * @param request
+	 * @return
+	 */
+	private ScheduledEmail buildScheduledEmail(EmailRequest request) {
+		Instant deliverAt = ZonedDateTime.of(request.getDeliverOn(), request.getTimeZone()).toInstant();
+
+		ScheduledEmail scheduledEmail = new ScheduledEmail();
+		scheduledEmail.setEmail(request.getEmail());
+		if (null != request.getTemplateId()) {
+			EmailPayload payload = emailTemplateService.render(request.getEmail(), request.getTemplateId(),
+					request.getVariables());
+			scheduledEmail.setSubject(payload.getSubject());
+			scheduledEmail.setBody(payload.getBody());
+		} else {
+			scheduledEmail.setSubject(request.getSubject());
+			scheduledEmail.setBody(request.getBody());
+		}
+		scheduledEmail.setDeliverAt(LocalDateTime.ofInstant(deliverAt, ZoneOffset.UTC));
+		scheduledEmail.setDeliveryMinute(DateTimeUtils.toDeliveryMinute(deliverAt));
+
+		return scheduledEmail;
+	}
+}
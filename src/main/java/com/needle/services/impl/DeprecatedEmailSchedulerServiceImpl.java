@@ -2,6 +2,7 @@ package com.needle.services.impl;
 
 import java.time.ZonedDateTime;
 import java.util.Date;
+import java.util.Iterator;
 
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
@@ -12,6 +13,8 @@ import org.quartz.impl.matchers.KeyMatcher;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import com.needle.dtos.email.BaseResponse;
+import com.needle.dtos.email.BatchItem;
+import com.needle.dtos.email.BatchScheduleResponse;
 import com.needle.dtos.email.EmailRequest;
 import com.needle.jobs.EmaillSchedulerJob;
 import com.needle.jobs.listeners.EmailJobListener;
@@ -72,6 +75,37 @@ public class DeprecatedEmailSchedulerServiceImpl implements EmailSchedulerServic
         // @formatter:on
 	}
 
+	/**
+	 * One job at a time, each in its own job store transaction
+	 */
+	@Override
+	public BatchScheduleResponse scheduleBatch(Iterator<BatchItem<EmailRequest>> requests) {
+		BatchScheduleResponse response = new BatchScheduleResponse();
+
+		while (requests.hasNext()) {
+			BatchItem<EmailRequest> item = requests.next();
+
+			if (item.isRejected()) {
+				response.reject(item.getIndex(), item.getError());
+				continue;
+			}
+
+			try {
+				BaseResponse scheduled = schedule(item.getRequest());
+
+				if (scheduled.isSuccess()) {
+					response.accept(1);
+				} else {
+					response.reject(item.getIndex(), scheduled.getMessage());
+				}
+			} catch (SchedulerException e) {
+				response.reject(item.getIndex(), e.getMessage());
+			}
+		}
+
+		return response;
+	}
+
 	/**
 	 * A scheduled object should have a job detail reference
 	 * 
@@ -0,0 +1,136 @@
+package com.needle.services.impl;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.needle.entities.ScheduledEmail;
+import com.needle.jobs.EmailBucketDispatchJob;
+import com.needle.mail.DeliveryResult;
+import com.needle.mail.MailMessage;
+import com.needle.metrics.LatencyTracker;
+import com.needle.repositories.ScheduledEmailRepository;
+import com.needle.services.EmailBucketDispatchService;
+import com.needle.services.EmailSenderService;
+import com.needle.utils.CommonConstants;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class EmailBucketDispatchServiceImpl implements EmailBucketDispatchService {
+	/* Emails read and handed to the sender at once so that they share a connection */
+	private static final int SEND_BATCH_SIZE = 100;
+	private static final String LATENESS_GROUP = EmailBucketDispatchJob.class.getSimpleName();
+
+	@Autowired
+	private ScheduledEmailRepository scheduledEmailRepository;
+
+	@Autowired
+	private EmailSenderService emailSenderService;
+
+	@Autowired
+	private LatencyTracker latencyTracker;
+
+	/**
+	 * Page through the pending emails with a keyset so that no transaction is held
+	 * open while sending. Every page is marked sent in its own transaction, a crash
+	 * resends at most the page that was in flight.
+	 */
+	@Override
+	public int dispatch(long deliveryMinute) {
+		log.info(CommonConstants.LOGS.ENTRY, "dispatch", this.getClass().getName());
+
+		int sent = 0;
+		List<UUID> sentIds = new ArrayList<>(SEND_BATCH_SIZE);
+
+		// Delivery minutes are epoch minutes, every bucket comes after -1
+		long afterMinute = -1;
+		UUID afterId = new UUID(0, 0);
+
+		List<ScheduledEmail> pending = scheduledEmailRepository.findPendingAfter(deliveryMinute, afterMinute,
+				afterId, PageRequest.of(0, SEND_BATCH_SIZE));
+
+		while (!pending.isEmpty()) {
+			// Failed emails stay pending, the keyset moves past them until the next tick
+			ScheduledEmail last = pending.get(pending.size() - 1);
+			afterMinute = last.getDeliveryMinute();
+			afterId = last.getId();
+
+			boolean lastPage = pending.size() < SEND_BATCH_SIZE;
+
+			send(pending, sentIds);
+			sent += markSent(sentIds);
+
+			if (lastPage) {
+				break;
+			}
+
+			pending = scheduledEmailRepository.findPendingAfter(deliveryMinute, afterMinute, afterId,
+					PageRequest.of(0, SEND_BATCH_SIZE));
+		}
+
+		log.info("Dispatched {} emails up to bucket {}", sent, deliveryMinute);
+		log.info(CommonConstants.LOGS.EXIT, "dispatch", this.getClass().getName());
+
+		return sent;
+	}
+
+	/**
+	 * Send the pending emails and collect the ids of the ones that went out. The
+	 * failed ones are left pending and picked up again on the next tick.
+	 * 
+	 * @param pending
+	 * @param sentIds
+	 */
+	private void send(List<ScheduledEmail> pending, List<UUID> sentIds) {
+		if (pending.isEmpty()) {
+			return;
+		}
+
+		// @formatter:off
+		List<MailMessage> messages = pending.stream()
+				.map(email -> MailMessage.of(CommonConstants.MAIL.SENDER, email.getEmail(), email.getSubject(), email.getBody()))
+				.collect(Collectors.toList());
+		// @formatter:on
+
+		List<DeliveryResult> results = emailSenderService.sendAll(messages);
+		long sentAt = System.currentTimeMillis();
+
+		for (int i = 0; i < results.size(); i++) {
+			if (results.get(i).isSuccess()) {
+				sentIds.add(pending.get(i).getId());
+				latencyTracker.recordLateness(LATENESS_GROUP,
+						sentAt - pending.get(i).getDeliverAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+			} else {
+				log.error("Unable to send email: {} {}", pending.get(i).getId(), results.get(i));
+			}
+		}
+
+		pending.clear();
+	}
+
+	/**
+	 * Mark the emails sent so far and clear the list
+	 * 
+	 * @param sentIds
+	 * @return
+	 */
+	private int markSent(List<UUID> sentIds) {
+		if (sentIds.isEmpty()) {
+			return 0;
+		}
+
+		int updated = scheduledEmailRepository.markSent(sentIds, LocalDateTime.now(ZoneOffset.UTC));
+		sentIds.clear();
+
+		return updated;
+	}
+}
@@ -0,0 +1,133 @@
+package com.needle.services.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.needle.entities.ScheduledEmailContent;
+import com.needle.repositories.ScheduledEmailContentRepository;
+import com.needle.services.EmailContentService;
+import com.needle.utils.LruCache;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class EmailContentServiceImpl implements EmailContentService {
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final ScheduledEmailContentRepository scheduledEmailContentRepository;
+	/* Recently stored or fetched contents, bounded by their size */
+	private final LruCache<String, ScheduledEmailContent> cache;
+
+	@Autowired
+	public EmailContentServiceImpl(ScheduledEmailContentRepository scheduledEmailContentRepository,
+			@Value("${scheduler.email.content-cache-bytes:67108864}") long cacheBytes) {
+		this.scheduledEmailContentRepository = scheduledEmailContentRepository;
+		this.cache = new LruCache<>(cacheBytes, EmailContentServiceImpl::weigh);
+	}
+
+	@Override
+	public String store(String subject, String body) {
+		String contentId = contentId(subject, body);
+
+		// Every email counts as a reference, a cached content only sends the id to
+		// the db and is stored again when it was deleted in the meantime
+		if (null != cache.get(contentId) && scheduledEmailContentRepository.reference(contentId) > 0) {
+			return contentId;
+		}
+
+		scheduledEmailContentRepository.insertOrReference(contentId, subject, body);
+
+		ScheduledEmailContent content = new ScheduledEmailContent();
+		content.setId(contentId);
+		content.setSubject(subject);
+		content.setBody(body);
+
+		cache.put(contentId, content);
+
+		return contentId;
+	}
+
+	@Override
+	public void release(Map<String, Integer> references) {
+		references.forEach(scheduledEmailContentRepository::release);
+
+		int deleted = scheduledEmailContentRepository.deleteUnreferenced(references.keySet());
+
+		if (deleted > 0) {
+			log.debug("Deleted {} email contents no job uses anymore", deleted);
+		}
+	}
+
+	@Override
+	public ScheduledEmailContent fetch(String contentId) {
+		ScheduledEmailContent content = cache.get(contentId);
+
+		if (null != content) {
+			return content;
+		}
+
+		content = scheduledEmailContentRepository.findById(contentId)
+				.orElseThrow(() -> new IllegalStateException("Email content not found: " + contentId));
+
+		cache.put(contentId, content);
+
+		return content;
+	}
+
+	/**
+	 * SHA-256 of the subject and body, each one prefixed with its length so that
+	 * the boundary between them counts
+	 * 
+	 * @param subject
+	 * @param body
+	 * @return
+	 */
+	static String contentId(String subject, String body) {
+		MessageDigest digest;
+
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// Every JVM has to provide it
+			throw new IllegalStateException(e);
+		}
+
+		update(digest, subject);
+		update(digest, body);
+
+		byte[] hash = digest.digest();
+		char[] hex = new char[hash.length * 2];
+
+		for (int i = 0; i < hash.length; i++) {
+			hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+			hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+		}
+
+		return new String(hex);
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		byte[] bytes = null == value ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+		int length = null == value ? -1 : bytes.length;
+
+		digest.update(new byte[] { (byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8),
+				(byte) length });
+		digest.update(bytes);
+	}
+
+	private static long weigh(ScheduledEmailContent content) {
+		// Two bytes per char and the id
+		return 2L * (length(content.getSubject()) + length(content.getBody()) + content.getId().length());
+	}
+
+	private static int length(String value) {
+		return null == value ? 0 : value.length();
+	}
+}
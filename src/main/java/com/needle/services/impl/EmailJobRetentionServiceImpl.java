@@ -0,0 +1,363 @@
+package com.needle.services.impl;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.quartz.JobDataMap;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.impl.jdbcjobstore.JobStoreSupport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.needle.jobs.EmailJobRetentionJob;
+import com.needle.jobs.EmaillSchedulerJob;
+import com.needle.jobs.listeners.JobLatencyListener;
+import com.needle.jobs.payload.ContentEmailPayloadCodec;
+import com.needle.jobs.payload.EmailPayloads;
+import com.needle.services.EmailContentService;
+import com.needle.services.EmailJobRetentionService;
+import com.needle.sharding.SchedulerShards;
+import com.needle.utils.CommonConstants;
+import com.needle.utils.JobBuilderUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deletes the email jobs that have no trigger left straight from the job store
+ * tables. These rows are never read by the trigger acquisition, so the purge
+ * doesn't take the Quartz TRIGGER_ACCESS lock and only locks the rows of its
+ * own small batches, walking the job details primary key.
+ */
+@Slf4j
+@Service
+public class EmailJobRetentionServiceImpl implements EmailJobRetentionService {
+	private static final String JOB_GROUP = "retention-job-group";
+	private static final String TRIGGER_GROUP = "retention-trigger-group";
+	private static final String JOB_NAME = "email-job-retention";
+	private static final String EMAIL_JOB_GROUP = EmaillSchedulerJob.class.getSimpleName();
+
+	// @formatter:off
+	private static final String NOT_FIRING = " AND NOT EXISTS (SELECT 1 FROM %1$sTRIGGERS t"
+			+ " WHERE t.SCHED_NAME = j.SCHED_NAME AND t.JOB_NAME = j.JOB_NAME AND t.JOB_GROUP = j.JOB_GROUP)"
+			+ " AND NOT EXISTS (SELECT 1 FROM %1$sFIRED_TRIGGERS f"
+			+ " WHERE f.SCHED_NAME = j.SCHED_NAME AND f.JOB_NAME = j.JOB_NAME AND f.JOB_GROUP = j.JOB_GROUP)";
+	private static final String EXECUTED_JOBS_QUERY = "SELECT j.JOB_NAME FROM %1$sJOB_DETAILS j"
+			+ " WHERE j.SCHED_NAME = ? AND j.JOB_GROUP = ? AND j.IS_DURABLE = TRUE AND j.JOB_NAME > ?"
+			+ NOT_FIRING
+			+ " ORDER BY j.JOB_NAME LIMIT ?";
+	private static final String DELETE_JOB = "DELETE FROM %1$sJOB_DETAILS j"
+			+ " WHERE j.SCHED_NAME = ? AND j.JOB_GROUP = ? AND j.JOB_NAME = ?"
+			+ NOT_FIRING;
+	private static final String INSERT_HISTORY = "INSERT INTO email_delivery_history"
+			+ " (job_name, job_group, email, template_id, deliver_at) VALUES (?, ?, ?, ?, ?)";
+	// @formatter:on
+
+	@Autowired
+	private Scheduler scheduler;
+
+	@Autowired
+	private SchedulerShards schedulerShards;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private EmailPayloads emailPayloads;
+
+	@Autowired
+	private EmailContentService emailContentService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${spring.quartz.properties.org.quartz.jobStore.tablePrefix:QRTZ_}")
+	private String tablePrefix;
+
+	@Value("${scheduler.retention.enabled:false}")
+	private boolean enabled;
+
+	@Value("${scheduler.retention.max-age-days:30}")
+	private long maxAgeDays;
+
+	@Value("${scheduler.retention.archive:true}")
+	private boolean archive;
+
+	@Value("${scheduler.retention.batch-size:200}")
+	private int batchSize;
+
+	@Value("${scheduler.retention.max-batches:50}")
+	private int maxBatches;
+
+	@Value("${scheduler.retention.pause-millis:200}")
+	private long pauseMillis;
+
+	@Value("${scheduler.retention.interval-seconds:600}")
+	private int intervalSeconds;
+
+	/**
+	 * Register the recurring retention job when enabled and remove it otherwise,
+	 * only the JDBC job store keeps the executed jobs around
+	 * 
+	 * @throws SchedulerException
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void registerRetentionJob() throws SchedulerException {
+		JobKey jobKey = new JobKey(JOB_NAME, JOB_GROUP);
+
+		if (!enabled) {
+			JobBuilderUtils.unregisterRecurring(scheduler, jobKey);
+			return;
+		}
+
+		if (!JobStoreSupport.class.isAssignableFrom(scheduler.getMetaData().getJobStoreClass())) {
+			log.warn("Email job retention needs a JDBC job store, not registered");
+			return;
+		}
+
+		JobBuilderUtils.registerRecurring(scheduler, EmailJobRetentionJob.class, jobKey, TRIGGER_GROUP,
+				"Email Job Retention", intervalSeconds, 1);
+	}
+
+	@Override
+	public List<String> getSchedulerNames() {
+		// @formatter:off
+		return schedulerShards.getSchedulers().stream()
+				.map(this::schedulerName)
+				.collect(Collectors.toList());
+		// @formatter:on
+	}
+
+	@Override
+	public String purge(String schedulerName, String after) throws SchedulerException {
+		Scheduler shard = schedulerShards.getShard(schedulerName);
+
+		if (null == shard) {
+			throw new IllegalArgumentException("Unknown scheduler: " + schedulerName);
+		}
+
+		if (!enabled) {
+			// Fired by a node still running with the retention enabled
+			log.info("Email job retention disabled, nothing purged from {}", schedulerName);
+			return null == after ? "" : after;
+		}
+
+		long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(maxAgeDays);
+		String cursor = null == after ? "" : after;
+		int purged = 0;
+
+		for (int batch = 0; batch < maxBatches; batch++) {
+			List<String> jobNames = jdbcTemplate.queryForList(String.format(EXECUTED_JOBS_QUERY, tablePrefix),
+					String.class, schedulerName, EMAIL_JOB_GROUP, cursor, batchSize);
+
+			cursor = jobNames.isEmpty() ? cursor : jobNames.get(jobNames.size() - 1);
+
+			List<ExpiredJob> expired = expiredJobs(shard, jobNames, cutoff);
+
+			if (!expired.isEmpty()) {
+				purged += purgeBatch(schedulerName, expired);
+			}
+
+			if (jobNames.size() < batchSize) {
+				// End of the table, the next run starts over
+				cursor = "";
+				break;
+			}
+
+			if (!pause()) {
+				break;
+			}
+		}
+
+		if (purged > 0) {
+			log.info("Purged {} executed email jobs from {}", purged, schedulerName);
+		}
+
+		return cursor;
+	}
+
+	/**
+	 * Jobs of a batch delivered before the cutoff. Jobs scheduled without a
+	 * delivery time predate its tracking and are expired.
+	 * 
+	 * @param shard
+	 * @param jobNames
+	 * @param cutoff
+	 * @return
+	 * @throws SchedulerException
+	 */
+	private List<ExpiredJob> expiredJobs(Scheduler shard, List<String> jobNames, long cutoff)
+			throws SchedulerException {
+		List<ExpiredJob> expired = new ArrayList<>(jobNames.size());
+
+		for (String jobName : jobNames) {
+			// Read without any Quartz lock
+			JobDetail jobDetail = shard.getJobDetail(new JobKey(jobName, EMAIL_JOB_GROUP));
+
+			if (null == jobDetail) {
+				continue;
+			}
+
+			JobDataMap jobDataMap = jobDetail.getJobDataMap();
+			// Read whatever type it was stored with, like the latency listener does
+			Object deliverAt = jobDataMap.get(JobLatencyListener.DELIVER_AT_KEY);
+			Long deliverAtMillis = null == deliverAt ? null : Long.parseLong(String.valueOf(deliverAt));
+
+			if (null != deliverAtMillis && deliverAtMillis >= cutoff) {
+				continue;
+			}
+
+			String contentId = jobDataMap.getString(ContentEmailPayloadCodec.CONTENT_ID_KEY);
+			ExpiredJob job = new ExpiredJob(jobName, null, null, deliverAtMillis, contentId);
+
+			if (archive) {
+				job = new ExpiredJob(jobName, emailPayloads.readEmail(jobDataMap),
+						jobDataMap.getString(EmailPayloads.TEMPLATE_ID_KEY), deliverAtMillis, contentId);
+			}
+
+			expired.add(job);
+		}
+
+		return expired;
+	}
+
+	/**
+	 * Delete the jobs of a batch and archive the ones deleted, in one short
+	 * transaction
+	 * 
+	 * @param schedulerName
+	 * @param jobs
+	 * @return number of jobs deleted
+	 */
+	private int purgeBatch(String schedulerName, List<ExpiredJob> jobs) {
+		Timer.Sample sample = Timer.start(meterRegistry);
+
+		List<ExpiredJob> deleted = transactionTemplate.execute(status -> {
+			int[] counts = jdbcTemplate.batchUpdate(String.format(DELETE_JOB, tablePrefix),
+					new BatchPreparedStatementSetter() {
+						@Override
+						public void setValues(PreparedStatement ps, int i) throws SQLException {
+							ps.setString(1, schedulerName);
+							ps.setString(2, EMAIL_JOB_GROUP);
+							ps.setString(3, jobs.get(i).getJobName());
+						}
+
+						@Override
+						public int getBatchSize() {
+							return jobs.size();
+						}
+					});
+
+			// A job fired again in the meantime is left alone
+			List<ExpiredJob> removed = new ArrayList<>(jobs.size());
+			for (int i = 0; i < counts.length; i++) {
+				if (counts[i] != 0) {
+					removed.add(jobs.get(i));
+				}
+			}
+
+			if (archive && !removed.isEmpty()) {
+				archive(removed);
+			}
+
+			// @formatter:off
+			Map<String, Integer> references = removed.stream()
+					.filter(job -> null != job.getContentId())
+					.collect(Collectors.toMap(ExpiredJob::getContentId, job -> 1, Integer::sum));
+			// @formatter:on
+
+			// The contents only the removed jobs used go with them
+			if (!references.isEmpty()) {
+				emailContentService.release(references);
+			}
+
+			return removed;
+		});
+
+		sample.stop(meterRegistry.timer(CommonConstants.METRICS.RETENTION_BATCH));
+
+		meterRegistry.counter(CommonConstants.METRICS.RETENTION_PURGED).increment(deleted.size());
+		if (archive) {
+			meterRegistry.counter(CommonConstants.METRICS.RETENTION_ARCHIVED).increment(deleted.size());
+		}
+
+		return deleted.size();
+	}
+
+	private void archive(List<ExpiredJob> jobs) {
+		jdbcTemplate.batchUpdate(INSERT_HISTORY, new BatchPreparedStatementSetter() {
+			@Override
+			public void setValues(PreparedStatement ps, int i) throws SQLException {
+				ExpiredJob job = jobs.get(i);
+				ps.setString(1, job.getJobName());
+				ps.setString(2, EMAIL_JOB_GROUP);
+				ps.setString(3, job.getEmail());
+				ps.setString(4, job.getTemplateId());
+				ps.setObject(5, null == job.getDeliverAt() ? null
+						: LocalDateTime.ofInstant(Instant.ofEpochMilli(job.getDeliverAt()), ZoneOffset.UTC));
+			}
+
+			@Override
+			public int getBatchSize() {
+				return jobs.size();
+			}
+		});
+	}
+
+	private String schedulerName(Scheduler shard) {
+		try {
+			return shard.getSchedulerName();
+		} catch (SchedulerException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Give the connection and the disk back to the scheduler between batches
+	 * 
+	 * @return false when interrupted
+	 */
+	private boolean pause() {
+		try {
+			Thread.sleep(pauseMillis);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	@Getter
+	@AllArgsConstructor
+	private static class ExpiredJob {
+		private final String jobName;
+		private final String email;
+		private final String templateId;
+		private final Long deliverAt;
+		/* Set for the jobs written by the content codec */
+		private final String contentId;
+	}
+}
@@ -0,0 +1,59 @@
+package com.needle.services.impl;
+
+import java.time.ZonedDateTime;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.needle.dtos.email.EmailRequest;
+import com.needle.services.EmailTemplateService;
+
+/**
+ * Validates the items of a batch the same way a single request is validated
+ */
+@Component
+class EmailRequestValidator {
+	@Autowired
+	private Validator validator;
+
+	@Autowired
+	private EmailTemplateService emailTemplateService;
+
+	/**
+	 * Validate an email request
+	 * 
+	 * @param request
+	 * @return the error message or null when the request is valid
+	 */
+	String validate(EmailRequest request) {
+		if (null == request) {
+			return "Empty request";
+		}
+
+		Set<ConstraintViolation<EmailRequest>> violations = validator.validate(request);
+
+		if (!violations.isEmpty()) {
+			// @formatter:off
+			return violations.stream()
+					.map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+					.sorted()
+					.collect(Collectors.joining(", "));
+			// @formatter:on
+		}
+
+		if (ZonedDateTime.of(request.getDeliverOn(), request.getTimeZone()).isBefore(ZonedDateTime.now())) {
+			return "Invalid delivery time specified";
+		}
+
+		if (null != request.getTemplateId() && !emailTemplateService.exists(request.getTemplateId())) {
+			return "Unknown template " + request.getTemplateId();
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,70 @@
+package com.needle.services.impl;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.needle.mail.DeliveryResult;
+import com.needle.mail.DomainFairQueue;
+import com.needle.mail.MailDispatcher;
+import com.needle.mail.MailMessage;
+import com.needle.services.EmailSenderService;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class EmailSenderServiceImpl implements EmailSenderService {
+	@Autowired
+	private MailDispatcher mailDispatcher;
+
+	@Autowired
+	private DomainFairQueue domainFairQueue;
+
+	@Override
+	public DeliveryResult send(String from, String to, String subject, String body) {
+		return sendAll(List.of(MailMessage.of(from, to, subject, body))).get(0);
+	}
+
+	@Override
+	public List<DeliveryResult> sendAll(List<MailMessage> messages) {
+		if (!domainFairQueue.isEnabled()) {
+			if (mailDispatcher.isEnabled()) {
+				return mailDispatcher.sendAll(messages);
+			}
+			return messages.stream().map(this::deliver).collect(Collectors.toList());
+		}
+
+		// Each email waits for its turn within the rate of its domain
+		// @formatter:off
+		List<CompletableFuture<DeliveryResult>> results = messages.stream()
+				.map(message -> domainFairQueue.submit(message, this::deliver))
+				.collect(Collectors.toList());
+
+		return results.stream()
+				.map(CompletableFuture::join)
+				.collect(Collectors.toList());
+		// @formatter:on
+	}
+
+	/**
+	 * Send a single email through the relay
+	 * 
+	 * @param message
+	 * @return
+	 */
+	private DeliveryResult deliver(MailMessage message) {
+		if (mailDispatcher.isEnabled()) {
+			return mailDispatcher.send(message);
+		}
+
+		// No relay configured, the email is only logged
+		log.info("Sending email to: {}, from: {}, subject: {}, body: {}", message.getTo(), message.getFrom(),
+				message.getSubject(), message.getBody());
+
+		return DeliveryResult.sent(message.getTo(), 250, "Logged");
+	}
+}
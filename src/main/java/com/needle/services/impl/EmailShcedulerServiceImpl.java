@@ -1,33 +1,71 @@
 package com.needle.services.impl;
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
-import java.util.UUID;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
 
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
+import org.quartz.Trigger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import com.needle.dtos.email.BaseResponse;
+import com.needle.dtos.email.BatchItem;
+import com.needle.dtos.email.BatchScheduleResponse;
 import com.needle.dtos.email.EmailRequest;
 import com.needle.jobs.EmaillSchedulerJob;
 import com.needle.jobs.listeners.EmailJobListener;
+import com.needle.jobs.listeners.JobLatencyListener;
+import com.needle.jobs.listeners.MisfireCatchUpListener;
+import com.needle.jobs.payload.EmailPayload;
+import com.needle.jobs.payload.EmailPayloads;
 import com.needle.services.AbstractJobBuilder;
 import com.needle.services.EmailSchedulerService;
 import com.needle.utils.CommonConstants;
+import com.needle.utils.TimeOrderedUuid;
 
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Service
+@ConditionalOnProperty(name = "scheduler.email.mode", havingValue = "job", matchIfMissing = true)
 public class EmailShcedulerServiceImpl extends AbstractJobBuilder implements EmailSchedulerService {
+	private final EmailRequestValidator validator;
+	private final EmailJobListener emailJobListener;
+	private final MisfireCatchUpListener misfireCatchUpListener;
+	private final EmailPayloads emailPayloads;
 
 	@Autowired
-	public EmailShcedulerServiceImpl(Scheduler scheduler) {
+	public EmailShcedulerServiceImpl(Scheduler scheduler, EmailRequestValidator validator,
+			EmailJobListener emailJobListener, MisfireCatchUpListener misfireCatchUpListener,
+			EmailPayloads emailPayloads,
+			@Value("${scheduler.batch.chunk-size:500}") int batchSize) {
 		super(scheduler);
+		this.validator = validator;
+		this.emailJobListener = emailJobListener;
+		this.misfireCatchUpListener = misfireCatchUpListener;
+		this.emailPayloads = emailPayloads;
+		this.setBatchSize(batchSize);
+	}
+
+	/**
+	 * One listener of each kind for the whole group, registered before the
+	 * scheduler starts
+	 */
+	@PostConstruct
+	public void registerJobListener() {
+		addJobListenerByGroup(EmaillSchedulerJob.class, emailJobListener);
+		addTriggerListenerByGroup(EmaillSchedulerJob.class, misfireCatchUpListener);
 	}
 
 	@Override
@@ -36,34 +74,32 @@ public class EmailShcedulerServiceImpl extends AbstractJobBuilder implements Ema
 		// Get the delivery time
 		ZonedDateTime deliveryTime = ZonedDateTime.of(request.getDeliverOn(), request.getTimeZone());
 
-		// Check if the message delivery time specified is before current date as per
-		// the time zone
-		if (deliveryTime.isBefore(ZonedDateTime.now())) {
+		// Check the delivery time as per the time zone and the template
+		String error = validator.validate(request);
+
+		if (null != error) {
 			// @formatter:off
 			return BaseResponse.builder()
 					.success(false)
-					.message("Invalid delivery time specified")
+					.message(error)
 					.build();
 			// @formatter:on
 		}
 
-		JobDataMap jobDataMap = new JobDataMap();
-
-		jobDataMap.put("email", request.getEmail());
-		jobDataMap.put("subject", request.getSubject());
-		jobDataMap.put("body", request.getBody());
-		// Used for persisting the job in the db and not removing after execution
-		jobDataMap.put("storeDurably", true);
-
-		String key = UUID.randomUUID().toString();
+		JobDataMap jobDataMap = buildJobDataMap(request);
 
-		// Listener attached to jobKey
-		addJobListener(key, EmaillSchedulerJob.class, new EmailJobListener());
+		String key = TimeOrderedUuid.next().toString();
 
-		// Listener attached to group only.
-//		addJobListenerByGroup(EmaillSchedulerJob.class, new EmailJobListener());
+		JobDetail jobDetail;
 
-		JobDetail jobDetail = addJob(EmaillSchedulerJob.class, key, Date.from(deliveryTime.toInstant()), jobDataMap);
+		try {
+			jobDetail = addJob(EmaillSchedulerJob.class, key, Date.from(deliveryTime.toInstant()), jobDataMap,
+					priorityOf(request));
+		} catch (Exception e) {
+			// Stored in a single job store transaction, nothing references the payload
+			emailPayloads.discard(Collections.singletonList(jobDataMap));
+			throw e;
+		}
 
 		log.info(CommonConstants.LOGS.EXIT, "schedule", this.getClass().getName());
 
@@ -77,4 +113,120 @@ public class EmailShcedulerServiceImpl extends AbstractJobBuilder implements Ema
         // @formatter:on
 	}
 
+	@Override
+	public BatchScheduleResponse scheduleBatch(Iterator<BatchItem<EmailRequest>> requests) {
+		log.info(CommonConstants.LOGS.ENTRY, "scheduleBatch", this.getClass().getName());
+
+		BatchScheduleResponse response = new BatchScheduleResponse();
+
+		List<BatchJob> chunk = new ArrayList<>(getBatchSize());
+		List<Integer> chunkIndexes = new ArrayList<>(getBatchSize());
+
+		while (requests.hasNext()) {
+			BatchItem<EmailRequest> item = requests.next();
+
+			String error = item.isRejected() ? item.getError() : validator.validate(item.getRequest());
+
+			if (null != error) {
+				response.reject(item.getIndex(), error);
+				continue;
+			}
+
+			EmailRequest request = item.getRequest();
+			ZonedDateTime deliveryTime = ZonedDateTime.of(request.getDeliverOn(), request.getTimeZone());
+
+			chunk.add(new BatchJob(TimeOrderedUuid.next().toString(), Date.from(deliveryTime.toInstant()),
+					buildJobDataMap(request), priorityOf(request)));
+			chunkIndexes.add(item.getIndex());
+
+			if (chunk.size() >= getBatchSize()) {
+				flushBatch(chunk, chunkIndexes, response);
+			}
+		}
+
+		flushBatch(chunk, chunkIndexes, response);
+
+		log.info("Batch scheduled, accepted: {}, rejected: {}", response.getAccepted(), response.getRejected());
+		log.info(CommonConstants.LOGS.EXIT, "scheduleBatch", this.getClass().getName());
+
+		return response;
+	}
+
+	/**
+	 * Store the pending chunk of jobs, a failure rejects only the items of this
+	 * chunk
+	 * 
+	 * @param chunk
+	 * @param chunkIndexes
+	 * @param response
+	 */
+	private void flushBatch(List<BatchJob> chunk, List<Integer> chunkIndexes, BatchScheduleResponse response) {
+		if (chunk.isEmpty()) {
+			return;
+		}
+
+		try {
+			addJobs(EmaillSchedulerJob.class, chunk);
+			response.accept(chunk.size());
+		} catch (Exception e) {
+			log.error("Unable to schedule a chunk of {} emails", chunk.size(), e);
+			chunkIndexes.forEach(index -> response.reject(index, "Unable to schedule the email"));
+			discardUnstored(chunk);
+		}
+
+		chunk.clear();
+		chunkIndexes.clear();
+	}
+
+	/**
+	 * Drop the payloads of the jobs of a failed chunk that weren't stored, a
+	 * chunk spread over shards can be stored in part
+	 * 
+	 * @param chunk
+	 */
+	private void discardUnstored(List<BatchJob> chunk) {
+		List<JobDataMap> unstored = new ArrayList<>(chunk.size());
+
+		for (BatchJob job : chunk) {
+			try {
+				if (!jobExists(job.getJobName(), EmaillSchedulerJob.class)) {
+					unstored.add(job.getDataMap());
+				}
+			} catch (Exception e) {
+				// Kept referenced, a content left behind is better than one deleted in use
+				log.warn("Unable to check the email job {}", job.getJobName(), e);
+			}
+		}
+
+		emailPayloads.discard(unstored);
+	}
+
+	private static int priorityOf(EmailRequest request) {
+		return null == request.getPriority() ? Trigger.DEFAULT_PRIORITY : request.getPriority();
+	}
+
+	/**
+	 * Job data needed by the email job
+	 * 
+	 * @param request
+	 * @return
+	 */
+	private JobDataMap buildJobDataMap(EmailRequest request) {
+		JobDataMap jobDataMap = new JobDataMap();
+
+		if (null != request.getTemplateId()) {
+			emailPayloads.writeTemplate(request.getEmail(), request.getTemplateId(), request.getVariables(), jobDataMap);
+		} else {
+			emailPayloads.write(new EmailPayload(request.getEmail(), request.getSubject(), request.getBody()),
+					jobDataMap);
+		}
+		// Lateness of the send is measured against it
+		jobDataMap.put(JobLatencyListener.DELIVER_AT_KEY,
+				String.valueOf(ZonedDateTime.of(request.getDeliverOn(), request.getTimeZone()).toInstant().toEpochMilli()));
+		// Used for persisting the job in the db and not removing after execution
+		jobDataMap.put("storeDurably", true);
+
+		return jobDataMap;
+	}
+
 }
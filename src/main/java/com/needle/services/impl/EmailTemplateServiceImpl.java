@@ -0,0 +1,190 @@
+package com.needle.services.impl;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.needle.entities.EmailTemplate;
+import com.needle.entities.EmailTemplateVersion;
+import com.needle.jobs.payload.EmailPayload;
+import com.needle.repositories.EmailTemplateRepository;
+import com.needle.repositories.EmailTemplateVersionRepository;
+import com.needle.services.EmailTemplateService;
+import com.needle.utils.CompiledTemplate;
+import com.needle.utils.LruCache;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class EmailTemplateServiceImpl implements EmailTemplateService {
+	/* Buffers above this size aren't kept after a render */
+	private static final int MAX_RETAINED_CHARS = 1 << 20;
+	/* Render buffer of each thread, reused for every email it sends */
+	private static final ThreadLocal<StringBuilder> BUFFERS = ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+	private final EmailTemplateRepository emailTemplateRepository;
+	private final EmailTemplateVersionRepository emailTemplateVersionRepository;
+	/* Compiled latest templates, bounded by their size */
+	private final LruCache<String, CachedTemplate> cache;
+	/* Compiled earlier versions, they never change so they don't expire */
+	private final LruCache<EmailTemplateVersion.Key, CachedTemplate> versions;
+	/* Templates saved on another node are picked up after this long */
+	private final long ttlMillis;
+
+	@Autowired
+	public EmailTemplateServiceImpl(EmailTemplateRepository emailTemplateRepository,
+			EmailTemplateVersionRepository emailTemplateVersionRepository,
+			@Value("${scheduler.email.template-cache-bytes:16777216}") long cacheBytes,
+			@Value("${scheduler.email.template-cache-ttl-seconds:60}") long ttlSeconds) {
+		this.emailTemplateRepository = emailTemplateRepository;
+		this.emailTemplateVersionRepository = emailTemplateVersionRepository;
+		this.cache = new LruCache<>(cacheBytes, template -> template.weight);
+		this.versions = new LruCache<>(cacheBytes, template -> template.weight);
+		this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+	}
+
+	@Override
+	@Transactional
+	public void save(String templateId, String subject, String body) {
+		EmailTemplate template = emailTemplateRepository.findForUpdate(templateId).orElseGet(EmailTemplate::new);
+		long version = null == template.getVersion() ? 1 : template.getVersion() + 1;
+		LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+
+		template.setId(templateId);
+		template.setSubject(subject);
+		template.setBody(body);
+		template.setUpdatedAt(now);
+		template.setVersion(version);
+
+		emailTemplateRepository.save(template);
+
+		EmailTemplateVersion saved = new EmailTemplateVersion();
+		saved.setTemplateId(templateId);
+		saved.setVersion(version);
+		saved.setSubject(subject);
+		saved.setBody(body);
+		saved.setCreatedAt(now);
+
+		emailTemplateVersionRepository.save(saved);
+
+		cache.invalidate(templateId);
+
+		log.debug("Saved version {} of email template {}", version, templateId);
+	}
+
+	@Override
+	public Long currentVersion(String templateId) {
+		return compiled(templateId).version;
+	}
+
+	@Override
+	public boolean exists(String templateId) {
+		return null != cache.get(templateId) || emailTemplateRepository.existsById(templateId);
+	}
+
+	@Override
+	public EmailPayload render(String email, String templateId, Long version, Function<String, String> variables) {
+		CachedTemplate template = compiled(templateId);
+
+		if (null != version && !version.equals(template.version)) {
+			template = compiled(templateId, version);
+		}
+
+		StringBuilder buffer = BUFFERS.get();
+
+		try {
+			buffer.setLength(0);
+			template.subject.render(buffer, variables);
+			String subject = buffer.toString();
+
+			buffer.setLength(0);
+			template.body.render(buffer, variables);
+			String body = buffer.toString();
+
+			return new EmailPayload(email, subject, body);
+		} finally {
+			if (buffer.capacity() > MAX_RETAINED_CHARS) {
+				BUFFERS.remove();
+			}
+		}
+	}
+
+	/**
+	 * Compiled template, parsed again when missing from the cache or expired
+	 * 
+	 * @param templateId
+	 * @return
+	 */
+	private CachedTemplate compiled(String templateId) {
+		long now = System.currentTimeMillis();
+		CachedTemplate template = cache.get(templateId);
+
+		if (null != template && now - template.compiledAt < ttlMillis) {
+			return template;
+		}
+
+		EmailTemplate source = emailTemplateRepository.findById(templateId)
+				.orElseThrow(() -> new IllegalStateException("Email template not found: " + templateId));
+
+		template = compile(source.getSubject(), source.getBody(), source.getVersion(), now);
+
+		cache.put(templateId, template);
+
+		log.debug("Compiled email template {}", templateId);
+
+		return template;
+	}
+
+	/**
+	 * Compiled earlier version of a template
+	 * 
+	 * @param templateId
+	 * @param version
+	 * @return
+	 */
+	private CachedTemplate compiled(String templateId, long version) {
+		EmailTemplateVersion.Key key = new EmailTemplateVersion.Key(templateId, version);
+		CachedTemplate template = versions.get(key);
+
+		if (null != template) {
+			return template;
+		}
+
+		EmailTemplateVersion source = emailTemplateVersionRepository.findById(key).orElseThrow(
+				() -> new IllegalStateException("Email template not found: " + templateId + " version " + version));
+
+		template = compile(source.getSubject(), source.getBody(), version, System.currentTimeMillis());
+
+		versions.put(key, template);
+
+		log.debug("Compiled version {} of email template {}", version, templateId);
+
+		return template;
+	}
+
+	private static CachedTemplate compile(String subjectSource, String bodySource, Long version, long now) {
+		CompiledTemplate subject = CompiledTemplate.compile(subjectSource, VARIABLE_KEY_PREFIX);
+		CompiledTemplate body = CompiledTemplate.compile(bodySource, VARIABLE_KEY_PREFIX);
+
+		// Two bytes per char of the literals
+		return new CachedTemplate(subject, body, version, now,
+				2L * (subject.getLiteralLength() + body.getLiteralLength()));
+	}
+
+	@AllArgsConstructor
+	private static class CachedTemplate {
+		private final CompiledTemplate subject;
+		private final CompiledTemplate body;
+		private final Long version;
+		private final long compiledAt;
+		private final long weight;
+	}
+}
@@ -0,0 +1,208 @@
+package com.needle.services.impl;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.needle.dtos.email.BaseResponse;
+import com.needle.entities.EmailIdempotencyKey;
+import com.needle.jobs.IdempotencyKeyPurgeJob;
+import com.needle.repositories.EmailIdempotencyKeyRepository;
+import com.needle.rest.ConflictException;
+import com.needle.services.IdempotencyService;
+import com.needle.utils.CommonConstants;
+import com.needle.utils.JobBuilderUtils;
+import com.needle.utils.LruCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+	private static final int MAX_KEY_LENGTH = 128;
+	private static final String JOB_GROUP = "idempotency-job-group";
+	private static final String TRIGGER_GROUP = "idempotency-trigger-group";
+	private static final String JOB_NAME = "idempotency-key-purge";
+
+	private final EmailIdempotencyKeyRepository emailIdempotencyKeyRepository;
+	private final MeterRegistry meterRegistry;
+	private final Scheduler scheduler;
+	/* Responses of the recent keys, a retry storm doesn't reach the db */
+	private final LruCache<String, CachedResponse> cache;
+	private final long ttlHours;
+	/* A key claimed this long ago and never completed can be claimed again */
+	private final long pendingTimeoutSeconds;
+	private final int purgeIntervalSeconds;
+	/* Told to a duplicate of a request in flight */
+	private final long retryAfterSeconds;
+
+	@Autowired
+	public IdempotencyServiceImpl(EmailIdempotencyKeyRepository emailIdempotencyKeyRepository,
+			MeterRegistry meterRegistry, Scheduler scheduler,
+			@Value("${scheduler.idempotency.cache-size:100000}") long cacheSize,
+			@Value("${scheduler.idempotency.ttl-hours:24}") long ttlHours,
+			@Value("${scheduler.idempotency.pending-timeout-seconds:300}") long pendingTimeoutSeconds,
+			@Value("${scheduler.idempotency.purge-interval-seconds:3600}") int purgeIntervalSeconds,
+			@Value("${scheduler.idempotency.retry-after-seconds:1}") long retryAfterSeconds) {
+		this.emailIdempotencyKeyRepository = emailIdempotencyKeyRepository;
+		this.meterRegistry = meterRegistry;
+		this.scheduler = scheduler;
+		this.cache = new LruCache<>(cacheSize, response -> 1);
+		this.ttlHours = ttlHours;
+		this.pendingTimeoutSeconds = pendingTimeoutSeconds;
+		this.purgeIntervalSeconds = purgeIntervalSeconds;
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	/**
+	 * Register the recurring purge of the expired keys, on its own schedule as
+	 * the keys pile up whether the job retention is enabled or not
+	 * 
+	 * @throws SchedulerException
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void registerPurgeJob() throws SchedulerException {
+		JobBuilderUtils.registerRecurring(scheduler, IdempotencyKeyPurgeJob.class, new JobKey(JOB_NAME, JOB_GROUP),
+				TRIGGER_GROUP, "Idempotency Key Purge", purgeIntervalSeconds, 1);
+	}
+
+	@Override
+	public BaseResponse schedule(String key, Scheduling scheduling) throws SchedulerException {
+		if (null == key) {
+			return scheduling.schedule();
+		}
+
+		if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+			return failure("Idempotency key should be 1 to " + MAX_KEY_LENGTH + " characters");
+		}
+
+		CachedResponse cached = cache.get(key);
+
+		if (null != cached && cached.getExpiresAt() > System.currentTimeMillis()) {
+			return replay(key, cached.getResponse(), "cache");
+		}
+
+		if (null != cached) {
+			// Expired, the key can be used again like once it's purged
+			cache.invalidate(key);
+		}
+
+		// Expires with the row, whose creation time is about the claim time
+		long expiresAt = System.currentTimeMillis() + TimeUnit.HOURS.toMillis(ttlHours);
+		BaseResponse response;
+
+		if (!claim(key)) {
+			Optional<EmailIdempotencyKey> existing = emailIdempotencyKeyRepository.findById(key);
+
+			if (existing.isPresent() && null != existing.get().getCompletedAt()) {
+				response = toResponse(existing.get());
+				expiresAt = existing.get().getCreatedAt().plusHours(ttlHours).toInstant(ZoneOffset.UTC).toEpochMilli();
+				cache.put(key, new CachedResponse(response, expiresAt));
+				return replay(key, response, "db");
+			}
+
+			throw new ConflictException("A request with the same idempotency key is being scheduled",
+					retryAfterSeconds);
+		}
+
+		try {
+			response = scheduling.schedule();
+		} catch (SchedulerException | RuntimeException e) {
+			emailIdempotencyKeyRepository.deleteById(key);
+			throw e;
+		}
+
+		if (!response.isSuccess()) {
+			// A rejected request can be corrected and sent again with the same key
+			emailIdempotencyKeyRepository.deleteById(key);
+			return response;
+		}
+
+		emailIdempotencyKeyRepository.complete(key, response.getJobId(), response.getJobGroup(), response.getMessage(),
+				LocalDateTime.now(ZoneOffset.UTC));
+		cache.put(key, new CachedResponse(response, expiresAt));
+
+		return response;
+	}
+
+	@Override
+	public int purgeExpired() {
+		int purged = emailIdempotencyKeyRepository
+				.deleteCreatedBefore(LocalDateTime.now(ZoneOffset.UTC).minusHours(ttlHours));
+
+		if (purged > 0) {
+			log.info("Purged {} idempotency keys older than {} hours", purged, ttlHours);
+		}
+
+		return purged;
+	}
+
+	/**
+	 * Claim a key through its unique index, taking over an abandoned claim or an
+	 * expired key not purged yet
+	 * 
+	 * @param key
+	 * @return
+	 */
+	private boolean claim(String key) {
+		if (emailIdempotencyKeyRepository.insertIfAbsent(key) > 0) {
+			return true;
+		}
+
+		LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+
+		return (emailIdempotencyKeyRepository.deleteAbandoned(key, now.minusSeconds(pendingTimeoutSeconds)) > 0
+				|| emailIdempotencyKeyRepository.deleteExpired(key, now.minusHours(ttlHours)) > 0)
+				&& emailIdempotencyKeyRepository.insertIfAbsent(key) > 0;
+	}
+
+	private BaseResponse replay(String key, BaseResponse response, String source) {
+		log.debug("Replaying the response of idempotency key {} from the {}", key, source);
+		meterRegistry.counter(CommonConstants.METRICS.IDEMPOTENT_REPLAYS, CommonConstants.METRICS.TAG_SOURCE, source)
+				.increment();
+		return response;
+	}
+
+	private static BaseResponse toResponse(EmailIdempotencyKey key) {
+		// @formatter:off
+		return BaseResponse.builder()
+				.success(true)
+				.jobId(key.getJobId())
+				.jobGroup(key.getJobGroup())
+				.message(key.getMessage())
+				.build();
+		// @formatter:on
+	}
+
+	/**
+	 * Response of a key and when the key expires
+	 */
+	@Getter
+	@AllArgsConstructor
+	private static class CachedResponse {
+		private final BaseResponse response;
+		private final long expiresAt;
+	}
+
+	private static BaseResponse failure(String message) {
+		// @formatter:off
+		return BaseResponse.builder()
+				.success(false)
+				.message(message)
+				.build();
+		// @formatter:on
+	}
+}
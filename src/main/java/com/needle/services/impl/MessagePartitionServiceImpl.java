@@ -0,0 +1,206 @@
+package com.needle.services.impl;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.needle.jobs.MessagePartitionJob;
+import com.needle.repositories.MessageRepository;
+import com.needle.services.MessagePartitionService;
+import com.needle.utils.CommonConstants;
+import com.needle.utils.JobBuilderUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maintains the monthly partitions of the messages table, partitioned on
+ * created_at. Partitions are named messages_pYYYYMM, their bounds are read back
+ * from the catalog so that the initial partition, which starts at MINVALUE, is
+ * handled like the others.
+ */
+@Slf4j
+@Service
+public class MessagePartitionServiceImpl implements MessagePartitionService {
+	private static final String JOB_GROUP = "message-job-group";
+	private static final String TRIGGER_GROUP = "message-trigger-group";
+	private static final String JOB_NAME = "message-partitions";
+	private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+	/* Lower bound of the range checked in a partition starting at MINVALUE */
+	private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+	// @formatter:off
+	private static final String PARTITIONS_QUERY = "SELECT c.relname AS name,"
+			+ " CAST(substring(pg_get_expr(c.relpartbound, c.oid) from 'FROM \\(''([^'']+)''\\)') AS timestamp) AS lower_bound,"
+			+ " CAST(substring(pg_get_expr(c.relpartbound, c.oid) from 'TO \\(''([^'']+)''\\)') AS timestamp) AS upper_bound"
+			+ " FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid"
+			+ " WHERE i.inhparent = CAST('messages' AS regclass)";
+	private static final String CREATE_PARTITION = "CREATE TABLE IF NOT EXISTS messages_p%s PARTITION OF messages"
+			+ " FOR VALUES FROM ('%s') TO ('%s')";
+	private static final String DETACH_PARTITION = "ALTER TABLE messages DETACH PARTITION %s";
+	private static final String DROP_PARTITION = "DROP TABLE %s";
+	// @formatter:on
+
+	@Autowired
+	private Scheduler scheduler;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MessageRepository messageRepository;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${scheduler.message.partitions.enabled:true}")
+	private boolean enabled;
+
+	@Value("${scheduler.message.partitions.months-ahead:3}")
+	private int monthsAhead;
+
+	@Value("${scheduler.message.partitions.retention-months:6}")
+	private int retentionMonths;
+
+	@Value("${scheduler.message.partitions.drop-detached:false}")
+	private boolean dropDetached;
+
+	@Value("${scheduler.message.partitions.interval-seconds:3600}")
+	private int intervalSeconds;
+
+	/**
+	 * Register the recurring partition job when enabled and remove it otherwise,
+	 * its first run creates the partitions ahead
+	 * 
+	 * @throws SchedulerException
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void registerPartitionJob() throws SchedulerException {
+		JobKey jobKey = new JobKey(JOB_NAME, JOB_GROUP);
+
+		if (!enabled) {
+			JobBuilderUtils.unregisterRecurring(scheduler, jobKey);
+			return;
+		}
+
+		JobBuilderUtils.registerRecurring(scheduler, MessagePartitionJob.class, jobKey, TRIGGER_GROUP,
+				"Message Partition", intervalSeconds, 1);
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public List<String> createPartitions() {
+		// @formatter:off
+		LocalDateTime coveredUntil = partitions().stream()
+				.map(Partition::getUpperBound)
+				.filter(Objects::nonNull)
+				.max(Comparator.naturalOrder())
+				.orElse(null);
+		// @formatter:on
+
+		YearMonth current = YearMonth.now(ZoneOffset.UTC);
+		YearMonth month = null == coveredUntil ? current : YearMonth.from(coveredUntil);
+		List<String> created = new ArrayList<>();
+
+		for (; !month.isAfter(current.plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+			String suffix = month.format(SUFFIX);
+
+			try {
+				jdbcTemplate.execute(String.format(CREATE_PARTITION, suffix, month.atDay(1).atStartOfDay(),
+						month.plusMonths(1).atDay(1).atStartOfDay()));
+			} catch (DataAccessException e) {
+				// The rows of the month that went to the default partition have to be moved first
+				log.warn("Unable to create the messages partition of {}", month, e);
+				break;
+			}
+
+			created.add("messages_p" + suffix);
+		}
+
+		if (!created.isEmpty()) {
+			meterRegistry.counter(CommonConstants.METRICS.MESSAGE_PARTITIONS_CREATED).increment(created.size());
+			log.info("Created the messages partitions {}", created);
+		}
+
+		return created;
+	}
+
+	@Override
+	public List<String> detachPartitions() {
+		LocalDateTime cutoff = YearMonth.now(ZoneOffset.UTC).minusMonths(retentionMonths).atDay(1).atStartOfDay();
+		List<String> detached = new ArrayList<>();
+
+		for (Partition partition : partitions()) {
+			// The default partition has no bounds and is never detached
+			if (null == partition.getUpperBound() || partition.getUpperBound().isAfter(cutoff)) {
+				continue;
+			}
+
+			LocalDateTime from = null == partition.getLowerBound() ? EPOCH : partition.getLowerBound();
+
+			// Only this partition is scanned, through its pending messages index
+			if (messageRepository.existsPendingCreatedBetween(from, partition.getUpperBound(), cutoff)) {
+				log.info("Keeping the messages partition {}, some of its messages are still pending",
+						partition.getName());
+				continue;
+			}
+
+			// Metadata only, nothing is deleted row by row
+			jdbcTemplate.execute(String.format(DETACH_PARTITION, partition.getName()));
+
+			if (dropDetached) {
+				jdbcTemplate.execute(String.format(DROP_PARTITION, partition.getName()));
+			}
+
+			detached.add(partition.getName());
+		}
+
+		if (!detached.isEmpty()) {
+			meterRegistry.counter(CommonConstants.METRICS.MESSAGE_PARTITIONS_DETACHED).increment(detached.size());
+			log.info("Detached the messages partitions {}{}", detached, dropDetached ? " and dropped them" : "");
+		}
+
+		return detached;
+	}
+
+	private List<Partition> partitions() {
+		// @formatter:off
+		return jdbcTemplate.query(PARTITIONS_QUERY, (rs, rowNum) -> new Partition(
+				rs.getString("name"),
+				rs.getObject("lower_bound", LocalDateTime.class),
+				rs.getObject("upper_bound", LocalDateTime.class)));
+		// @formatter:on
+	}
+
+	@Getter
+	@AllArgsConstructor
+	private static class Partition {
+		private final String name;
+		/* null from MINVALUE */
+		private final LocalDateTime lowerBound;
+		/* null for the default partition */
+		private final LocalDateTime upperBound;
+	}
+}
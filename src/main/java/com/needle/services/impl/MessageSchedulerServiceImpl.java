@@ -13,6 +13,7 @@ import org.quartz.SchedulerException;
 import org.quartz.Trigger;
 import org.quartz.TriggerKey;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.needle.dtos.email.BaseResponse;
@@ -38,6 +39,9 @@ public class MessageSchedulerServiceImpl implements MessageSchedulerService {
 	@Autowired
 	private Scheduler scheduler;
 
+	@Value("${scheduler.message.mode:job}")
+	private String mode;
+
 	@Override
 	public BaseResponse schedule(MessageRequest request) throws SchedulerException {
 		log.info(CommonConstants.LOGS.ENTRY, "schedule", this.getClass().getName());
@@ -50,6 +54,20 @@ public class MessageSchedulerServiceImpl implements MessageSchedulerService {
 		// save messages in table
 		message = messageRepository.save(message);
 
+		// The sweeper job picks the message up once it is due
+		if (isSweeperMode()) {
+			log.info(CommonConstants.LOGS.EXIT, "schedule", this.getClass().getName());
+
+			// @formatter:off
+			return BaseResponse.builder()
+					.success(true)
+					.jobId(message.getId().toString())
+					.jobGroup(JOB_GROUP)
+					.message("Message Scheduled Successfully!")
+					.build();
+			// @formatter:on
+		}
+
 		JobDetail jobDetail = buildJobDetail(request, message.getId());
 		Trigger trigger = buildJobTrigger(jobDetail, message.getMakeVisibleAt());
 
@@ -76,6 +94,11 @@ public class MessageSchedulerServiceImpl implements MessageSchedulerService {
 
 		message.setVisible(false);
 
+		// Keep the sweeper from making the message visible
+		if (isSweeperMode()) {
+			message.setMakeVisibleAt(null);
+		}
+
 		// update messages in table
 		messageRepository.save(message);
 
@@ -110,7 +133,7 @@ public class MessageSchedulerServiceImpl implements MessageSchedulerService {
 	private JobDetail buildJobDetail(MessageRequest request, UUID messageId) {
 		JobDataMap jobDataMap = new JobDataMap();
 
-		jobDataMap.put("messageId", messageId);
+		jobDataMap.put("messageId", messageId.toString());
 		jobDataMap.put("content", request.getContent());
 
 		return JobBuilderUtils.buildJobDetail(MessageSchedulerJob.class, jobDataMap, JOB_GROUP, "Send Message Job");
@@ -131,6 +154,16 @@ public class MessageSchedulerServiceImpl implements MessageSchedulerService {
 				getStartAt(startAt));
 	}
 
+	/**
+	 * Check if the messages are made visible by the sweeper job instead of a job
+	 * per message
+	 * 
+	 * @return
+	 */
+	private boolean isSweeperMode() {
+		return CommonConstants.MODES.SWEEPER.equals(mode);
+	}
+
 	/**
 	 * Local Date Time to Date converter
 	 * 
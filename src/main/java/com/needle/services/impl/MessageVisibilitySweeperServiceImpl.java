@@ -0,0 +1,104 @@
+package com.needle.services.impl;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.needle.events.MessagesVisibleEvent;
+import com.needle.jobs.MessageVisibilitySweeperJob;
+import com.needle.repositories.MessageRepository;
+import com.needle.services.MessageVisibilitySweeperService;
+import com.needle.utils.CommonConstants;
+import com.needle.utils.JobBuilderUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+@Service
+public class MessageVisibilitySweeperServiceImpl implements MessageVisibilitySweeperService {
+	private static final String JOB_GROUP = "message-job-group";
+	private static final String TRIGGER_GROUP = "message-trigger-group";
+	private static final String JOB_NAME = "message-visibility-sweeper";
+
+	@Autowired
+	private MessageRepository messageRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@Autowired
+	private Scheduler scheduler;
+
+	@Value("${scheduler.message.mode:job}")
+	private String mode;
+
+	@Value("${scheduler.message.sweeper.batch-size:1000}")
+	private int batchSize;
+
+	@Value("${scheduler.message.sweeper.interval-seconds:1}")
+	private int intervalSeconds;
+
+	/**
+	 * Register the recurring sweeper job when running in sweeper mode and remove
+	 * it otherwise, its index comes with the migrations
+	 * 
+	 * @throws SchedulerException
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void registerSweeperJob() throws SchedulerException {
+		JobKey jobKey = new JobKey(JOB_NAME, JOB_GROUP);
+
+		if (!CommonConstants.MODES.SWEEPER.equals(mode)) {
+			JobBuilderUtils.unregisterRecurring(scheduler, jobKey);
+			return;
+		}
+
+		JobBuilderUtils.registerRecurring(scheduler, MessageVisibilitySweeperJob.class, jobKey, TRIGGER_GROUP,
+				"Message Visibility Sweeper", intervalSeconds, Trigger.DEFAULT_PRIORITY);
+	}
+
+	@Override
+	public int sweep() {
+		int total = 0;
+		List<UUID> messageIds;
+
+		do {
+			// make_visible_at holds the local time of this node, same as the per message jobs
+			LocalDateTime now = LocalDateTime.now();
+
+			// @formatter:off
+			messageIds = transactionTemplate.execute(status -> messageRepository.makeDueMessagesVisible(now, batchSize)
+					.stream()
+					.map(UUID::fromString)
+					.collect(Collectors.toList()));
+			// @formatter:on
+
+			if (!messageIds.isEmpty()) {
+				eventPublisher.publishEvent(new MessagesVisibleEvent(messageIds));
+				total += messageIds.size();
+			}
+		} while (messageIds.size() >= batchSize);
+
+		if (total > 0) {
+			log.info("Made {} messages visible", total);
+		}
+
+		return total;
+	}
+}
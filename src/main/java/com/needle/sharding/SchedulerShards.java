@@ -0,0 +1,334 @@
+package com.needle.sharding;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.impl.StdSchedulerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.quartz.JobStoreType;
+import org.springframework.boot.autoconfigure.quartz.QuartzProperties;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.quartz.SchedulerFactoryBean;
+import org.springframework.scheduling.quartz.SpringBeanJobFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.needle.jobs.store.JobStoreSchedulerFactory;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Logical schedulers sharing the job store tables. Each shard has its own
+ * instance name and so its own rows in QRTZ_LOCKS, the nodes firing different
+ * shards don't wait on each other for the TRIGGER_ACCESS lock. Jobs are routed
+ * to a shard by hashing their name; every node can store jobs in any shard but
+ * only fires the triggers of its local shards, so every shard has to be local
+ * to at least one node.
+ * <p>
+ * Without sharding the Spring Boot scheduler is the only shard. With sharding
+ * it isn't a shard anymore but keeps the jobs stored before sharding was
+ * enabled, it's still listed with the schedulers so they can be looked up,
+ * paused and deleted until they're gone.
+ * <p>
+ * Jobs with a high priority can go to an urgent lane instead: a scheduler of
+ * its own, with its own threads and lock, fired by every node. A blast due in
+ * the bulk lane doesn't hold back the acquisition of the urgent triggers.
+ */
+@Slf4j
+@Component
+public class SchedulerShards implements SmartLifecycle, DisposableBean {
+	public static final String BULK_LANE = "bulk";
+	public static final String URGENT_LANE = "urgent";
+
+	private static final String THREAD_COUNT = "org.quartz.threadPool.threadCount";
+
+	private final Scheduler scheduler;
+	private final ShardingProperties properties;
+	private final UrgentLaneProperties urgentLaneProperties;
+	private final QuartzProperties quartzProperties;
+	private final DataSource dataSource;
+	private final PlatformTransactionManager transactionManager;
+	private final ApplicationContext applicationContext;
+
+	/* Shards of the bulk lane, the urgent lane and the unsharded scheduler */
+	private final List<Scheduler> schedulers = new ArrayList<>();
+	private final List<Scheduler> shards = new ArrayList<>();
+	private final List<Scheduler> localShards = new ArrayList<>();
+	private final Map<String, Scheduler> shardsByName = new LinkedHashMap<>();
+	private final List<SchedulerFactoryBean> factories = new ArrayList<>();
+	private final List<SchedulerFactoryBean> localFactories = new ArrayList<>();
+
+	private Scheduler urgentLane = null;
+	private volatile boolean running = false;
+
+	@Autowired
+	public SchedulerShards(Scheduler scheduler, ShardingProperties properties,
+			UrgentLaneProperties urgentLaneProperties, QuartzProperties quartzProperties, DataSource dataSource, PlatformTransactionManager transactionManager,
+			ApplicationContext applicationContext) {
+		this.scheduler = scheduler;
+		this.properties = properties;
+		this.urgentLaneProperties = urgentLaneProperties;
+		this.quartzProperties = quartzProperties;
+		this.dataSource = dataSource;
+		this.transactionManager = transactionManager;
+		this.applicationContext = applicationContext;
+	}
+
+	@PostConstruct
+	public void init() throws Exception {
+		if (properties.isEnabled()) {
+			initShards();
+		} else {
+			shards.add(scheduler);
+			localShards.add(scheduler);
+			shardsByName.put(scheduler.getSchedulerName(), scheduler);
+		}
+
+		schedulers.addAll(shards);
+
+		if (properties.isEnabled()) {
+			schedulers.add(scheduler);
+			shardsByName.put(scheduler.getSchedulerName(), scheduler);
+		}
+
+		if (urgentLaneProperties.isEnabled()) {
+			String name = properties.isEnabled() ? properties.getNamePrefix() + URGENT_LANE
+					: scheduler.getSchedulerName() + "-" + URGENT_LANE;
+			SchedulerFactoryBean factory = newShard(name, urgentLaneProperties.getThreadCount());
+
+			urgentLane = factory.getObject();
+
+			factories.add(factory);
+			localFactories.add(factory);
+			schedulers.add(urgentLane);
+			shardsByName.put(name, urgentLane);
+
+			log.info("Urgent lane enabled from priority {} with {} threads", urgentLaneProperties.getMinPriority(),
+					urgentLaneProperties.getThreadCount());
+		}
+	}
+
+	private void initShards() throws Exception {
+
+		if (quartzProperties.getJobStoreType() != JobStoreType.JDBC) {
+			throw new IllegalStateException("Scheduler sharding needs the JDBC job store");
+		}
+		if (properties.getShards() < 1) {
+			throw new IllegalArgumentException("Number of shards should be at least 1");
+		}
+
+		for (Integer shard : properties.getLocalShards()) {
+			if (shard < 0 || shard >= properties.getShards()) {
+				throw new IllegalArgumentException("Unknown local shard: " + shard);
+			}
+		}
+
+		for (int shard = 0; shard < properties.getShards(); shard++) {
+			SchedulerFactoryBean factory = newShard(properties.getNamePrefix() + shard, null);
+			Scheduler shardScheduler = factory.getObject();
+
+			factories.add(factory);
+			shards.add(shardScheduler);
+			shardsByName.put(shardScheduler.getSchedulerName(), shardScheduler);
+
+			if (properties.getLocalShards().isEmpty() || properties.getLocalShards().contains(shard)) {
+				localFactories.add(factory);
+				localShards.add(shardScheduler);
+			}
+		}
+
+		log.info("Scheduler sharded {} ways, local shards: {}", shards.size(), localShards.size());
+	}
+
+	/**
+	 * Shard a job is stored in
+	 * 
+	 * @param key name the job is routed with, the same for the job and its
+	 *            trigger
+	 * @return
+	 */
+	public Scheduler shardFor(String key) {
+		if (shards.size() == 1) {
+			return shards.get(0);
+		}
+		return shards.get(Math.floorMod(key.hashCode(), shards.size()));
+	}
+
+	/**
+	 * Scheduler a job is stored in, the urgent lane for the high priorities
+	 * 
+	 * @param key
+	 * @param priority trigger priority of the job
+	 * @return
+	 */
+	public Scheduler schedulerFor(String key, int priority) {
+		if (null != urgentLane && priority >= urgentLaneProperties.getMinPriority()) {
+			return urgentLane;
+		}
+		return shardFor(key);
+	}
+
+	/**
+	 * Every scheduler of every lane, the listeners have to be added to all of them
+	 * 
+	 * @return
+	 */
+	public List<Scheduler> getSchedulers() {
+		return Collections.unmodifiableList(schedulers);
+	}
+
+	/**
+	 * Shards of the bulk lane
+	 * 
+	 * @return
+	 */
+	public List<Scheduler> getShards() {
+		return Collections.unmodifiableList(shards);
+	}
+
+	/**
+	 * Schedulers of each lane
+	 * 
+	 * @return
+	 */
+	public Map<String, List<Scheduler>> getLanes() {
+		Map<String, List<Scheduler>> lanes = new LinkedHashMap<>();
+		lanes.put(BULK_LANE, getShards());
+
+		if (null != urgentLane) {
+			lanes.put(URGENT_LANE, Collections.singletonList(urgentLane));
+		}
+
+		return lanes;
+	}
+
+	/**
+	 * Spring Boot scheduler holding the jobs stored before sharding was enabled,
+	 * null without sharding as it's the only shard then
+	 * 
+	 * @return
+	 */
+	public Scheduler getUnsharded() {
+		return properties.isEnabled() ? scheduler : null;
+	}
+
+	/**
+	 * Urgent lane, null when disabled
+	 * 
+	 * @return
+	 */
+	public Scheduler getUrgentLane() {
+		return urgentLane;
+	}
+
+	public boolean isUrgentLane(Scheduler candidate) {
+		return null != urgentLane && urgentLane == candidate;
+	}
+
+	/**
+	 * Shards of the bulk lane whose triggers are fired by this node
+	 * 
+	 * @return
+	 */
+	public List<Scheduler> getLocalShards() {
+		return Collections.unmodifiableList(localShards);
+	}
+
+	public Scheduler getShard(String schedulerName) {
+		return shardsByName.get(schedulerName);
+	}
+
+	/**
+	 * Stop acquiring triggers on the local shards, the urgent lane keeps going
+	 * 
+	 * @throws SchedulerException
+	 */
+	public void standbyLocal() throws SchedulerException {
+		for (Scheduler shard : localShards) {
+			shard.standby();
+		}
+	}
+
+	/**
+	 * Acquire triggers again on the local shards
+	 * 
+	 * @throws SchedulerException
+	 */
+	public void resumeLocal() throws SchedulerException {
+		for (Scheduler shard : localShards) {
+			shard.start();
+		}
+	}
+
+	private SchedulerFactoryBean newShard(String name, Integer threadCount) throws Exception {
+		Properties quartz = new Properties();
+		quartz.putAll(quartzProperties.getProperties());
+		quartz.setProperty(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, name);
+
+		if (null != threadCount) {
+			quartz.setProperty(THREAD_COUNT, String.valueOf(threadCount));
+		}
+
+		// Jobs get their dependencies injected, same as with the Spring Boot scheduler
+		SpringBeanJobFactory jobFactory = new SpringBeanJobFactory();
+		jobFactory.setApplicationContext(applicationContext);
+
+		SchedulerFactoryBean factory = new SchedulerFactoryBean();
+		factory.setSchedulerName(name);
+		factory.setSchedulerFactoryClass(JobStoreSchedulerFactory.class);
+		factory.setQuartzProperties(JobStoreSchedulerFactory.keepJobStoreClass(quartz));
+		if (quartzProperties.getJobStoreType() == JobStoreType.JDBC) {
+			factory.setDataSource(dataSource);
+			factory.setTransactionManager(transactionManager);
+		}
+		factory.setJobFactory(jobFactory);
+		factory.setApplicationContext(applicationContext);
+		factory.setWaitForJobsToCompleteOnShutdown(quartzProperties.isWaitForJobsToCompleteOnShutdown());
+		// Started with the application context, only when local or urgent
+		factory.setAutoStartup(false);
+		factory.afterPropertiesSet();
+
+		return factory;
+	}
+
+	@Override
+	public void start() {
+		localFactories.forEach(SchedulerFactoryBean::start);
+		running = true;
+	}
+
+	@Override
+	public void stop() {
+		localFactories.forEach(SchedulerFactoryBean::stop);
+		running = false;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	@Override
+	public int getPhase() {
+		// Same phase as the Spring Boot scheduler
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		for (SchedulerFactoryBean factory : factories) {
+			factory.destroy();
+		}
+	}
+}
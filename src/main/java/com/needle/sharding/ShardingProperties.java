@@ -0,0 +1,24 @@
+package com.needle.sharding;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "scheduler.sharding")
+public class ShardingProperties {
+	private boolean enabled = false;
+	/* Same on every node, jobs already stored stay on their shard if it changes */
+	private int shards = 4;
+	/* Shards this node fires the triggers of, all of them when empty */
+	private List<Integer> localShards = new ArrayList<>();
+	/* Shard index is appended to get the scheduler instance name */
+	private String namePrefix = "shard-";
+}
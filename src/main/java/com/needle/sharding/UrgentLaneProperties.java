@@ -0,0 +1,19 @@
+package com.needle.sharding;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "scheduler.lanes.urgent")
+public class UrgentLaneProperties {
+	private boolean enabled = false;
+	/* Jobs with at least this trigger priority go to the urgent lane */
+	private int minPriority = 8;
+	/* Quartz threads of the urgent lane, on top of the ones of the bulk lane */
+	private int threadCount = 2;
+}
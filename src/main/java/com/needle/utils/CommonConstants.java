@@ -5,4 +5,53 @@ public interface CommonConstants {
 		public String ENTRY = "Entering method {} from class {}";
 		public String EXIT = "Exiting method {} from class {}";
 	}
+
+	public interface MODES {
+		public String JOB = "job";
+		public String BUCKETED = "bucketed";
+		public String SWEEPER = "sweeper";
+	}
+
+	public interface MAIL {
+		public String SENDER = "sandeep@mail.com";
+	}
+
+	public interface METRICS {
+		public String JOB_SCHEDULE = "scheduler.job.schedule";
+		public String JOB_SCHEDULE_BATCH = "scheduler.job.schedule.batch";
+		public String JOB_FIRE_LAG = "scheduler.job.fire.lag";
+		public String JOB_FIRE_LAG_PERCENTILE = "scheduler.job.fire.lag.percentile";
+		public String JOB_EXECUTION = "scheduler.job.execution";
+		public String JOB_VETOED = "scheduler.job.vetoed";
+		public String TRIGGER_FIRED = "scheduler.trigger.fired";
+		public String TRIGGER_MISFIRED = "scheduler.trigger.misfired";
+		public String CATCH_UP_DEFERRED = "scheduler.catchup.deferred";
+		public String CATCH_UP_FIRED = "scheduler.catchup.fired";
+		public String CATCH_UP_IMMEDIATE = "scheduler.catchup.immediate";
+		public String TRIGGERS_PENDING = "scheduler.triggers.pending";
+		public String LANE_DUE_TRIGGERS = "scheduler.lane.due";
+		public String WHEEL_TRIGGERS = "scheduler.wheel.triggers";
+		public String LATENESS_BUDGET_EXCEEDED = "scheduler.lateness.budget.exceeded";
+		public String EMAIL_SEND = "email.send";
+		public String EMAIL_SEND_RETRIED = "email.send.retried";
+		public String EMAIL_SEND_ABANDONED = "email.send.abandoned";
+		public String MESSAGE_VISIBILITY = "message.visibility.update";
+		public String MESSAGE_PARTITIONS_CREATED = "message.partitions.created";
+		public String MESSAGE_PARTITIONS_DETACHED = "message.partitions.detached";
+		public String RETENTION_PURGED = "scheduler.retention.purged";
+		public String RETENTION_ARCHIVED = "scheduler.retention.archived";
+		public String RETENTION_BATCH = "scheduler.retention.batch";
+		public String IDEMPOTENT_REPLAYS = "scheduler.idempotency.replayed";
+		public String REST_QUEUED = "scheduler.rest.queued";
+		public String REST_REJECTED = "scheduler.rest.rejected";
+
+		public String TAG_GROUP = "group";
+		public String TAG_OUTCOME = "outcome";
+		public String TAG_LANE = "lane";
+		public String TAG_SOURCE = "source";
+		public String TAG_SCHEDULER = "scheduler";
+		public String TAG_PERCENTILE = "percentile";
+		public String SUCCESS = "success";
+		public String FAILURE = "failure";
+	}
 }
@@ -0,0 +1,97 @@
+package com.needle.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A text with {{name}} placeholders, split once into its literal parts and
+ * variable keys so that rendering is only appending to a buffer
+ */
+public final class CompiledTemplate {
+	private static final String OPEN = "{{";
+	private static final String CLOSE = "}}";
+
+	/* One more literal than keys, the text around each placeholder */
+	private final String[] literals;
+	private final String[] keys;
+	private final int literalLength;
+
+	private CompiledTemplate(String[] literals, String[] keys) {
+		this.literals = literals;
+		this.keys = keys;
+
+		int length = 0;
+		for (String literal : literals) {
+			length += literal.length();
+		}
+		this.literalLength = length;
+	}
+
+	/**
+	 * Parse a template
+	 *
+	 * @param source
+	 * @param keyPrefix prepended to the placeholder names to give the keys the
+	 *                  variables are looked up with
+	 * @return
+	 */
+	public static CompiledTemplate compile(String source, String keyPrefix) {
+		List<String> literals = new ArrayList<>();
+		List<String> keys = new ArrayList<>();
+
+		String text = null == source ? "" : source;
+		int from = 0;
+
+		while (true) {
+			int open = text.indexOf(OPEN, from);
+			int close = open < 0 ? -1 : text.indexOf(CLOSE, open + OPEN.length());
+
+			// An unclosed placeholder is left as it is
+			if (close < 0) {
+				break;
+			}
+
+			literals.add(text.substring(from, open));
+			keys.add(keyPrefix + text.substring(open + OPEN.length(), close).trim());
+			from = close + CLOSE.length();
+		}
+
+		literals.add(text.substring(from));
+
+		return new CompiledTemplate(literals.toArray(new String[0]), keys.toArray(new String[0]));
+	}
+
+	/**
+	 * Append the template to a buffer, a variable without value renders as empty
+	 *
+	 * @param out
+	 * @param variables value of a variable by its key
+	 */
+	public void render(StringBuilder out, Function<String, String> variables) {
+		out.append(literals[0]);
+
+		for (int i = 0; i < keys.length; i++) {
+			String value = variables.apply(keys[i]);
+
+			if (null != value) {
+				out.append(value);
+			}
+			out.append(literals[i + 1]);
+		}
+	}
+
+	/**
+	 * Number of chars of the template without its variables, the least a render
+	 * takes
+	 *
+	 * @return
+	 */
+	public int getLiteralLength() {
+		return literalLength;
+	}
+
+	public int getVariableCount() {
+		return keys.length;
+	}
+}
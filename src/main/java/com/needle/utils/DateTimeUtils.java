@@ -150,4 +150,17 @@ public class DateTimeUtils {
 	public static Date localDateTime2Date(LocalDateTime localDateTime) {
 		return Date.from(localDateTime.atZone(ZoneId.systemDefault()).toInstant());
 	}
+
+	/**
+	 * Epoch minute an instant falls due in, rounded up so that nothing is
+	 * delivered early
+	 *
+	 * @param instant instant
+	 * @return epoch minute
+	 */
+	public static long toDeliveryMinute(Instant instant) {
+		long minute = Math.floorDiv(instant.getEpochSecond(), 60);
+		boolean onTheMinute = Math.floorMod(instant.getEpochSecond(), 60) == 0 && instant.getNano() == 0;
+		return onTheMinute ? minute : minute + 1;
+	}
 }
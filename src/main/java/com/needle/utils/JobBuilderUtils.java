@@ -2,7 +2,8 @@ package com.needle.utils;
 
 import java.time.LocalDateTime;
 import java.util.Date;
-import java.util.UUID;
+import java.util.List;
+import java.util.Objects;
 
 import org.quartz.CronScheduleBuilder;
 import org.quartz.CronTrigger;
@@ -10,10 +11,18 @@ import org.quartz.Job;
 import org.quartz.JobBuilder;
 import org.quartz.JobDataMap;
 import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.ObjectAlreadyExistsException;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
 import org.quartz.SimpleScheduleBuilder;
+import org.quartz.SimpleTrigger;
 import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
 
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 public class JobBuilderUtils {
 
 	private JobBuilderUtils() {
@@ -34,7 +43,28 @@ public class JobBuilderUtils {
 			String description) {
 		// @formatter:off
 		return JobBuilder.newJob(jobClass)
-				.withIdentity(UUID.randomUUID().toString(), group)
+				.withIdentity(TimeOrderedUuid.next().toString(), group)
+				.withDescription(description)
+				.usingJobData(jobDataMap)
+				.build();
+		// @formatter:on
+	}
+
+	/**
+	 * Build a job detail with a fixed key, used for jobs that exist only once
+	 * 
+	 * @param <T>
+	 * @param jobClass
+	 * @param jobDataMap
+	 * @param jobKey
+	 * @param description
+	 * @return
+	 */
+	public static <T extends Job> JobDetail buildJobDetail(final Class<T> jobClass, JobDataMap jobDataMap,
+			JobKey jobKey, String description) {
+		// @formatter:off
+		return JobBuilder.newJob(jobClass)
+				.withIdentity(jobKey)
 				.withDescription(description)
 				.usingJobData(jobDataMap)
 				.build();
@@ -57,7 +87,7 @@ public class JobBuilderUtils {
 		if (shouldStoreDurably) {
 			// @formatter:off
 			return JobBuilder.newJob(jobClass)
-					.withIdentity(UUID.randomUUID().toString(), group)
+					.withIdentity(TimeOrderedUuid.next().toString(), group)
 					.withDescription(description)
 					.usingJobData(jobDataMap)
 					.storeDurably() // Store the reference of the job in db
@@ -146,6 +176,104 @@ public class JobBuilderUtils {
 		// @formatter:on
 	}
 
+	/**
+	 * Register a job repeating with a time interval once for the whole cluster,
+	 * see {@link JobBuilderUtils#registerRecurring(Scheduler, JobDetail, Trigger)}
+	 * 
+	 * @param <T>
+	 * @param scheduler
+	 * @param jobClass
+	 * @param jobKey
+	 * @param triggerGroup
+	 * @param description             prefix of the job and trigger descriptions
+	 * @param repeatIntervalInSeconds
+	 * @param priority                of the trigger, the lowest lets the triggers
+	 *                                due at the same time go first
+	 * @throws SchedulerException
+	 */
+	public static <T extends Job> void registerRecurring(Scheduler scheduler, final Class<T> jobClass, JobKey jobKey,
+			String triggerGroup, String description, int repeatIntervalInSeconds, int priority)
+			throws SchedulerException {
+		JobDetail jobDetail = buildJobDetail(jobClass, new JobDataMap(), jobKey, description + " Job");
+		Trigger trigger = buildTriggerThatRepeatsByInterval(jobDetail, triggerGroup, description + " Trigger",
+				repeatIntervalInSeconds).getTriggerBuilder().withPriority(priority).build();
+
+		registerRecurring(scheduler, jobDetail, trigger);
+	}
+
+	/**
+	 * Register a recurring job once for the whole cluster. A job registered
+	 * before, by another node or an earlier deploy, is rescheduled when its
+	 * schedule or priority changed and left alone otherwise.
+	 * 
+	 * @param scheduler
+	 * @param jobDetail
+	 * @param trigger
+	 * @throws SchedulerException
+	 */
+	public static void registerRecurring(Scheduler scheduler, JobDetail jobDetail, Trigger trigger)
+			throws SchedulerException {
+		JobKey jobKey = jobDetail.getKey();
+		trigger = trigger.getTriggerBuilder().forJob(jobKey).build();
+
+		List<? extends Trigger> registered = scheduler.getTriggersOfJob(jobKey);
+
+		if (!registered.isEmpty()) {
+			Trigger current = registered.get(0);
+
+			if (!sameSchedule(current, trigger)) {
+				scheduler.rescheduleJob(current.getKey(), trigger);
+				log.info("Recurring job {} rescheduled", jobKey);
+			}
+			return;
+		}
+
+		try {
+			if (scheduler.checkExists(jobKey)) {
+				// Left without a trigger, e.g. unscheduled by hand
+				scheduler.scheduleJob(trigger);
+			} else {
+				scheduler.scheduleJob(jobDetail, trigger);
+			}
+			log.info("Recurring job {} registered", jobKey);
+		} catch (ObjectAlreadyExistsException e) {
+			// Registered by another node in the meantime
+			log.info("Recurring job {} already registered", jobKey);
+		}
+	}
+
+	/**
+	 * Remove a recurring job that is disabled, it stays in a JDBC job store and
+	 * keeps firing otherwise
+	 * 
+	 * @param scheduler
+	 * @param jobKey
+	 * @return true when it was registered
+	 * @throws SchedulerException
+	 */
+	public static boolean unregisterRecurring(Scheduler scheduler, JobKey jobKey) throws SchedulerException {
+		if (!scheduler.deleteJob(jobKey)) {
+			return false;
+		}
+
+		log.info("Recurring job {} disabled, unregistered", jobKey);
+		return true;
+	}
+
+	private static boolean sameSchedule(Trigger current, Trigger wanted) {
+		if (current.getPriority() != wanted.getPriority()) {
+			return false;
+		}
+		if (current instanceof SimpleTrigger && wanted instanceof SimpleTrigger) {
+			return ((SimpleTrigger) current).getRepeatInterval() == ((SimpleTrigger) wanted).getRepeatInterval();
+		}
+		if (current instanceof CronTrigger && wanted instanceof CronTrigger) {
+			return Objects.equals(((CronTrigger) current).getCronExpression(),
+					((CronTrigger) wanted).getCronExpression());
+		}
+		return false;
+	}
+
 	/**
 	 * Build a job trigger with a cron expression and a timeout
 	 * 
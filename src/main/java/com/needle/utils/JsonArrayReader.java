@@ -0,0 +1,72 @@
+package com.needle.utils;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.needle.dtos.email.BatchItem;
+
+import lombok.SneakyThrows;
+
+/**
+ * Reads the elements of a JSON array one at a time so that large batches are
+ * never held in memory. An element that can't be bound to the target type is
+ * returned as a rejected item instead of failing the whole array.
+ */
+public class JsonArrayReader<T> implements Iterator<BatchItem<T>> {
+	private final JsonParser parser;
+	private final ObjectMapper objectMapper;
+	private final Class<T> type;
+
+	private JsonToken current;
+	private int index = 0;
+
+	public JsonArrayReader(JsonParser parser, ObjectMapper objectMapper, Class<T> type) throws IOException {
+		this.parser = parser;
+		this.objectMapper = objectMapper;
+		this.type = type;
+
+		if (parser.nextToken() != JsonToken.START_ARRAY) {
+			// Bad input like any other body that doesn't bind
+			throw MismatchedInputException.from(parser, type, "Expected a JSON array");
+		}
+	}
+
+	@Override
+	@SneakyThrows
+	public boolean hasNext() {
+		if (null == current) {
+			current = parser.nextToken();
+		}
+		return null != current && current != JsonToken.END_ARRAY;
+	}
+
+	@Override
+	@SneakyThrows
+	public BatchItem<T> next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		// Read the whole element first so that a binding error leaves the parser
+		// positioned on the next element
+		JsonNode node = objectMapper.readTree(parser);
+		current = null;
+
+		int itemIndex = index++;
+
+		try {
+			return BatchItem.of(itemIndex, objectMapper.treeToValue(node, type));
+		} catch (JsonProcessingException e) {
+			return BatchItem.rejected(itemIndex, e.getOriginalMessage());
+		} catch (IllegalArgumentException e) {
+			return BatchItem.rejected(itemIndex, e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package com.needle.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Least recently used cache bounded by the total weight of its values, e.g.
+ * their size in bytes
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class LruCache<K, V> {
+	private final long maxWeight;
+	private final ToLongFunction<V> weigher;
+	private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long weight = 0;
+
+	public LruCache(long maxWeight, ToLongFunction<V> weigher) {
+		this.maxWeight = maxWeight;
+		this.weigher = weigher;
+	}
+
+	public synchronized V get(K key) {
+		return entries.get(key);
+	}
+
+	/**
+	 * Add a value, evicting the least recently used ones to make room. A value
+	 * heavier than the whole cache isn't kept.
+	 *
+	 * @param key
+	 * @param value
+	 */
+	public synchronized void put(K key, V value) {
+		long valueWeight = weigher.applyAsLong(value);
+
+		if (valueWeight > maxWeight) {
+			invalidate(key);
+			return;
+		}
+
+		V previous = entries.put(key, value);
+
+		if (null != previous) {
+			weight -= weigher.applyAsLong(previous);
+		}
+		weight += valueWeight;
+
+		Iterator<Map.Entry<K, V>> eldest = entries.entrySet().iterator();
+
+		while (weight > maxWeight && eldest.hasNext()) {
+			weight -= weigher.applyAsLong(eldest.next().getValue());
+			eldest.remove();
+		}
+	}
+
+	public synchronized void invalidate(K key) {
+		V removed = entries.remove(key);
+
+		if (null != removed) {
+			weight -= weigher.applyAsLong(removed);
+		}
+	}
+
+	public synchronized void invalidateAll() {
+		entries.clear();
+		weight = 0;
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long weight() {
+		return weight;
+	}
+}
@@ -0,0 +1,56 @@
+package com.needle.utils;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version 7 UUIDs: the Unix time in milliseconds in the first 48 bits, then a
+ * 12 bits counter and 62 random bits. Ids generated one after the other sort
+ * in that order, as UUIDs and as strings, so that new keys land on the last
+ * pages of a B-tree instead of anywhere in it.
+ */
+public class TimeOrderedUuid {
+	private static final SecureRandom RANDOM = new SecureRandom();
+	/* Milliseconds shifted left by 12 bits plus the counter of the last id */
+	private static final AtomicLong LAST = new AtomicLong();
+
+	private TimeOrderedUuid() {
+		throw new AssertionError("Suppress default constructor for noninstantiability");
+	}
+
+	/**
+	 * A new id, greater than every id generated before by this JVM
+	 * 
+	 * @return
+	 */
+	public static UUID next() {
+		return next(System.currentTimeMillis());
+	}
+
+	static UUID next(long millis) {
+		long last;
+		long stamp;
+
+		do {
+			last = LAST.get();
+			// Past 4096 ids within a millisecond the time runs a little ahead
+			stamp = Math.max(millis << 12, last + 1);
+		} while (!LAST.compareAndSet(last, stamp));
+
+		long mostSigBits = (stamp >>> 12) << 16 | 0x7000L | (stamp & 0xfffL);
+		long leastSigBits = RANDOM.nextLong() & 0x3fffffffffffffffL | 0x8000000000000000L;
+
+		return new UUID(mostSigBits, leastSigBits);
+	}
+
+	/**
+	 * Unix time in milliseconds an id was generated at
+	 * 
+	 * @param uuid
+	 * @return
+	 */
+	static long millisOf(UUID uuid) {
+		return uuid.getMostSignificantBits() >>> 16;
+	}
+}
@@ -0,0 +1,137 @@
+package com.needle.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Hierarchical timing wheel. Each level is a ring of buckets of one tick, the
+ * next level has a tick as long as the whole ring below it and takes the items
+ * too far ahead for it. Items come down a level as the wheel gets to them, so
+ * adding and polling cost doesn't depend on how many items are further ahead.
+ * <p>
+ * Not thread safe.
+ *
+ * @param <T>
+ */
+public class TimingWheel<T> {
+	private final long tickMillis;
+	private final int wheelSize;
+	/* Time covered by the ring of this level */
+	private final long interval;
+	private final List<List<Entry<T>>> buckets;
+
+	/* Start of the current tick */
+	private long currentTime;
+	private TimingWheel<T> overflow;
+	private int size = 0;
+
+	public TimingWheel(long tickMillis, int wheelSize, long startTime) {
+		if (tickMillis < 1 || wheelSize < 2) {
+			throw new IllegalArgumentException("Tick should be at least 1 ms and the wheel at least 2 buckets");
+		}
+
+		this.tickMillis = tickMillis;
+		this.wheelSize = wheelSize;
+		this.interval = tickMillis * wheelSize;
+		this.currentTime = startTime - Math.floorMod(startTime, tickMillis);
+		this.buckets = new ArrayList<>(wheelSize);
+
+		for (int i = 0; i < wheelSize; i++) {
+			buckets.add(new ArrayList<>());
+		}
+	}
+
+	/**
+	 * Add an item, one already due goes to the current tick
+	 *
+	 * @param expiration
+	 * @param item
+	 */
+	public void add(long expiration, T item) {
+		add(new Entry<>(expiration, item));
+	}
+
+	/**
+	 * Take out the items due at the given time at the latest, the wheel moves
+	 * forward to it
+	 *
+	 * @param until
+	 * @return
+	 */
+	public List<Entry<T>> poll(long until) {
+		List<Entry<T>> due = new ArrayList<>();
+		List<Entry<T>> ahead = new ArrayList<>();
+
+		advance(until, entry -> (entry.getExpiration() <= until ? due : ahead).add(entry));
+
+		// The rest of the current tick
+		ahead.forEach(this::add);
+
+		return due;
+	}
+
+	public int size() {
+		return size + (null == overflow ? 0 : overflow.size());
+	}
+
+	private void add(Entry<T> entry) {
+		long expiration = Math.max(entry.getExpiration(), currentTime);
+
+		if (expiration < currentTime + interval) {
+			buckets.get(index(expiration)).add(entry);
+			size++;
+			return;
+		}
+
+		if (null == overflow) {
+			overflow = new TimingWheel<>(interval, wheelSize, currentTime);
+		}
+
+		overflow.add(entry);
+	}
+
+	/**
+	 * Empty the buckets up to the one of the given time into the sink, items of
+	 * the upper level come down at each turn of the ring
+	 *
+	 * @param until
+	 * @param sink
+	 */
+	private void advance(long until, Consumer<Entry<T>> sink) {
+		while (true) {
+			List<Entry<T>> bucket = buckets.get(index(currentTime));
+
+			if (!bucket.isEmpty()) {
+				List<Entry<T>> entries = new ArrayList<>(bucket);
+				bucket.clear();
+				size -= entries.size();
+				entries.forEach(sink);
+			}
+
+			if (currentTime + tickMillis > until) {
+				return;
+			}
+
+			currentTime += tickMillis;
+
+			if (null != overflow && Math.floorMod(currentTime, interval) == 0) {
+				overflow.advance(currentTime, this::add);
+			}
+		}
+	}
+
+	private int index(long time) {
+		return (int) Math.floorMod(Math.floorDiv(time, tickMillis), (long) wheelSize);
+	}
+
+	@Getter
+	@AllArgsConstructor
+	public static class Entry<T> {
+		private final long expiration;
+		private final T item;
+	}
+}
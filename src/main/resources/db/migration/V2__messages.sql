@@ -0,0 +1,14 @@
+-- Messages, as created by Hibernate so far, kept as is when it exists already
+CREATE TABLE IF NOT EXISTS messages
+(
+  id              UUID         NOT NULL,
+  content         VARCHAR(255) NULL,
+  is_visible      BOOLEAN      NOT NULL DEFAULT false,
+  make_visible_at TIMESTAMP    NULL,
+  created_at      TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT timezone('utc'::text, now()),
+  modified_at     TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT timezone('utc'::text, now()),
+  PRIMARY KEY (id)
+);
+
+-- Partial index used by the visibility sweeper, only the pending messages are indexed
+CREATE INDEX IF NOT EXISTS IDX_MESSAGES_PENDING_VISIBILITY ON messages (make_visible_at) WHERE is_visible = false;
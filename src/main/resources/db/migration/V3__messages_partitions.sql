@@ -0,0 +1,54 @@
+-- Messages partitioned by month of creation, needs PostgreSQL 11 or later. created_at is set once by the
+-- database and never updated so a row never moves between partitions, unlike make_visible_at which is
+-- cleared when a message is unscheduled. The partitions ahead are created, and the old ones detached,
+-- by MessagePartitionJob.
+
+-- The existing table becomes the first partition as it is, nothing is copied. Its primary key has
+-- to include the partition key like the one of the partitioned table.
+ALTER TABLE messages RENAME TO messages_p_initial;
+
+DO $$
+DECLARE
+  pkey NAME;
+BEGIN
+  SELECT conname INTO pkey FROM pg_constraint
+  WHERE conrelid = 'messages_p_initial'::regclass AND contype = 'p';
+
+  IF pkey IS NOT NULL THEN
+    EXECUTE format('ALTER TABLE messages_p_initial DROP CONSTRAINT %I', pkey);
+  END IF;
+END
+$$;
+
+ALTER TABLE messages_p_initial ADD CONSTRAINT PK_MESSAGES_P_INITIAL PRIMARY KEY (id, created_at);
+
+CREATE TABLE messages
+(
+  id              UUID         NOT NULL,
+  content         VARCHAR(255) NULL,
+  is_visible      BOOLEAN      NOT NULL DEFAULT false,
+  make_visible_at TIMESTAMP    NULL,
+  created_at      TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT timezone('utc'::text, now()),
+  modified_at     TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT timezone('utc'::text, now()),
+  CONSTRAINT PK_MESSAGES PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Pending messages only, created on every partition. Same definition as IDX_MESSAGES_PENDING_VISIBILITY
+-- so that the index of the initial partition is attached instead of built again.
+CREATE INDEX IDX_MESSAGES_PENDING ON messages (make_visible_at) WHERE is_visible = false;
+
+-- The initial partition takes everything created until the end of the current month, attaching it
+-- scans it once to check the bounds. The next month is created right away, the job does the rest.
+DO $$
+DECLARE
+  next_month TIMESTAMP := date_trunc('month', timezone('utc'::text, now())) + INTERVAL '1 month';
+BEGIN
+  EXECUTE format('ALTER TABLE messages ATTACH PARTITION messages_p_initial FOR VALUES FROM (MINVALUE) TO (%L)',
+    next_month);
+  EXECUTE format('CREATE TABLE messages_p%s PARTITION OF messages FOR VALUES FROM (%L) TO (%L)',
+    to_char(next_month, 'YYYYMM'), next_month, next_month + INTERVAL '1 month');
+END
+$$;
+
+-- Catches the rows past the last partition should the job stop running, stays empty otherwise
+CREATE TABLE messages_p_default PARTITION OF messages DEFAULT;
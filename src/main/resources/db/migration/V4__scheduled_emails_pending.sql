@@ -0,0 +1,20 @@
+-- Scheduled emails, as created by Hibernate so far, kept as is when it exists already
+CREATE TABLE IF NOT EXISTS scheduled_emails
+(
+  id              UUID         NOT NULL,
+  email           VARCHAR(255) NOT NULL,
+  subject         VARCHAR(255) NULL,
+  body            TEXT         NULL,
+  deliver_at      TIMESTAMP    NULL,
+  delivery_minute BIGINT       NOT NULL,
+  sent_at         TIMESTAMP    NULL,
+  created_at      TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT timezone('utc'::text, now()),
+  PRIMARY KEY (id)
+);
+
+-- Partial index used by the bucket dispatcher, only the pending emails are indexed
+-- and the id lets the dispatcher page through a bucket without sorting it
+CREATE INDEX IF NOT EXISTS IDX_SCHEDULED_EMAILS_PENDING ON scheduled_emails (delivery_minute, id) WHERE sent_at IS NULL;
+
+-- Superseded by the partial index, it also covered every email already sent
+DROP INDEX IF EXISTS idx_scheduled_emails_delivery_minute;
@@ -0,0 +1,157 @@
+package com.needle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.Trigger;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.needle.dtos.email.BaseResponse;
+import com.needle.dtos.email.BatchItem;
+import com.needle.dtos.email.BatchScheduleResponse;
+import com.needle.dtos.email.EmailRequest;
+import com.needle.services.EmailJobRetentionService;
+import com.needle.services.EmailSchedulerService;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * With the content codec the emails sharing a subject and body reference a
+ * single content row, counted by the jobs stored and deleted once none is left
+ */
+class EmailContentReferenceTests {
+	private static EmbeddedPostgres postgres;
+
+	@BeforeAll
+	static void startDatabase() throws IOException {
+		postgres = EmbeddedPostgres.start();
+	}
+
+	@AfterAll
+	static void stopDatabase() throws IOException {
+		postgres.close();
+	}
+
+	@Test
+	void countsTheJobsStoredWithAContent() throws Exception {
+		try (ConfigurableApplicationContext context = start()) {
+			EmailSchedulerService emailSchedulerService = context.getBean(EmailSchedulerService.class);
+			JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+			BaseResponse first = emailSchedulerService.schedule(request("Shared body"));
+			BaseResponse second = emailSchedulerService.schedule(request("Shared body"));
+
+			assertThat(refCount(jdbcTemplate)).containsExactly(2);
+
+			// Failed schedules leave the count as it was
+			rejectJobs(jdbcTemplate, true);
+			try {
+				assertThatThrownBy(() -> emailSchedulerService.schedule(request("Shared body")));
+				assertThatThrownBy(() -> emailSchedulerService.schedule(request("Body of a failed job")));
+
+				BatchScheduleResponse batch = emailSchedulerService.scheduleBatch(batch(request("Shared body"), 3));
+
+				assertThat(batch.getRejected()).isEqualTo(3);
+			} finally {
+				rejectJobs(jdbcTemplate, false);
+			}
+
+			assertThat(refCount(jdbcTemplate)).containsExactly(2);
+
+			// Purging one job keeps the content of the other
+			purge(context, first);
+
+			assertThat(refCount(jdbcTemplate)).containsExactly(1);
+
+			purge(context, second);
+
+			assertThat(refCount(jdbcTemplate)).isEmpty();
+		}
+	}
+
+	private static EmailRequest request(String body) {
+		// @formatter:off
+		return EmailRequest.builder()
+				.email("jhon@mail.com")
+				.subject("Hello")
+				.body(body)
+				.deliverOn(LocalDateTime.now(ZoneOffset.UTC).plusDays(1))
+				.timeZone(ZoneOffset.UTC)
+				.build();
+		// @formatter:on
+	}
+
+	private static Iterator<BatchItem<EmailRequest>> batch(EmailRequest request, int size) {
+		// @formatter:off
+		return IntStream.range(0, size)
+				.mapToObj(index -> BatchItem.of(index, request))
+				.collect(Collectors.toList())
+				.iterator();
+		// @formatter:on
+	}
+
+	private static List<Integer> refCount(JdbcTemplate jdbcTemplate) {
+		return jdbcTemplate.queryForList("SELECT ref_count FROM scheduled_email_content", Integer.class);
+	}
+
+	/**
+	 * Make the job store fail to store any job, in its own transaction
+	 */
+	private static void rejectJobs(JdbcTemplate jdbcTemplate, boolean reject) {
+		if (reject) {
+			jdbcTemplate.execute("CREATE OR REPLACE FUNCTION reject_jobs() RETURNS trigger AS"
+					+ " $$ BEGIN RAISE EXCEPTION 'Job rejected'; END $$ LANGUAGE plpgsql");
+			jdbcTemplate.execute("CREATE TRIGGER reject_jobs BEFORE INSERT ON qrtz_job_details"
+					+ " FOR EACH ROW EXECUTE FUNCTION reject_jobs()");
+		} else {
+			jdbcTemplate.execute("DROP TRIGGER reject_jobs ON qrtz_job_details");
+		}
+	}
+
+	/**
+	 * Unschedule a job, it stays stored until the retention purges it
+	 */
+	private static void purge(ConfigurableApplicationContext context, BaseResponse response) throws Exception {
+		Scheduler scheduler = context.getBean(Scheduler.class);
+		EmailJobRetentionService emailJobRetentionService = context.getBean(EmailJobRetentionService.class);
+
+		for (Trigger trigger : scheduler.getTriggersOfJob(new JobKey(response.getJobId(), response.getJobGroup()))) {
+			scheduler.unscheduleJob(trigger.getKey());
+		}
+		ReflectionTestUtils.setField(emailJobRetentionService, "enabled", true);
+		emailJobRetentionService.purge(scheduler.getSchedulerName(), null);
+	}
+
+	private static ConfigurableApplicationContext start() {
+		// Command line arguments, the default properties would lose to application.properties
+		// @formatter:off
+		return new SpringApplicationBuilder(EmailSchedulerPocApplication.class)
+				.run("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+						"--spring.datasource.username=postgres",
+						"--spring.datasource.password=",
+						"--spring.jpa.show-sql=false",
+						"--server.port=0",
+						"--scheduler.email.payload-codec=content",
+						"--scheduler.retention.enabled=false",
+						"--scheduler.retention.max-age-days=-1",
+						"--scheduler.retention.archive=false",
+						"--scheduler.retention.pause-millis=0");
+		// @formatter:on
+	}
+}
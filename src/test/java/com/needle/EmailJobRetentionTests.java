@@ -0,0 +1,138 @@
+package com.needle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.TriggerBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.needle.jobs.EmaillSchedulerJob;
+import com.needle.jobs.listeners.JobLatencyListener;
+import com.needle.services.EmailJobRetentionService;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * The retention deletes the executed email jobs straight from the job store
+ * tables, only the ones delivered before the retention and no longer firing
+ */
+class EmailJobRetentionTests {
+	private static final String GROUP = EmaillSchedulerJob.class.getSimpleName();
+	private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+	private static EmbeddedPostgres postgres;
+
+	@BeforeAll
+	static void startDatabase() throws IOException {
+		postgres = EmbeddedPostgres.start();
+	}
+
+	@AfterAll
+	static void stopDatabase() throws IOException {
+		postgres.close();
+	}
+
+	@Test
+	void purgesOnlyTheExpiredJobsNoLongerFiring() throws Exception {
+		try (ConfigurableApplicationContext context = start()) {
+			Scheduler scheduler = context.getBean(Scheduler.class);
+			EmailJobRetentionService emailJobRetentionService = context.getBean(EmailJobRetentionService.class);
+			long now = System.currentTimeMillis();
+
+			JobKey expired = store(scheduler, "expired", now - 40 * DAY_MILLIS);
+			JobKey untracked = store(scheduler, "untracked", null);
+			JobKey recent = store(scheduler, "recent", now - DAY_MILLIS);
+			JobKey triggered = store(scheduler, "triggered", now - 40 * DAY_MILLIS);
+			JobKey firing = store(scheduler, "firing", now - 40 * DAY_MILLIS);
+
+			// @formatter:off
+			scheduler.scheduleJob(TriggerBuilder.newTrigger()
+					.forJob(triggered)
+					.withIdentity(triggered.getName(), GROUP)
+					.startAt(new Date(now + DAY_MILLIS))
+					.build());
+			// @formatter:on
+			fire(context, scheduler, firing);
+
+			// Disabled at startup, a trigger left by another node purges nothing
+			assertThat(scheduler.checkExists(new JobKey("email-job-retention", "retention-job-group"))).isFalse();
+			emailJobRetentionService.purge(scheduler.getSchedulerName(), null);
+
+			assertThat(scheduler.checkExists(expired)).isTrue();
+
+			ReflectionTestUtils.setField(emailJobRetentionService, "enabled", true);
+			String cursor = emailJobRetentionService.purge(scheduler.getSchedulerName(), null);
+
+			assertThat(cursor).isEmpty();
+			assertThat(scheduler.checkExists(expired)).isFalse();
+			assertThat(scheduler.checkExists(untracked)).isFalse();
+			assertThat(scheduler.checkExists(recent)).isTrue();
+			assertThat(scheduler.checkExists(triggered)).isTrue();
+			assertThat(scheduler.checkExists(firing)).isTrue();
+		}
+	}
+
+	private static JobKey store(Scheduler scheduler, String name, Long deliverAt) throws Exception {
+		// @formatter:off
+		JobDetail jobDetail = JobBuilder.newJob(EmaillSchedulerJob.class)
+				.withIdentity(name, GROUP)
+				.storeDurably()
+				.build();
+		// @formatter:on
+
+		if (null != deliverAt) {
+			// Stored as a string by the email jobs
+			jobDetail.getJobDataMap().put(JobLatencyListener.DELIVER_AT_KEY, String.valueOf(deliverAt));
+		}
+
+		scheduler.addJob(jobDetail, false);
+
+		return jobDetail.getKey();
+	}
+
+	/**
+	 * Fired trigger row of a job being executed by this node, its trigger
+	 * already gone
+	 */
+	private static void fire(ConfigurableApplicationContext context, Scheduler scheduler, JobKey jobKey)
+			throws Exception {
+		long now = System.currentTimeMillis();
+
+		// @formatter:off
+		context.getBean(JdbcTemplate.class).update("INSERT INTO qrtz_fired_triggers (sched_name, entry_id,"
+				+ " trigger_name, trigger_group, instance_name, fired_time, sched_time, priority, state,"
+				+ " job_name, job_group, is_nonconcurrent, requests_recovery)"
+				+ " VALUES (?, ?, ?, ?, ?, ?, ?, 5, 'EXECUTING', ?, ?, TRUE, FALSE)",
+				scheduler.getSchedulerName(), "firing-entry", jobKey.getName(), GROUP,
+				scheduler.getSchedulerInstanceId(), now, now, jobKey.getName(), jobKey.getGroup());
+		// @formatter:on
+	}
+
+	private static ConfigurableApplicationContext start() {
+		// Command line arguments, the default properties would lose to application.properties
+		// @formatter:off
+		return new SpringApplicationBuilder(EmailSchedulerPocApplication.class)
+				.run("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+						"--spring.datasource.username=postgres",
+						"--spring.datasource.password=",
+						"--spring.jpa.show-sql=false",
+						"--server.port=0",
+						"--scheduler.retention.enabled=false",
+						"--scheduler.retention.archive=false",
+						"--scheduler.retention.pause-millis=0");
+		// @formatter:on
+	}
+}
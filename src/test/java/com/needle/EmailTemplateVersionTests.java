@@ -0,0 +1,110 @@
+package com.needle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.quartz.JobDataMap;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.needle.dtos.email.BaseResponse;
+import com.needle.dtos.email.EmailRequest;
+import com.needle.jobs.payload.EmailPayload;
+import com.needle.jobs.payload.EmailPayloads;
+import com.needle.services.EmailSchedulerService;
+import com.needle.services.EmailTemplateService;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Template emails are rendered when their job fires, with the version of the
+ * template they were scheduled with
+ */
+class EmailTemplateVersionTests {
+	private static EmbeddedPostgres postgres;
+
+	@BeforeAll
+	static void startDatabase() throws IOException {
+		postgres = EmbeddedPostgres.start();
+	}
+
+	@AfterAll
+	static void stopDatabase() throws IOException {
+		postgres.close();
+	}
+
+	@Test
+	void rendersScheduledEmailsWithTheirTemplateVersion() throws Exception {
+		try (ConfigurableApplicationContext context = start()) {
+			EmailTemplateService emailTemplateService = context.getBean(EmailTemplateService.class);
+			EmailPayloads emailPayloads = context.getBean(EmailPayloads.class);
+
+			emailTemplateService.save("welcome", "Welcome {{name}}", "First version for {{name}}");
+			BaseResponse first = schedule(context);
+
+			emailTemplateService.save("welcome", "Welcome back {{name}}", "Second version for {{name}}");
+			BaseResponse second = schedule(context);
+
+			EmailPayload firstPayload = emailPayloads.read(jobDataMap(context, first));
+			EmailPayload secondPayload = emailPayloads.read(jobDataMap(context, second));
+
+			assertThat(emailTemplateService.currentVersion("welcome")).isEqualTo(2);
+			assertThat(firstPayload.getSubject()).isEqualTo("Welcome Jhon");
+			assertThat(firstPayload.getBody()).isEqualTo("First version for Jhon");
+			assertThat(secondPayload.getSubject()).isEqualTo("Welcome back Jhon");
+			assertThat(secondPayload.getBody()).isEqualTo("Second version for Jhon");
+
+			// Jobs scheduled before the versions were kept render the latest one
+			JobDataMap unversioned = jobDataMap(context, first);
+			unversioned.remove(EmailPayloads.TEMPLATE_VERSION_KEY);
+
+			assertThat(emailPayloads.read(unversioned).getBody()).isEqualTo("Second version for Jhon");
+		}
+	}
+
+	private static BaseResponse schedule(ConfigurableApplicationContext context) throws Exception {
+		// @formatter:off
+		EmailRequest request = EmailRequest.builder()
+				.email("jhon@mail.com")
+				.templateId("welcome")
+				.variables(Map.of("name", "Jhon"))
+				.deliverOn(LocalDateTime.now(ZoneOffset.UTC).plusDays(1))
+				.timeZone(ZoneOffset.UTC)
+				.build();
+		// @formatter:on
+
+		BaseResponse response = context.getBean(EmailSchedulerService.class).schedule(request);
+
+		assertThat(response.isSuccess()).isTrue();
+
+		return response;
+	}
+
+	private static JobDataMap jobDataMap(ConfigurableApplicationContext context, BaseResponse response)
+			throws Exception {
+		JobKey jobKey = new JobKey(response.getJobId(), response.getJobGroup());
+
+		return context.getBean(Scheduler.class).getJobDetail(jobKey).getJobDataMap();
+	}
+
+	private static ConfigurableApplicationContext start() {
+		// Command line arguments, the default properties would lose to application.properties
+		// @formatter:off
+		return new SpringApplicationBuilder(EmailSchedulerPocApplication.class)
+				.run("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+						"--spring.datasource.username=postgres",
+						"--spring.datasource.password=",
+						"--spring.jpa.show-sql=false",
+						"--server.port=0");
+		// @formatter:on
+	}
+}
@@ -0,0 +1,177 @@
+package com.needle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.needle.dtos.email.BaseResponse;
+import com.needle.repositories.EmailIdempotencyKeyRepository;
+import com.needle.rest.ConflictException;
+import com.needle.services.IdempotencyService;
+import com.needle.services.IdempotencyService.Scheduling;
+import com.needle.services.impl.IdempotencyServiceImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * A schedule request is scheduled once per idempotency key, the keys are
+ * claimed in email_idempotency_keys
+ */
+class IdempotencyTests {
+	private static EmbeddedPostgres postgres;
+	private static ConfigurableApplicationContext context;
+
+	private final AtomicInteger scheduled = new AtomicInteger();
+
+	@BeforeAll
+	static void start() throws IOException {
+		postgres = EmbeddedPostgres.start();
+
+		// Command line arguments, the default properties would lose to application.properties
+		// @formatter:off
+		context = new SpringApplicationBuilder(EmailSchedulerPocApplication.class)
+				.run("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+						"--spring.datasource.username=postgres",
+						"--spring.datasource.password=",
+						"--spring.jpa.show-sql=false",
+						"--server.port=0");
+		// @formatter:on
+	}
+
+	@AfterAll
+	static void stop() throws IOException {
+		context.close();
+		postgres.close();
+	}
+
+	@Test
+	void replaysACompletedKey() throws Exception {
+		IdempotencyService idempotencyService = context.getBean(IdempotencyService.class);
+
+		BaseResponse first = idempotencyService.schedule("replayed", this::schedule);
+		BaseResponse second = idempotencyService.schedule("replayed", this::schedule);
+
+		// Not in the cache of a node that didn't schedule it
+		BaseResponse third = newService(24).schedule("replayed", this::schedule);
+
+		assertThat(scheduled).hasValue(1);
+		assertThat(second.getJobId()).isEqualTo(first.getJobId());
+		assertThat(third.getJobId()).isEqualTo(first.getJobId());
+	}
+
+	@Test
+	void rejectsADuplicateInFlight() throws Exception {
+		IdempotencyService idempotencyService = context.getBean(IdempotencyService.class);
+		CountDownLatch claimed = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		CompletableFuture<BaseResponse> first = CompletableFuture.supplyAsync(() -> {
+			try {
+				return idempotencyService.schedule("in-flight", () -> {
+					claimed.countDown();
+					await(release);
+					return schedule();
+				});
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+
+		assertThat(claimed.await(10, TimeUnit.SECONDS)).isTrue();
+		assertThatThrownBy(() -> idempotencyService.schedule("in-flight", this::schedule))
+				.isInstanceOf(ConflictException.class)
+				.hasFieldOrPropertyWithValue("retryAfterSeconds", 1L);
+
+		release.countDown();
+		BaseResponse response = first.get(10, TimeUnit.SECONDS);
+
+		assertThat(idempotencyService.schedule("in-flight", this::schedule).getJobId())
+				.isEqualTo(response.getJobId());
+		assertThat(scheduled).hasValue(1);
+	}
+
+	@Test
+	void takesOverAnAbandonedClaim() throws Exception {
+		EmailIdempotencyKeyRepository repository = context.getBean(EmailIdempotencyKeyRepository.class);
+		repository.insertIfAbsent("abandoned");
+		age("abandoned", "10 minutes");
+
+		BaseResponse response = context.getBean(IdempotencyService.class).schedule("abandoned", this::schedule);
+
+		assertThat(response.isSuccess()).isTrue();
+		assertThat(scheduled).hasValue(1);
+	}
+
+	@Test
+	void schedulesAgainOnceExpired() throws Exception {
+		// Keys expiring right away, the cached response with them
+		IdempotencyService idempotencyService = newService(0);
+
+		BaseResponse first = idempotencyService.schedule("expired", this::schedule);
+		BaseResponse second = idempotencyService.schedule("expired", this::schedule);
+
+		assertThat(scheduled).hasValue(2);
+		assertThat(second.getJobId()).isNotEqualTo(first.getJobId());
+	}
+
+	@Test
+	void purgesTheExpiredKeys() throws Exception {
+		IdempotencyService idempotencyService = context.getBean(IdempotencyService.class);
+		idempotencyService.schedule("purged", this::schedule);
+		age("purged", "25 hours");
+
+		assertThat(idempotencyService.purgeExpired()).isEqualTo(1);
+		assertThat(context.getBean(EmailIdempotencyKeyRepository.class).existsById("purged")).isFalse();
+		// On its own schedule, whether the job retention is enabled or not
+		assertThat(context.getBean(Scheduler.class)
+				.checkExists(new JobKey("idempotency-key-purge", "idempotency-job-group"))).isTrue();
+	}
+
+	private BaseResponse schedule() {
+		// @formatter:off
+		return BaseResponse.builder()
+				.success(true)
+				.jobId("job-" + scheduled.incrementAndGet())
+				.jobGroup("EmaillSchedulerJob")
+				.message("Email Scheduled Successfully!")
+				.build();
+		// @formatter:on
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Node of its own, with an empty cache
+	 */
+	private static IdempotencyService newService(long ttlHours) {
+		return new IdempotencyServiceImpl(context.getBean(EmailIdempotencyKeyRepository.class),
+				new SimpleMeterRegistry(), context.getBean(Scheduler.class), 100, ttlHours, 300, 3600, 1);
+	}
+
+	private static void age(String key, String interval) {
+		context.getBean(JdbcTemplate.class).update(
+				"UPDATE email_idempotency_keys SET created_at = created_at - CAST(? AS interval) WHERE id = ?",
+				interval, key);
+	}
+}
@@ -0,0 +1,87 @@
+package com.needle;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.needle.dtos.email.BaseResponse;
+import com.needle.dtos.email.EmailRequest;
+import com.needle.services.EmailSchedulerService;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Restarts the application on the same database, the pending jobs have to be
+ * there after the restart and the migrations must not run again
+ */
+class SchedulerRestartTests {
+	private static final String COUNT_MIGRATIONS = "SELECT COUNT(*) FROM flyway_schema_history WHERE success";
+
+	private static EmbeddedPostgres postgres;
+
+	@BeforeAll
+	static void startDatabase() throws IOException {
+		postgres = EmbeddedPostgres.start();
+	}
+
+	@AfterAll
+	static void stopDatabase() throws IOException {
+		postgres.close();
+	}
+
+	@Test
+	void keepsPendingJobsAcrossRestarts() throws Exception {
+		BaseResponse response;
+		int migrations;
+
+		try (ConfigurableApplicationContext context = start()) {
+			// @formatter:off
+			EmailRequest request = EmailRequest.builder()
+					.email("jhon@mail.com")
+					.subject("Testing email schedule")
+					.body("Hi Jhon this is a test message")
+					.deliverOn(LocalDateTime.now(ZoneOffset.UTC).plusDays(1))
+					.timeZone(ZoneOffset.UTC)
+					.build();
+			// @formatter:on
+
+			response = context.getBean(EmailSchedulerService.class).schedule(request);
+			migrations = context.getBean(JdbcTemplate.class).queryForObject(COUNT_MIGRATIONS, Integer.class);
+		}
+
+		assertThat(response.isSuccess()).isTrue();
+
+		try (ConfigurableApplicationContext context = start()) {
+			Scheduler scheduler = context.getBean(Scheduler.class);
+			JobKey jobKey = new JobKey(response.getJobId(), response.getJobGroup());
+
+			assertThat(scheduler.checkExists(jobKey)).isTrue();
+			assertThat(scheduler.getTriggersOfJob(jobKey)).hasSize(1);
+			assertThat(context.getBean(JdbcTemplate.class).queryForObject(COUNT_MIGRATIONS, Integer.class))
+					.isEqualTo(migrations);
+		}
+	}
+
+	private static ConfigurableApplicationContext start() {
+		// Command line arguments, the default properties would lose to application.properties
+		// @formatter:off
+		return new SpringApplicationBuilder(EmailSchedulerPocApplication.class)
+				.run("--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+						"--spring.datasource.username=postgres",
+						"--spring.datasource.password=",
+						"--spring.jpa.show-sql=false",
+						"--server.port=0");
+		// @formatter:on
+	}
+}
@@ -0,0 +1,89 @@
+package com.needle.jobs.listeners;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.quartz.TriggerKey;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MisfireCatchUpListenerTest {
+	private static final long NOW = 1_000_000_000;
+
+	private final List<Long> deferredTo = new ArrayList<>();
+
+	private MisfireCatchUpListener listener;
+	private Scheduler scheduler;
+
+	@BeforeEach
+	void createListener() throws SchedulerException {
+		MisfireCatchUpProperties properties = new MisfireCatchUpProperties();
+		properties.setEnabled(true);
+		properties.setRatePerSecond(2);
+		properties.setWindowSeconds(5);
+
+		listener = new MisfireCatchUpListener(properties, new SimpleMeterRegistry());
+
+		scheduler = mock(Scheduler.class);
+		when(scheduler.rescheduleJob(any(TriggerKey.class), any(Trigger.class))).thenAnswer(invocation -> {
+			deferredTo.add(invocation.getArgument(1, Trigger.class).getStartTime().getTime());
+			return new Date();
+		});
+	}
+
+	@Test
+	void keepsTheRatePastTheWindow() {
+		// 30 late triggers at 2 per second take 15 seconds, three times the window
+		for (int i = 0; i < 30; i++) {
+			fire("late-" + i, NOW);
+		}
+
+		assertThat(deferredTo).hasSize(29);
+		for (int i = 0; i < deferredTo.size(); i++) {
+			assertThat(deferredTo.get(i)).isEqualTo(NOW + (i + 1) * 500);
+		}
+	}
+
+	@Test
+	void startsOverFromNowOnceCaughtUp() {
+		fire("first", NOW);
+		fire("second", NOW);
+
+		// The slot after the second is long gone
+		long later = NOW + TimeUnit.SECONDS.toMillis(3);
+
+		assertThat(fire("third", later)).isFalse();
+		assertThat(fire("fourth", later)).isTrue();
+		assertThat(deferredTo).containsExactly(NOW + 500, later + 500);
+	}
+
+	private boolean fire(String name, long now) {
+		// @formatter:off
+		Trigger trigger = TriggerBuilder.newTrigger()
+				.withIdentity(name)
+				.forJob(name)
+				.startAt(new Date(now - TimeUnit.HOURS.toMillis(1)))
+				.build();
+		// @formatter:on
+
+		JobExecutionContext context = mock(JobExecutionContext.class);
+		when(context.getFireTime()).thenReturn(new Date(now));
+		when(context.getScheduler()).thenReturn(scheduler);
+
+		return listener.vetoJobExecution(trigger, context);
+	}
+}
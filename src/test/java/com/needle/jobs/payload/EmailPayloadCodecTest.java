@@ -0,0 +1,76 @@
+package com.needle.jobs.payload;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.quartz.JobDataMap;
+
+class EmailPayloadCodecTest {
+	private static final EmailPayload PAYLOAD = new EmailPayload("someone@mail.com", "Sujet été",
+			"Bonjour, à bientôt\r\n.line starting with a dot");
+	private static final EmailPayload NULL_FIELDS = new EmailPayload("someone@mail.com", null, null);
+
+	private final MapEmailPayloadCodec mapCodec = new MapEmailPayloadCodec();
+	private final BinaryEmailPayloadCodec binaryCodec = new BinaryEmailPayloadCodec(1024);
+
+	@Test
+	void mapCodecRoundTrips() {
+		assertThat(roundTrip(mapCodec, PAYLOAD)).isEqualTo(PAYLOAD);
+		assertThat(roundTrip(mapCodec, NULL_FIELDS)).isEqualTo(NULL_FIELDS);
+	}
+
+	@Test
+	void binaryCodecRoundTripsSmallPayloadsAsIs() {
+		byte[] bytes = binaryCodec.encode(PAYLOAD);
+
+		assertThat(bytes[1]).isZero();
+		assertThat(binaryCodec.decode(bytes)).isEqualTo(PAYLOAD);
+		assertThat(roundTrip(binaryCodec, PAYLOAD)).isEqualTo(PAYLOAD);
+		assertThat(roundTrip(binaryCodec, NULL_FIELDS)).isEqualTo(NULL_FIELDS);
+	}
+
+	@Test
+	void binaryCodecRoundTripsDeflatedPayloads() {
+		char[] body = new char[20_000];
+		Arrays.fill(body, 'é');
+		EmailPayload large = new EmailPayload("someone@mail.com", "Subject", new String(body));
+		EmailPayload largeWithNulls = new EmailPayload(null, null, new String(body));
+
+		byte[] bytes = binaryCodec.encode(large);
+
+		assertThat(bytes[1]).isEqualTo((byte) 1);
+		assertThat(bytes.length).isLessThan(body.length);
+		assertThat(binaryCodec.decode(bytes)).isEqualTo(large);
+		assertThat(roundTrip(binaryCodec, largeWithNulls)).isEqualTo(largeWithNulls);
+	}
+
+	@Test
+	void binaryCodecRejectsLengthsPastThePayload() {
+		// Version 1, not deflated, an email of Integer.MAX_VALUE bytes
+		byte[] bytes = { 1, 0, 0x7f, (byte) 0xff, (byte) 0xff, (byte) 0xff, 'a' };
+
+		assertThatThrownBy(() -> binaryCodec.decode(bytes)).isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("Corrupted");
+	}
+
+	@Test
+	void binaryCodecRejectsTruncatedPayloads() {
+		byte[] bytes = binaryCodec.encode(PAYLOAD);
+
+		assertThatThrownBy(() -> binaryCodec.decode(Arrays.copyOf(bytes, bytes.length - 3)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> binaryCodec.decode(new byte[] { 2, 0 })).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static EmailPayload roundTrip(EmailPayloadCodec codec, EmailPayload payload) {
+		JobDataMap jobDataMap = new JobDataMap();
+		codec.write(payload, jobDataMap);
+
+		assertThat(codec.canRead(jobDataMap)).isTrue();
+
+		return codec.read(jobDataMap);
+	}
+}
@@ -0,0 +1,155 @@
+package com.needle.jobs.store;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.Job;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.Scheduler;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.quartz.SchedulerFactoryBean;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Runs the store on the Quartz tables of an embedded Postgres
+ */
+class HybridJobStoreTest {
+	private static final String SCHEDULER_NAME = "hybrid-test";
+	private static final int JOBS = 20;
+
+	private static EmbeddedPostgres postgres;
+	private static volatile CountDownLatch fired;
+
+	private SchedulerFactoryBean factory;
+
+	@BeforeAll
+	static void startDatabase() throws IOException {
+		postgres = EmbeddedPostgres.start();
+
+		new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__quartz_tables.sql"))
+				.execute(postgres.getPostgresDatabase());
+	}
+
+	@AfterAll
+	static void stopDatabase() throws IOException {
+		postgres.close();
+	}
+
+	@BeforeEach
+	void clearTables() {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+		jdbcTemplate.update("DELETE FROM QRTZ_SIMPLE_TRIGGERS");
+		jdbcTemplate.update("DELETE FROM QRTZ_FIRED_TRIGGERS");
+		jdbcTemplate.update("DELETE FROM QRTZ_TRIGGERS");
+		jdbcTemplate.update("DELETE FROM QRTZ_JOB_DETAILS");
+	}
+
+	@AfterEach
+	void stopScheduler() throws Exception {
+		if (null != factory) {
+			factory.stop();
+			factory.destroy();
+		}
+	}
+
+	@Test
+	void firesTheTriggersItStores() throws Exception {
+		factory = start(HybridJobStore.class);
+		Scheduler scheduler = factory.getScheduler();
+
+		assertThat(scheduler.getMetaData().getJobStoreClass()).isEqualTo(HybridJobStore.class);
+
+		fired = new CountDownLatch(JOBS);
+		scheduleJobs(scheduler, "stored");
+
+		assertThat(fired.await(20, TimeUnit.SECONDS)).isTrue();
+	}
+
+	@Test
+	void firesTheTriggersStoredByAnotherNode() throws Exception {
+		// Stored straight in the tables, never seen by the wheel
+		SchedulerFactoryBean other = start(null);
+		other.getScheduler().standby();
+		fired = new CountDownLatch(JOBS);
+		scheduleJobs(other.getScheduler(), "loaded");
+		other.stop();
+		other.destroy();
+
+		factory = start(HybridJobStore.class);
+
+		assertThat(fired.await(20, TimeUnit.SECONDS)).isTrue();
+		// The triggers are deleted once their jobs complete, after the count down
+		assertThat(awaitTriggersDeleted(5)).isZero();
+	}
+
+	private static int awaitTriggersDeleted(int seconds) throws InterruptedException {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		int remaining;
+
+		while ((remaining = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM QRTZ_TRIGGERS", Integer.class)) > 0
+				&& System.nanoTime() < deadline) {
+			Thread.sleep(100);
+		}
+
+		return remaining;
+	}
+
+	private static void scheduleJobs(Scheduler scheduler, String group) throws Exception {
+		Date fireAt = new Date(System.currentTimeMillis() + 1000);
+
+		for (int i = 0; i < JOBS; i++) {
+			JobDetail job = JobBuilder.newJob(CountingJob.class).withIdentity("job-" + i, group).build();
+			Trigger trigger = TriggerBuilder.newTrigger().withIdentity("trigger-" + i, group).startAt(fireAt).build();
+			scheduler.scheduleJob(job, trigger);
+		}
+	}
+
+	private static SchedulerFactoryBean start(Class<?> jobStoreClass) throws Exception {
+		Properties properties = new Properties();
+		properties.setProperty("org.quartz.scheduler.instanceName", SCHEDULER_NAME);
+		properties.setProperty("org.quartz.threadPool.threadCount", "4");
+		properties.setProperty("org.quartz.jobStore.driverDelegateClass",
+				"org.quartz.impl.jdbcjobstore.PostgreSQLDelegate");
+
+		if (null != jobStoreClass) {
+			properties.setProperty("org.quartz.jobStore.class", jobStoreClass.getName());
+			properties.setProperty("org.quartz.jobStore.nearTermHorizonSeconds", "60");
+			properties.setProperty("org.quartz.jobStore.nearTermRefreshSeconds", "5");
+		}
+
+		SchedulerFactoryBean factory = new SchedulerFactoryBean();
+		factory.setDataSource(postgres.getPostgresDatabase());
+		factory.setSchedulerFactoryClass(JobStoreSchedulerFactory.class);
+		factory.setQuartzProperties(JobStoreSchedulerFactory.keepJobStoreClass(properties));
+		factory.setSchedulerName(SCHEDULER_NAME);
+		factory.afterPropertiesSet();
+		factory.start();
+
+		return factory;
+	}
+
+	public static class CountingJob implements Job {
+		@Override
+		public void execute(JobExecutionContext context) {
+			fired.countDown();
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package com.needle.mail;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class DomainFairQueueTest {
+	private DomainFairQueue queue;
+
+	@AfterEach
+	void tearDown() {
+		// Not every test starts a queue
+		if (null != queue) {
+			queue.stop();
+		}
+	}
+
+	@Test
+	void servesDomainsRoundRobin() {
+		MailThrottleProperties properties = properties(0);
+		queue = new DomainFairQueue(properties);
+		queue.start();
+
+		List<String> sent = new ArrayList<>();
+		List<CompletableFuture<DeliveryResult>> results = new ArrayList<>();
+
+		// Hold the single sender until everything is queued
+		CountDownLatch queued = new CountDownLatch(1);
+		Function<MailMessage, DeliveryResult> sender = message -> {
+			try {
+				queued.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return recorder(sent).apply(message);
+		};
+
+		// A big domain queued ahead of a small one
+		for (int i = 0; i < 20; i++) {
+			results.add(queue.submit(message("user" + i + "@big.com"), sender));
+		}
+		for (int i = 0; i < 2; i++) {
+			results.add(queue.submit(message("user" + i + "@small.com"), sender));
+		}
+		queued.countDown();
+
+		results.forEach(CompletableFuture::join);
+
+		assertThat(sent).hasSize(22);
+		// The small domain doesn't wait for the whole big domain
+		assertThat(sent.lastIndexOf("small.com")).isLessThan(6);
+	}
+
+	@Test
+	void keepsEachDomainWithinItsRate() {
+		MailThrottleProperties properties = properties(0);
+		properties.getRatesPerSecond().put("limited.com", 20.0);
+		queue = new DomainFairQueue(properties);
+		queue.start();
+
+		List<String> sent = new ArrayList<>();
+		List<CompletableFuture<DeliveryResult>> results = new ArrayList<>();
+
+		long start = System.nanoTime();
+		for (int i = 0; i < 11; i++) {
+			results.add(queue.submit(message("user" + i + "@limited.com"), recorder(sent)));
+		}
+		results.forEach(CompletableFuture::join);
+		long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+		// One burst token then 10 more at 20 per second
+		assertThat(elapsedMillis).isGreaterThanOrEqualTo(450);
+		assertThat(queue.getDomains().get("limited.com").getSent().sum()).isEqualTo(11);
+	}
+
+	@Test
+	void extractsDomain() {
+		assertThat(DomainFairQueue.domainOf("Someone@Gmail.COM")).isEqualTo("gmail.com");
+		assertThat(DomainFairQueue.domainOf("no-domain")).isEqualTo("no-domain");
+	}
+
+	private static MailThrottleProperties properties(double defaultRate) {
+		MailThrottleProperties properties = new MailThrottleProperties();
+		properties.setEnabled(true);
+		properties.setDefaultRatePerSecond(defaultRate);
+		properties.setBurst(1);
+		properties.setSenderThreads(1);
+		return properties;
+	}
+
+	private static MailMessage message(String to) {
+		return MailMessage.of("from@mail.com", to, "Subject", "Body");
+	}
+
+	private static Function<MailMessage, DeliveryResult> recorder(List<String> sent) {
+		return message -> {
+			synchronized (sent) {
+				sent.add(DomainFairQueue.domainOf(message.getTo()));
+			}
+			return DeliveryResult.sent(message.getTo(), 250, "OK");
+		};
+	}
+}
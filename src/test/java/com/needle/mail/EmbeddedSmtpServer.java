@@ -0,0 +1,147 @@
+package com.needle.mail;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Minimal in-JVM SMTP server used to test the dispatcher
+ */
+class EmbeddedSmtpServer implements Closeable {
+	private final ServerSocket serverSocket;
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+	private final boolean pipelining;
+	private final Predicate<String> rejectRecipient;
+
+	final AtomicInteger connections = new AtomicInteger();
+	/* Connections to drop on the next MAIL commands, before any data */
+	final AtomicInteger dropsOnMail = new AtomicInteger();
+	/* Connections to drop right after the next messages are received, without a reply */
+	final AtomicInteger dropsAfterData = new AtomicInteger();
+	final List<String> commands = new CopyOnWriteArrayList<>();
+	final List<String> messages = new CopyOnWriteArrayList<>();
+
+	EmbeddedSmtpServer(boolean pipelining, Predicate<String> rejectRecipient) throws IOException {
+		this.pipelining = pipelining;
+		this.rejectRecipient = rejectRecipient;
+		this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+
+		executor.submit(this::accept);
+	}
+
+	String getHost() {
+		return serverSocket.getInetAddress().getHostAddress();
+	}
+
+	int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	long count(String command) {
+		return commands.stream().filter(c -> c.startsWith(command)).count();
+	}
+
+	private void accept() {
+		while (!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				// Replies are written one by one, don't let them wait on delayed acks
+				socket.setTcpNoDelay(true);
+				connections.incrementAndGet();
+				executor.submit(() -> handle(socket));
+			} catch (IOException e) {
+				return;
+			}
+		}
+	}
+
+	private void handle(Socket socket) {
+		try (Socket s = socket;
+				BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+				OutputStream out = s.getOutputStream()) {
+			reply(out, "220 localhost ESMTP");
+
+			boolean hasRecipient = false;
+			String line;
+
+			while (null != (line = in.readLine())) {
+				commands.add(line);
+				String verb = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+
+				switch (verb) {
+				case "EHLO":
+					reply(out, pipelining ? "250-localhost\r\n250-PIPELINING\r\n250 8BITMIME" : "250-localhost\r\n250 8BITMIME");
+					break;
+				case "MAIL":
+					if (dropsOnMail.getAndUpdate(drops -> Math.max(drops - 1, 0)) > 0) {
+						return;
+					}
+					reply(out, "250 OK");
+					break;
+				case "HELO":
+					reply(out, "250 OK");
+					break;
+				case "RCPT":
+					String recipient = line.substring(line.indexOf('<') + 1, line.indexOf('>'));
+					if (rejectRecipient.test(recipient)) {
+						reply(out, "550 No such user");
+					} else {
+						hasRecipient = true;
+						reply(out, "250 OK");
+					}
+					break;
+				case "DATA":
+					if (!hasRecipient) {
+						reply(out, "554 No valid recipients");
+						break;
+					}
+					reply(out, "354 End data with <CR><LF>.<CR><LF>");
+					StringBuilder data = new StringBuilder();
+					while (null != (line = in.readLine()) && !line.equals(".")) {
+						data.append(line).append("\r\n");
+					}
+					messages.add(data.toString());
+					if (dropsAfterData.getAndUpdate(drops -> Math.max(drops - 1, 0)) > 0) {
+						return;
+					}
+					reply(out, "250 Queued");
+					break;
+				case "RSET":
+					hasRecipient = false;
+					reply(out, "250 OK");
+					break;
+				case "QUIT":
+					reply(out, "221 Bye");
+					return;
+				default:
+					reply(out, "500 Unknown command");
+				}
+			}
+		} catch (IOException e) {
+			// Client went away
+		}
+	}
+
+	private void reply(OutputStream out, String reply) throws IOException {
+		out.write((reply + "\r\n").getBytes(StandardCharsets.US_ASCII));
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		serverSocket.close();
+		executor.shutdownNow();
+	}
+}
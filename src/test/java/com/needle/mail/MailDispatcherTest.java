@@ -0,0 +1,158 @@
+package com.needle.mail;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
+class MailDispatcherTest {
+	private EmbeddedSmtpServer server;
+	private MailDispatcher dispatcher;
+
+	@AfterEach
+	void tearDown() throws Exception {
+		dispatcher.close();
+		server.close();
+	}
+
+	@Test
+	void sendsSeveralMessagesOverOneConnection() throws Exception {
+		start(true, recipient -> false);
+
+		List<DeliveryResult> results = dispatcher.sendAll(messages(10));
+
+		assertThat(results).hasSize(10).allMatch(DeliveryResult::isSuccess);
+		assertThat(server.connections.get()).isEqualTo(1);
+		assertThat(server.messages).hasSize(10);
+		assertThat(server.count("RSET")).isEqualTo(9);
+	}
+
+	@Test
+	void reusesPooledSessionAcrossCalls() throws Exception {
+		start(true, recipient -> false);
+
+		dispatcher.send(MailMessage.of("from@mail.com", "first@mail.com", "Subject", "Body"));
+		dispatcher.send(MailMessage.of("from@mail.com", "second@mail.com", "Subject", "Body"));
+
+		assertThat(server.connections.get()).isEqualTo(1);
+		assertThat(server.messages).hasSize(2);
+	}
+
+	@Test
+	void reportsRejectedRecipientPerMessage() throws Exception {
+		start(true, recipient -> recipient.startsWith("unknown"));
+
+		List<DeliveryResult> results = dispatcher.sendAll(List.of(
+				MailMessage.of("from@mail.com", "first@mail.com", "Subject", "Body"),
+				MailMessage.of("from@mail.com", "unknown@mail.com", "Subject", "Body"),
+				MailMessage.of("from@mail.com", "third@mail.com", "Subject", "Body")));
+
+		assertThat(results).extracting(DeliveryResult::isSuccess).containsExactly(true, false, true);
+		assertThat(results.get(1).getCode()).isEqualTo(550);
+		assertThat(results.get(1).isPermanentFailure()).isTrue();
+		assertThat(server.connections.get()).isEqualTo(1);
+		assertThat(server.messages).hasSize(2);
+	}
+
+	@Test
+	void sendsWithoutPipelining() throws Exception {
+		start(false, recipient -> recipient.startsWith("unknown"));
+
+		List<DeliveryResult> results = dispatcher.sendAll(List.of(
+				MailMessage.of("from@mail.com", "unknown@mail.com", "Subject", "Body"),
+				MailMessage.of("from@mail.com", "second@mail.com", "Subject", ".starts with a dot")));
+
+		assertThat(results).extracting(DeliveryResult::isSuccess).containsExactly(false, true);
+		assertThat(server.messages).hasSize(1);
+		assertThat(server.messages.get(0)).contains("\r\n..starts with a dot\r\n");
+	}
+
+	@Test
+	void retriesWhenSessionDropsBeforeData() throws Exception {
+		start(true, recipient -> false);
+		server.dropsOnMail.set(1);
+
+		List<DeliveryResult> results = dispatcher.sendAll(messages(3));
+
+		assertThat(results).hasSize(3).allMatch(DeliveryResult::isSuccess);
+		assertThat(server.connections.get()).isEqualTo(2);
+		assertThat(server.messages).hasSize(3);
+	}
+
+	@Test
+	void doesNotRetryWhenSessionDropsAfterData() throws Exception {
+		start(true, recipient -> false);
+		server.dropsAfterData.set(1);
+
+		List<DeliveryResult> results = dispatcher.sendAll(messages(3));
+
+		assertThat(results).extracting(DeliveryResult::isSuccess).containsExactly(false, true, true);
+		assertThat(server.connections.get()).isEqualTo(2);
+		// The server got the first message once, it was not sent again
+		assertThat(server.messages).hasSize(3);
+		assertThat(server.messages.get(0)).contains("Subject: Subject 0");
+		assertThat(server.messages.get(1)).contains("Subject: Subject 1");
+	}
+
+	@Test
+	void opensNewSessionAfterMaxMessages() throws Exception {
+		start(true, recipient -> false);
+		dispatcher.close();
+
+		MailDispatcherProperties properties = properties();
+		properties.setMaxMessagesPerSession(4);
+		dispatcher = new MailDispatcher(properties);
+
+		List<DeliveryResult> results = dispatcher.sendAll(messages(10));
+
+		assertThat(results).allMatch(DeliveryResult::isSuccess);
+		assertThat(server.connections.get()).isEqualTo(3);
+	}
+
+	@Test
+	void measuresMessagesPerSecondPerConnection() throws Exception {
+		start(true, recipient -> false);
+
+		List<MailMessage> messages = messages(2000);
+
+		long start = System.nanoTime();
+		List<DeliveryResult> results = dispatcher.sendAll(messages);
+		long elapsed = System.nanoTime() - start;
+
+		assertThat(results).allMatch(DeliveryResult::isSuccess);
+		assertThat(server.connections.get()).isEqualTo(1);
+
+		log.info("Sent {} messages over one connection at {} messages/s", messages.size(),
+				messages.size() * 1_000_000_000L / Math.max(elapsed, 1));
+	}
+
+	private void start(boolean pipelining, Predicate<String> rejectRecipient) throws Exception {
+		server = new EmbeddedSmtpServer(pipelining, rejectRecipient);
+		dispatcher = new MailDispatcher(properties());
+	}
+
+	private MailDispatcherProperties properties() {
+		MailDispatcherProperties properties = new MailDispatcherProperties();
+		properties.setHost(server.getHost());
+		properties.setPort(server.getPort());
+		properties.setMaxSessionsPerHost(1);
+		properties.setMaxMessagesPerSession(10000);
+		return properties;
+	}
+
+	private static List<MailMessage> messages(int count) {
+		// @formatter:off
+		return IntStream.range(0, count)
+				.mapToObj(i -> MailMessage.of("from@mail.com", "user" + i + "@mail.com", "Subject " + i, "Body " + i))
+				.collect(Collectors.toList());
+		// @formatter:on
+	}
+}
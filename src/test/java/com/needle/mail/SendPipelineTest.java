@@ -0,0 +1,101 @@
+package com.needle.mail;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SendPipelineTest {
+	private SendPipeline pipeline;
+
+	@AfterEach
+	void tearDown() {
+		if (null != pipeline) {
+			pipeline.stop();
+		}
+	}
+
+	@Test
+	void drainsQueuedSendsOnStop() {
+		// The queue never fills, the shards are not needed
+		pipeline = new SendPipeline(properties(2, 5), null);
+		pipeline.start();
+
+		AtomicInteger sent = new AtomicInteger();
+		List<CompletableFuture<Integer>> results = new ArrayList<>();
+
+		for (int i = 0; i < 50; i++) {
+			results.add(pipeline.submit(() -> {
+				sleep(5);
+				return sent.incrementAndGet();
+			}));
+		}
+
+		pipeline.stop();
+
+		assertThat(sent.get()).isEqualTo(50);
+		assertThat(results).allMatch(result -> result.isDone() && !result.isCompletedExceptionally());
+	}
+
+	@Test
+	void failsSendsLeftAfterDrainTimeout() throws Exception {
+		pipeline = new SendPipeline(properties(1, 0), null);
+		pipeline.start();
+
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		CompletableFuture<String> blocked = pipeline.submit(() -> {
+			running.countDown();
+			await(release);
+			return "sent";
+		});
+		running.await();
+
+		CompletableFuture<String> queued = pipeline.submit(() -> "sent");
+
+		pipeline.stop();
+		release.countDown();
+
+		assertThatThrownBy(() -> queued.get(1, TimeUnit.SECONDS)).hasCauseInstanceOf(RejectedExecutionException.class);
+		assertThat(blocked.get(1, TimeUnit.SECONDS)).isEqualTo("sent");
+		assertThatThrownBy(() -> pipeline.submit(() -> "sent")).isInstanceOf(IllegalStateException.class);
+	}
+
+	private static SendPipelineProperties properties(int workers, long drainTimeoutSeconds) {
+		SendPipelineProperties properties = new SendPipelineProperties();
+		properties.setEnabled(true);
+		properties.setWorkers(workers);
+		properties.setQueueCapacity(100);
+		properties.setResumeThreshold(50);
+		properties.setVirtualThreads(false);
+		properties.setDrainTimeoutSeconds(drainTimeoutSeconds);
+		return properties;
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			// Interrupted by the stop, the send still completes
+			Thread.currentThread().interrupt();
+		}
+	}
+}
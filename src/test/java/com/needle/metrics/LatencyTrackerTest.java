@@ -0,0 +1,38 @@
+package com.needle.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.needle.utils.CommonConstants;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LatencyTrackerTest {
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final LatencyTracker latencyTracker = new LatencyTracker(new LatencyProperties(), event -> {
+	}, meterRegistry);
+
+	@Test
+	void publishesFireLagFromTheHistogram() {
+		for (int i = 1; i <= 100; i++) {
+			latencyTracker.recordFireLag("group", i);
+		}
+
+		FunctionTimer timer = meterRegistry.find(CommonConstants.METRICS.JOB_FIRE_LAG)
+				.tag(CommonConstants.METRICS.TAG_GROUP, "group").functionTimer();
+
+		assertThat(timer.count()).isEqualTo(100);
+		assertThat(timer.totalTime(TimeUnit.MILLISECONDS)).isCloseTo(5050, within(5.0));
+		// @formatter:off
+		assertThat(meterRegistry.find(CommonConstants.METRICS.JOB_FIRE_LAG_PERCENTILE)
+				.tags(CommonConstants.METRICS.TAG_GROUP, "group", CommonConstants.METRICS.TAG_PERCENTILE, "0.99")
+				.gauge().value()).isEqualTo(99);
+		// @formatter:on
+		assertThat(latencyTracker.report().get("group").getFireLag().getCount()).isEqualTo(100);
+	}
+}
@@ -0,0 +1,91 @@
+package com.needle.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.Job;
+import org.quartz.JobExecutionContext;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.quartz.impl.StdSchedulerFactory;
+
+class JobBuilderUtilsTest {
+	private static final JobKey JOB_KEY = new JobKey("recurring", "recurring-job-group");
+
+	private Scheduler scheduler;
+
+	@BeforeEach
+	void createScheduler() throws SchedulerException {
+		Properties properties = new Properties();
+		properties.setProperty(StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, "JobBuilderUtilsTest");
+		properties.setProperty("org.quartz.threadPool.threadCount", "1");
+		properties.setProperty("org.quartz.scheduler.skipUpdateCheck", "true");
+
+		// Never started, the triggers are only stored
+		scheduler = new StdSchedulerFactory(properties).getScheduler();
+	}
+
+	@AfterEach
+	void shutdownScheduler() throws SchedulerException {
+		scheduler.shutdown();
+	}
+
+	@Test
+	void registersOnce() throws SchedulerException {
+		register(60, 1);
+		register(60, 1);
+
+		assertThat(triggers()).hasSize(1);
+		assertThat(interval()).isEqualTo(60_000);
+	}
+
+	@Test
+	void reschedulesWhenTheIntervalOrPriorityChanged() throws SchedulerException {
+		register(60, 1);
+		register(120, 1);
+
+		assertThat(triggers()).hasSize(1);
+		assertThat(interval()).isEqualTo(120_000);
+
+		register(120, Trigger.DEFAULT_PRIORITY);
+
+		assertThat(triggers().get(0).getPriority()).isEqualTo(Trigger.DEFAULT_PRIORITY);
+	}
+
+	@Test
+	void unregistersOnlyWhatWasRegistered() throws SchedulerException {
+		assertThat(JobBuilderUtils.unregisterRecurring(scheduler, JOB_KEY)).isFalse();
+
+		register(60, 1);
+
+		assertThat(JobBuilderUtils.unregisterRecurring(scheduler, JOB_KEY)).isTrue();
+		assertThat(scheduler.checkExists(JOB_KEY)).isFalse();
+	}
+
+	private void register(int intervalSeconds, int priority) throws SchedulerException {
+		JobBuilderUtils.registerRecurring(scheduler, NoopJob.class, JOB_KEY, "recurring-trigger-group", "Recurring",
+				intervalSeconds, priority);
+	}
+
+	private List<? extends Trigger> triggers() throws SchedulerException {
+		return scheduler.getTriggersOfJob(JOB_KEY);
+	}
+
+	private long interval() throws SchedulerException {
+		return ((SimpleTrigger) triggers().get(0)).getRepeatInterval();
+	}
+
+	public static class NoopJob implements Job {
+		@Override
+		public void execute(JobExecutionContext context) {
+		}
+	}
+}
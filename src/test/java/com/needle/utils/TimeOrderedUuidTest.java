@@ -0,0 +1,44 @@
+package com.needle.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+class TimeOrderedUuidTest {
+	private static final long NOW = 1_700_000_000_000L;
+
+	@Test
+	void isAVersion7Uuid() {
+		long before = System.currentTimeMillis();
+		UUID uuid = TimeOrderedUuid.next();
+
+		assertThat(uuid.version()).isEqualTo(7);
+		assertThat(uuid.variant()).isEqualTo(2);
+		assertThat(TimeOrderedUuid.millisOf(uuid)).isBetween(before, System.currentTimeMillis());
+	}
+
+	@Test
+	void sortsInTheOrderOfGeneration() {
+		List<String> ids = new ArrayList<>();
+
+		// Several thousands within the same milliseconds
+		for (int i = 0; i < 10_000; i++) {
+			ids.add(TimeOrderedUuid.next(NOW + 10_000 + i / 5000).toString());
+		}
+
+		assertThat(ids).isSorted().doesNotHaveDuplicates();
+	}
+
+	@Test
+	void neverGoesBackWithTheClock() {
+		UUID first = TimeOrderedUuid.next(NOW + 100_000);
+		UUID second = TimeOrderedUuid.next(NOW + 99_000);
+
+		assertThat(second.toString()).isGreaterThan(first.toString());
+		assertThat(TimeOrderedUuid.millisOf(second)).isGreaterThanOrEqualTo(NOW + 100_000);
+	}
+}
@@ -0,0 +1,86 @@
+package com.needle.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+	private static final long START = 1_000_000;
+
+	@Test
+	void pollsOnlyTheDueItems() {
+		TimingWheel<String> wheel = new TimingWheel<>(1000, 60, START);
+		wheel.add(START + 500, "now");
+		wheel.add(START + 1500, "soon");
+		wheel.add(START + 30_000, "later");
+
+		assertThat(items(wheel.poll(START + 1000))).containsExactly("now");
+		assertThat(items(wheel.poll(START + 29_999))).containsExactly("soon");
+		assertThat(items(wheel.poll(START + 30_000))).containsExactly("later");
+		assertThat(wheel.size()).isZero();
+	}
+
+	@Test
+	void keepsTheRestOfTheCurrentTick() {
+		TimingWheel<String> wheel = new TimingWheel<>(1000, 60, START);
+		wheel.add(START + 100, "first");
+		wheel.add(START + 900, "second");
+
+		assertThat(items(wheel.poll(START + 100))).containsExactly("first");
+		assertThat(wheel.size()).isEqualTo(1);
+		assertThat(items(wheel.poll(START + 900))).containsExactly("second");
+	}
+
+	@Test
+	void bringsFarItemsDownTheLevels() {
+		TimingWheel<String> wheel = new TimingWheel<>(1000, 60, START);
+		// Beyond the first and the second level
+		wheel.add(START + 90_000, "minutes");
+		wheel.add(START + 5_400_000, "hours");
+
+		assertThat(wheel.size()).isEqualTo(2);
+		assertThat(wheel.poll(START + 89_999)).isEmpty();
+		assertThat(items(wheel.poll(START + 90_000))).containsExactly("minutes");
+		assertThat(wheel.poll(START + 5_399_999)).isEmpty();
+		assertThat(items(wheel.poll(START + 5_400_000))).containsExactly("hours");
+	}
+
+	@Test
+	void pollsPastItemsRightAway() {
+		TimingWheel<String> wheel = new TimingWheel<>(1000, 60, START);
+		wheel.poll(START + 10_000);
+		wheel.add(START, "late");
+
+		assertThat(items(wheel.poll(START + 10_000))).containsExactly("late");
+	}
+
+	@Test
+	void pollsEveryItemOnce() {
+		TimingWheel<Integer> wheel = new TimingWheel<>(1000, 60, START);
+		List<Integer> expected = new ArrayList<>();
+
+		for (int i = 0; i < 1000; i++) {
+			wheel.add(START + i * 7919L, i);
+			expected.add(i);
+		}
+
+		List<Integer> polled = new ArrayList<>();
+
+		for (long now = START; now <= START + 8_000_000; now += 45_000) {
+			for (TimingWheel.Entry<Integer> entry : wheel.poll(now)) {
+				assertThat(entry.getExpiration()).isLessThanOrEqualTo(now);
+				polled.add(entry.getItem());
+			}
+		}
+
+		assertThat(polled).containsExactlyInAnyOrderElementsOf(expected);
+	}
+
+	private static <T> List<T> items(List<TimingWheel.Entry<T>> entries) {
+		return entries.stream().map(TimingWheel.Entry::getItem).collect(Collectors.toList());
+	}
+}